@@ -6,6 +6,7 @@ import com.ims.common.entity.management.LotEntity;
 import com.ims.common.entity.storage.SectionEntity;
 import com.ims.common.entity.storage.SlotSection;
 import com.ims.common.entity.storage.SlotShelf;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -16,22 +17,53 @@ import java.util.Date;
 @Setter
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
-@Table(name = "product")
+@NamedEntityGraph(name = BaseProductEntity.LOT_VIEW_GRAPH, attributeNodes = {
+        @NamedAttributeNode(value = "lot", subgraph = "lot"),
+        @NamedAttributeNode(value = "section", subgraph = "section"),
+        @NamedAttributeNode(value = "slotShelf", subgraph = "slotShelf"),
+        @NamedAttributeNode("slotSection"),
+        @NamedAttributeNode(value = "dispatch", subgraph = "dispatch")
+}, subgraphs = {
+        @NamedSubgraph(name = "lot", attributeNodes = @NamedAttributeNode("user")),
+        @NamedSubgraph(name = "section", attributeNodes = @NamedAttributeNode("warehouse")),
+        @NamedSubgraph(name = "slotShelf", attributeNodes = @NamedAttributeNode("shelf")),
+        @NamedSubgraph(name = "dispatch", attributeNodes = @NamedAttributeNode("user"))
+})
+@Table(name = "product", indexes = {
+        @Index(name = "idx_product_fingerprint_dispatch", columnList = "group_fingerprint, dispatch_id"),
+        @Index(name = "idx_product_reserved_by_dispatch", columnList = "reserved_by_dispatch"),
+        @Index(name = "idx_product_lot_dispatch", columnList = "lot_id, dispatch_id")
+})
 public abstract class BaseProductEntity {
+    // Everything a by-lot product listing shows about a unit: its lot, location and dispatch
+    public static final String LOT_VIEW_GRAPH = "BaseProductEntity.lotView";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private String name;
 
+    // Hash of the product type and its detail attributes; units that are interchangeable share it
+    @Column(name = "group_fingerprint", length = 64)
+    private String groupFingerprint;
+
     @ManyToOne
     @JoinColumn(name = "dispatch_id")
     private DispatchEntity dispatch;
 
+    // Id of the pending dispatch that has claimed this unit; cleared when that dispatch is decided
+    @Column(name = "reserved_by_dispatch", length = 36)
+    private String reservedByDispatch;
+
     @ManyToOne
     @JoinColumn(name = "lot_id", nullable = false)
     private LotEntity lot;
 
+    // Id of the user whose lot brought this unit in, copied from the lot; filled in at startup for older units
+    @Column(name = "supplier_id", length = 36)
+    private String supplierId;
+
     @OneToOne
     @JsonBackReference
     @JoinColumn(name = "slot_shelf_id", referencedColumnName = "id")
@@ -2,6 +2,7 @@ package com.ims.common.entity;
 
 import com.ims.common.config.TransactionType;
 import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -12,7 +13,7 @@ import lombok.Setter;
 @Table(name = "price")
 public class PriceEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private double value;
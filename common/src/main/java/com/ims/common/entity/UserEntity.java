@@ -1,6 +1,7 @@
 package com.ims.common.entity;
 
 import com.ims.common.config.UserRole;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -17,7 +18,7 @@ import java.util.List;
 @Table(name = "users")
 public class UserEntity implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     @Column(unique = true, nullable = false)
@@ -13,10 +13,15 @@ import java.util.List;
 @Entity
 @Table(name = "warehouse")
 public class WarehouseEntity {
+    // Seeded on first start; sections and batches that name no warehouse go here
+    public static final String DEFAULT_ID = "unique_warehouse";
+
     @Id
     @Column(name = "id")
     private String id;
 
+    private String name;
+
     private int totalSlots;
     private int usedSlots;
 
@@ -2,6 +2,7 @@ package com.ims.common.entity.management;
 
 import com.ims.common.config.DispatchStatus;
 import com.ims.common.entity.UserEntity;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -12,10 +13,14 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "dispatch")
+@Table(name = "dispatch", indexes = {
+        @Index(name = "idx_dispatch_status_created_id", columnList = "status, createdAt, id"),
+        @Index(name = "idx_dispatch_created_id", columnList = "createdAt, id"),
+        @Index(name = "idx_dispatch_user_created_id", columnList = "user_id, createdAt, id")
+})
 public class DispatchEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     @Temporal(TemporalType.TIMESTAMP)
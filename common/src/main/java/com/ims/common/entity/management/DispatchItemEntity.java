@@ -2,6 +2,7 @@ package com.ims.common.entity.management;
 
 import com.ims.common.entity.BaseProductEntity;
 import com.ims.common.entity.PriceEntity;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -16,7 +17,7 @@ import java.util.List;
 @Table(name = "dispatch_item")
 public class DispatchItemEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private String productName;
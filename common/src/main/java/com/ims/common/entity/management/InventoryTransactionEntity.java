@@ -1,6 +1,7 @@
 package com.ims.common.entity.management;
 
 import com.ims.common.config.TransactionType;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,7 +14,7 @@ import java.util.Date;
 @Table(name = "inventory_transaction")
 public class InventoryTransactionEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     @Enumerated(EnumType.STRING)
@@ -4,6 +4,8 @@ import com.ims.common.config.LotStatus;
 import com.ims.common.config.StorageStrategy;
 import com.ims.common.entity.PriceEntity;
 import com.ims.common.entity.UserEntity;
+import com.ims.common.id.TimeOrderedId;
+import com.ims.common.id.TimeOrderedIds;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,10 +16,13 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "lot")
+@Table(name = "lot", indexes = {
+        @Index(name = "idx_lot_import_date_id", columnList = "importDate, id"),
+        @Index(name = "idx_lot_user_import_date_id", columnList = "user_id, importDate, id")
+})
 public class LotEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private String lotCode;
@@ -44,7 +49,7 @@ public class LotEntity {
     @PrePersist
     protected void onCreate() {
         if (lotCode == null || lotCode.isEmpty()) {
-            lotCode = "LOT-" + System.currentTimeMillis();
+            lotCode = TimeOrderedIds.nextLotCode();
         }
     }
 }
\ No newline at end of file
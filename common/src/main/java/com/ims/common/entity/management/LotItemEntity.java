@@ -2,6 +2,7 @@ package com.ims.common.entity.management;
 
 import com.ims.common.entity.BaseProductEntity;
 import com.ims.common.entity.PriceEntity;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,7 +15,7 @@ import java.util.Date;
 @Setter
 public class LotItemEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private String productName;
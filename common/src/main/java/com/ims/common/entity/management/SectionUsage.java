@@ -3,6 +3,7 @@ package com.ims.common.entity.management;
 import com.ims.common.entity.PriceEntity;
 import com.ims.common.entity.UserEntity;
 import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,7 +16,7 @@ import java.time.LocalDateTime;
 @Table(name = "section_usage")
 public class SectionUsage {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.ims.common.config.SectionStatus;
 import com.ims.common.entity.PriceEntity;
 import com.ims.common.entity.WarehouseEntity;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -19,7 +20,7 @@ import java.util.List;
 @Setter
 public class SectionEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private String name;
@@ -50,12 +51,32 @@ public class SectionEntity {
     private int y_slot;
     private int x;
     private int y;
+
+    // Only ever changed through relative JPQL updates, so a stale copy can't overwrite them on flush
+    @Column(name = "total_slots", updatable = false)
+    private int totalSlots;
+
+    @Column(name = "used_slots", updatable = false)
+    private int usedSlots;
+
+    // Slot rows exist only for occupied positions; free ones are implied by the grid
+    @Column(name = "virtual_slots", nullable = false)
+    private boolean virtualSlots;
+
     @ManyToOne
     @JoinColumn(name = "warehouse_id")
     @JsonBackReference
     private WarehouseEntity warehouse;
 
+    /**
+     * Stored slot capacity. Rows created before the column existed fall back to the grid size
+     * until the startup reconciliation has filled it in.
+     */
     public int getTotalSlots() {
+        return totalSlots > 0 ? totalSlots : computeGridSlots();
+    }
+
+    public int computeGridSlots() {
         return (numShelves > 0 && shelves != null && !shelves.isEmpty())
                 ? numShelves * shelves.getFirst().getHeight() * 6
                 : 6 * y_slot;
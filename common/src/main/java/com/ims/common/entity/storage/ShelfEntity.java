@@ -1,5 +1,6 @@
 package com.ims.common.entity.storage;
 
+import com.ims.common.id.TimeOrderedId;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
@@ -14,7 +15,7 @@ import java.util.List;
 @Setter
 public class ShelfEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private int height;
@@ -1,5 +1,6 @@
 package com.ims.common.entity.storage;
 
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,11 +11,14 @@ import lombok.Setter;
 @Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
 public abstract class SlotEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     private boolean occupied;
 
+    @Version
+    private long version;
+
     public boolean isAvailable() {
         return !occupied;
     }
@@ -0,0 +1,39 @@
+package com.ims.common.entity.storage;
+
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.id.TimeOrderedId;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "slot_reservation", indexes = {
+        @Index(name = "idx_slot_reservation_lot", columnList = "lot_id"),
+        @Index(name = "idx_slot_reservation_expires", columnList = "expires_at")
+})
+public class SlotReservationEntity {
+    @Id
+    @TimeOrderedId
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "section_id", nullable = false)
+    private SectionEntity section;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "lot_id", nullable = false)
+    private LotEntity lot;
+
+    @Column(nullable = false)
+    private int slots;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
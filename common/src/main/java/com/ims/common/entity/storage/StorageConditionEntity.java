@@ -2,6 +2,7 @@ package com.ims.common.entity.storage;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.ims.common.config.StorageConditions;
+import com.ims.common.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -12,7 +13,7 @@ import lombok.Setter;
 @Table(name = "storage_condition")
 public class StorageConditionEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private String id;
 
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,19 @@
+package com.ims.common.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the annotated string identifier as a time-ordered UUID, see {@link TimeOrderedIds}.
+ * Used in place of {@code @GeneratedValue(strategy = GenerationType.UUID)}, whose random UUIDs
+ * scatter inserts across the primary key index.
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedId {
+}
@@ -1,6 +1,7 @@
 import React, { useEffect, useState } from 'react';
 import { useAuth } from '../../hooks/useAuth';
 import dispatchService, { Dispatch } from '../../services/dispatchService';
+import { shortId } from '../../utils/idUtils';
 import './exportmanagementpage.css';
 
 const ExportManagementPage: React.FC = () => {
@@ -139,7 +140,7 @@ const ExportManagementPage: React.FC = () => {
                 <div key={dispatch.id} className="dispatch-card">
                   <div className="dispatch-header">
                     <div className="dispatch-info">
-                      <h3>Request #{dispatch.id.substring(0, 8)}</h3>
+                      <h3>Request #{shortId(dispatch.id)}</h3>
                       <p className="dispatch-date">
                         <svg width="16" height="16" viewBox="0 0 24 24" fill="none" xmlns="http://www.w3.org/2000/svg">
                           <rect x="3" y="4" width="18" height="18" rx="2" stroke="currentColor" strokeWidth="2"/>
@@ -206,7 +207,7 @@ const ExportManagementPage: React.FC = () => {
                 <div key={dispatch.id} className="dispatch-card">
                   <div className="dispatch-header">
                     <div className="dispatch-info">
-                      <h3>Request #{dispatch.id.substring(0, 8)}</h3>
+                      <h3>Request #{shortId(dispatch.id)}</h3>
                       <p className="dispatch-date">
                         <svg width="16" height="16" viewBox="0 0 24 24" fill="none" xmlns="http://www.w3.org/2000/svg">
                           <rect x="3" y="4" width="18" height="18" rx="2" stroke="currentColor" strokeWidth="2"/>
@@ -284,7 +285,7 @@ const ExportManagementPage: React.FC = () => {
                         
                         return (
                           <tr key={item.id}>
-                            <td>{item.product?.name || (item.productId ? `Product #${item.productId.substring(0, 8)}` : 'N/A')}</td>
+                            <td>{item.product?.name || (item.productId ? `Product #${shortId(item.productId)}` : 'N/A')}</td>
                             <td>{item.quantity}</td>
                             <td>{item.product?.lotCode || 'N/A'}</td>
                             <td>
@@ -1,6 +1,7 @@
 import React, { useEffect, useState } from 'react';
 import { useAuth } from '../../hooks/useAuth';
 import dispatchService, { Dispatch } from '../../services/dispatchService';
+import { shortId } from '../../utils/idUtils';
 import './History.css';
 
 const History: React.FC = () => {
@@ -122,7 +123,7 @@ const History: React.FC = () => {
                 onClick={() => handleDispatchSelect(dispatch)}
               >
                 <div className="dispatch-card-header">
-                  <div className="dispatch-id">Request #{dispatch.id.substring(0, 8)}</div>
+                  <div className="dispatch-id">Request #{shortId(dispatch.id)}</div>
                   <div className={`dispatch-status ${getStatusBadgeClass(dispatch.status)}`}>
                     {dispatch.status}
                   </div>
@@ -1,6 +1,8 @@
 import apiClient from '../utils/apiClient';
 import authApiClient from '../utils/authApiClient';
 import { handleAxiosError } from '../utils/errorHandler';
+import { getAllPages } from '../utils/cursorPaging';
+import { shortId } from '../utils/idUtils';
 
 export interface DispatchProduct {
   id?: string;
@@ -55,10 +57,10 @@ export interface Dispatch {
 const dispatchService = {
   getBuyerDispatches: async (): Promise<Dispatch[]> => {
     try {
-      const response = await apiClient.get('/api/dispatches/buyer');
-      console.log('Raw buyer dispatches from API:', response.data);
+      const dispatches = await getAllPages('/api/dispatches/buyer');
+      console.log('Raw buyer dispatches from API:', dispatches);
 
-      return response.data.map((item: any) => {
+      return dispatches.map((item: any) => {
         let dispatch = {
           ...item,
           status: item.status as 'PENDING' | 'ACCEPTED' | 'REJECTED'
@@ -118,7 +120,7 @@ const dispatchService = {
       
       if (processedData.items && Array.isArray(processedData.items)) {
         processedData.items = processedData.items.map((item: any) => {
-          const productIdShort = item.productId ? item.productId.substring(0, 8) : 'unknown';
+          const productIdShort = item.productId ? shortId(item.productId) : 'unknown';
                     const originalSubtotal = item.subtotal;
           
           if (!item.product) {
@@ -233,9 +235,9 @@ const dispatchService = {
 
   getPendingDispatches: async (): Promise<Dispatch[]> => {
     try {
-      const response = await apiClient.get('/api/dispatches/admin/pending');
+      const dispatches = await getAllPages('/api/dispatches/admin/pending');
 
-      return response.data.map((item: any) => ({
+      return dispatches.map((item: any) => ({
         ...item,
         status: item.status as 'PENDING' | 'ACCEPTED' | 'REJECTED'
       }));
@@ -247,8 +249,8 @@ const dispatchService = {
 
   getCompletedDispatches: async (): Promise<Dispatch[]> => {
     try {
-      const response = await apiClient.get('/api/dispatches/admin/accepted-rejected');
-      return response.data.map((item: any) => ({
+      const dispatches = await getAllPages('/api/dispatches/admin/accepted-rejected');
+      return dispatches.map((item: any) => ({
         ...item,
         status: item.status as 'PENDING' | 'ACCEPTED' | 'REJECTED'
       }));
@@ -1,4 +1,5 @@
 import apiClient from '../utils/apiClient';
+import { getAllPages } from '../utils/cursorPaging';
 import { SlotInfo, ShelfInfo, ProductType, StorageStrategy } from '../types/inventory';
 
 interface PriceCalculationRequest {
@@ -77,9 +78,7 @@ const inventoryService = {
 
   getLotHistory: async () => {
     try {
-      const response = await apiClient.get('/lot/history');
-
-      return response.data;
+      return await getAllPages('/lot/history');
     } catch (error) {
 
       throw error;
@@ -138,8 +137,7 @@ const inventoryService = {
 
   getAllLots: async () => {
     try {
-      const response = await apiClient.get('/lot/all');
-      return response.data;
+      return await getAllPages('/lot/all');
     } catch (error) {
 
       throw error;
@@ -167,8 +165,7 @@ const inventoryService = {
 
   getProductsByLot: async () => {
     try {
-      const response = await apiClient.get('/inventory/admin/products');
-      return response.data;
+      return await getAllPages('/inventory/admin/products');
     } catch (error) {
 
       throw error;
@@ -177,8 +174,7 @@ const inventoryService = {
 
   getProductsByLotForSupplier: async () => {
     try {
-      const response = await apiClient.get('/inventory/supplier/products');
-      return response.data;
+      return await getAllPages('/inventory/supplier/products');
     } catch (error) {
 
       throw error;
@@ -215,8 +211,7 @@ const inventoryService = {
         });
       }
       
-      const response = await apiClient.get(`/inventory/admin/products/enhanced?${params.toString()}`);
-      return response.data;
+      return await getAllPages('/inventory/admin/products/enhanced', params);
     } catch (error) {
       console.error('Error fetching enhanced products:', error);
       throw error;
@@ -0,0 +1,31 @@
+import apiClient from './apiClient';
+
+// Response header carrying the cursor of the following page; axios lower-cases header names
+const NEXT_CURSOR_HEADER = 'x-next-cursor';
+
+// Largest page the server hands out (inventory.paging.max-page-size)
+const PAGE_SIZE = 200;
+
+/**
+ * Reads every page of a keyset-paginated listing, following the cursor in the
+ * X-Next-Cursor header until the server sends none
+ * @param url Listing endpoint
+ * @param params Query parameters sent with every page
+ * @returns Items of all pages, in the server's order
+ */
+export const getAllPages = async <T = any>(url: string, params?: URLSearchParams): Promise<T[]> => {
+  const items: T[] = [];
+  let cursor: string | undefined;
+  do {
+    const pageParams = new URLSearchParams(params);
+    pageParams.set('size', String(PAGE_SIZE));
+    if (cursor) {
+      pageParams.set('cursor', cursor);
+    }
+    const response = await apiClient.get(`${url}?${pageParams.toString()}`);
+    items.push(...response.data);
+    const next = response.headers[NEXT_CURSOR_HEADER];
+    cursor = typeof next === 'string' && next !== '' ? next : undefined;
+  } while (cursor);
+  return items;
+};
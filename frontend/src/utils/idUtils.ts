@@ -0,0 +1,8 @@
+/**
+ * Shortens an id for display to its last eight characters. Ids are UUIDv7, whose
+ * leading characters are a timestamp shared by records created close together,
+ * so only the random tail tells them apart
+ * @param id Full id
+ * @returns Last eight characters of the id
+ */
+export const shortId = (id: string): string => id.slice(-8);
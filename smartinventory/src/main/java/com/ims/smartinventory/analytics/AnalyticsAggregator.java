@@ -0,0 +1,348 @@
+package com.ims.smartinventory.analytics;
+
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.smartinventory.repository.DispatchItemRepository;
+import com.ims.smartinventory.repository.LotItemRepository;
+import com.ims.smartinventory.repository.LotRepository;
+import com.ims.smartinventory.repository.ProductRepository;
+import com.ims.smartinventory.repository.SectionRepository;
+import com.ims.smartinventory.storage.ProductSupplierIndex;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Adds up everything the advanced analytics report in a single pass over the lot items.
+ * <p>
+ * Units are attributed to their supplier through the {@link ProductSupplierIndex}, so the pass
+ * reads nothing from the lot but its import date.
+ * <p>
+ * The storage cost of a unit depends on its section only, so the accumulators count units per
+ * section and costs are multiplied out when read. Lots without items, units no lot item refers to
+ * and dispatch items are covered by grouped counts next to the pass.
+ */
+@Component
+public class AnalyticsAggregator {
+
+    private final LotItemRepository lotItemRepository;
+    private final LotRepository lotRepository;
+    private final ProductRepository productRepository;
+    private final SectionRepository sectionRepository;
+    private final DispatchItemRepository dispatchItemRepository;
+    private final ProductSupplierIndex productSupplierIndex;
+
+    public AnalyticsAggregator(LotItemRepository lotItemRepository, LotRepository lotRepository,
+                               ProductRepository productRepository, SectionRepository sectionRepository,
+                               DispatchItemRepository dispatchItemRepository, ProductSupplierIndex productSupplierIndex) {
+        this.lotItemRepository = lotItemRepository;
+        this.lotRepository = lotRepository;
+        this.productRepository = productRepository;
+        this.sectionRepository = sectionRepository;
+        this.dispatchItemRepository = dispatchItemRepository;
+        this.productSupplierIndex = productSupplierIndex;
+    }
+
+    /**
+     * Totals over everything stored, with the items of lots imported strictly inside each month from
+     * {@code firstMonth} to {@code lastMonth} also added up per month. A lot imported exactly at the
+     * start of a month falls in none.
+     */
+    @Transactional(readOnly = true)
+    public Totals aggregate(YearMonth firstMonth, YearMonth lastMonth) {
+        Map<String, SectionTotals> sections = new LinkedHashMap<>();
+        for (SectionEntity section : sectionRepository.findAllWithStorageConditionsPriceAndWarehouse()) {
+            sections.put(section.getId(), new SectionTotals(section));
+        }
+        for (ProductRepository.SectionCount count : productRepository.countBySection()) {
+            SectionTotals section = sections.get(count.getSectionId());
+            if (section != null) {
+                section.units = count.getUnits();
+            }
+        }
+
+        Map<String, SupplierTotals> suppliers = new LinkedHashMap<>();
+        for (LotRepository.SupplierLots lots : lotRepository.countLotsBySupplier()) {
+            suppliers.put(lots.getSupplierId(),
+                    new SupplierTotals(lots.getSupplierId(), lots.getSupplierUsername(), lots.getLots(), sections));
+        }
+
+        List<MonthTotals> months = new ArrayList<>();
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            months.add(new MonthTotals(month, sections));
+        }
+        long[] monthStarts = new long[months.size() + 1];
+        for (int i = 0; i < monthStarts.length; i++) {
+            monthStarts[i] = firstMonth.plusMonths(i).atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        try (Stream<LotItemRepository.SupplyRow> rows = lotItemRepository.streamSupplyRows()) {
+            Iterator<LotItemRepository.SupplyRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                LotItemRepository.SupplyRow row = iterator.next();
+                boolean placed = row.productId() != null && row.sectionId() != null;
+                // Null only for a unit whose batch is still committing
+                String supplierId = row.productId() != null ? productSupplierIndex.supplierOf(row.productId()) : null;
+
+                if (supplierId != null) {
+                    SupplierTotals supplier = suppliers.computeIfAbsent(supplierId,
+                            id -> new SupplierTotals(id, null, 0, sections));
+                    supplier.units++;
+                    if (placed) {
+                        supplier.count(row.sectionId());
+                        SectionTotals section = sections.get(row.sectionId());
+                        if (section != null) {
+                            section.suppliers.add(supplier.id());
+                        }
+                    }
+                }
+
+                int month = monthOf(row.importDate(), monthStarts);
+                if (month >= 0) {
+                    MonthTotals totals = months.get(month);
+                    totals.items++;
+                    if (placed) {
+                        totals.count(row.sectionId());
+                    }
+                }
+            }
+        }
+
+        return new Totals(sections, suppliers.values(), months, dispatchItemRepository.countByDispatchIsNotNull());
+    }
+
+    // Index of the month the instant falls strictly inside, or -1 for one outside the range or on a month start
+    private static int monthOf(Date importDate, long[] monthStarts) {
+        if (importDate == null) {
+            return -1;
+        }
+        int found = Arrays.binarySearch(monthStarts, importDate.getTime());
+        if (found >= 0) {
+            return -1;
+        }
+        int insertion = -found - 1;
+        return insertion >= 1 && insertion < monthStarts.length ? insertion - 1 : -1;
+    }
+
+    public static final class Totals {
+        private final Map<String, SectionTotals> sections;
+        private final Collection<SupplierTotals> suppliers;
+        private final List<MonthTotals> months;
+        private final long exportedItems;
+
+        private Totals(Map<String, SectionTotals> sections, Collection<SupplierTotals> suppliers,
+                       List<MonthTotals> months, long exportedItems) {
+            this.sections = sections;
+            this.suppliers = suppliers;
+            this.months = months;
+            this.exportedItems = exportedItems;
+        }
+
+        public Collection<SectionTotals> sections() {
+            return sections.values();
+        }
+
+        public Collection<SupplierTotals> suppliers() {
+            return suppliers;
+        }
+
+        public List<MonthTotals> months() {
+            return months;
+        }
+
+        public long exportedItems() {
+            return exportedItems;
+        }
+
+        /**
+         * Monthly fees of all sections together.
+         */
+        public BigDecimal maintenanceFees() {
+            return sections.values().stream().map(SectionTotals::fee).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        /**
+         * The first section carrying the name, which stands for every section of that name.
+         */
+        public SectionTotals firstSectionNamed(String name) {
+            return sections.values().stream().filter(section -> section.name().equals(name)).findFirst().orElse(null);
+        }
+    }
+
+    public static final class SectionTotals {
+        private final String id;
+        private final String name;
+        private final BigDecimal fee;
+        private final BigDecimal unitCost;
+        private final int totalSlots;
+        private final String storageCondition;
+        private final Set<String> suppliers = new HashSet<>();
+        private long units;
+
+        private SectionTotals(SectionEntity section) {
+            this.id = section.getId();
+            this.name = section.getName();
+            this.fee = section.getPrice() != null ? BigDecimal.valueOf(section.getPrice().getValue()) : BigDecimal.ZERO;
+            this.totalSlots = section.getTotalSlots();
+            this.unitCost = fee.divide(BigDecimal.valueOf(Math.max(totalSlots, 1)), 2, RoundingMode.HALF_UP);
+            this.storageCondition = section.getStorageConditions() == null || section.getStorageConditions().isEmpty()
+                    ? null
+                    : section.getStorageConditions().getFirst().getConditionType().name();
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public BigDecimal fee() {
+            return fee;
+        }
+
+        public int totalSlots() {
+            return totalSlots;
+        }
+
+        /**
+         * Type of the section's first storage condition, or null for a regular section.
+         */
+        public String storageCondition() {
+            return storageCondition;
+        }
+
+        /**
+         * Ids of the suppliers with units stored in the section.
+         */
+        public Set<String> suppliers() {
+            return suppliers;
+        }
+
+        /**
+         * Units stored in the section, whether or not a lot item refers to them.
+         */
+        public long units() {
+            return units;
+        }
+
+        public BigDecimal cost(long units) {
+            return units > 0 ? unitCost.multiply(BigDecimal.valueOf(units)) : BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Units counted per section, priced at the section's storage cost.
+     */
+    private abstract static class UnitsBySection {
+        private final Map<String, SectionTotals> sections;
+        private final Map<String, long[]> unitsBySection = new HashMap<>();
+
+        UnitsBySection(Map<String, SectionTotals> sections) {
+            this.sections = sections;
+        }
+
+        void count(String sectionId) {
+            unitsBySection.computeIfAbsent(sectionId, id -> new long[1])[0]++;
+        }
+
+        public BigDecimal spend() {
+            BigDecimal spend = BigDecimal.ZERO;
+            for (Map.Entry<String, long[]> entry : unitsBySection.entrySet()) {
+                SectionTotals section = sections.get(entry.getKey());
+                if (section != null) {
+                    spend = spend.add(section.cost(entry.getValue()[0]));
+                }
+            }
+            return spend;
+        }
+
+        /**
+         * Storage cost keyed by section name, sections sharing a name added together.
+         */
+        public Map<String, BigDecimal> spendBySectionName() {
+            Map<String, BigDecimal> spend = new HashMap<>();
+            for (Map.Entry<String, long[]> entry : unitsBySection.entrySet()) {
+                SectionTotals section = sections.get(entry.getKey());
+                if (section != null) {
+                    spend.merge(section.name(), section.cost(entry.getValue()[0]), BigDecimal::add);
+                }
+            }
+            return spend;
+        }
+
+        /**
+         * Units keyed by section name, sections sharing a name added together.
+         */
+        public Map<String, Long> unitsBySectionName() {
+            Map<String, Long> units = new HashMap<>();
+            for (Map.Entry<String, long[]> entry : unitsBySection.entrySet()) {
+                SectionTotals section = sections.get(entry.getKey());
+                if (section != null) {
+                    units.merge(section.name(), entry.getValue()[0], Long::sum);
+                }
+            }
+            return units;
+        }
+    }
+
+    public static final class SupplierTotals extends UnitsBySection {
+        private final String id;
+        private final String username;
+        private final long lots;
+        private long units;
+
+        private SupplierTotals(String id, String username, long lots, Map<String, SectionTotals> sections) {
+            super(sections);
+            this.id = id;
+            this.username = username;
+            this.lots = lots;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public String username() {
+            return username;
+        }
+
+        public long lots() {
+            return lots;
+        }
+
+        /**
+         * Units of the supplier's lot items, placed or not.
+         */
+        public long units() {
+            return units;
+        }
+    }
+
+    public static final class MonthTotals extends UnitsBySection {
+        private final YearMonth month;
+        private long items;
+
+        private MonthTotals(YearMonth month, Map<String, SectionTotals> sections) {
+            super(sections);
+            this.month = month;
+        }
+
+        public YearMonth month() {
+            return month;
+        }
+
+        /**
+         * Lot items imported in the month, with or without a unit.
+         */
+        public long items() {
+            return items;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.product.BookProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class BookCodec extends ProductCodec<BookProductEntity, BookCodec.Detail> {
+
+    public BookCodec() {
+        super(ProductType.BOOKS, BookProductEntity.class);
+    }
+
+    @Override
+    public BookProductEntity create(Map<String, Object> data) {
+        BookProductEntity book = new BookProductEntity();
+        book.setAuthor(string(data, "author", "Unknown Author"));
+        book.setPublisher(string(data, "publisher", "Unknown Publisher"));
+        book.setPublicationDate(parseDate(data.get("publicationDate")));
+        book.setGenre(string(data, "genre", "Unknown Genre"));
+        book.setDescription(string(data, "description", ""));
+        return book;
+    }
+
+    @Override
+    protected Detail detail(BookProductEntity book) {
+        return new Detail(book.getName(),
+                book.getAuthor(), book.getPublisher(), copyOf(book.getPublicationDate()), book.getGenre(),
+                book.getDescription());
+    }
+
+    public record Detail(String name,
+                         String author, String publisher, Date publicationDate, String genre,
+                         String description) implements ProductDetail {
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("author", author);
+            map.put("publisher", publisher);
+            map.put("publicationDate", publicationDate);
+            map.put("genre", genre);
+            map.put("description", description);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ClothingSize;
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.product.ClothingProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class ClothingCodec extends ProductCodec<ClothingProductEntity, ClothingCodec.Detail> {
+
+    public ClothingCodec() {
+        super(ProductType.CLOTHING, ClothingProductEntity.class);
+    }
+
+    @Override
+    public ClothingProductEntity create(Map<String, Object> data) {
+        ClothingProductEntity clothing = new ClothingProductEntity();
+        clothing.setMaterial(string(data, "material", "Cotton"));
+        clothing.setSize(ClothingSize.valueOf(string(data, "size", "M").toUpperCase()));
+        clothing.setBranch(string(data, "branch", "Default"));
+        return clothing;
+    }
+
+    @Override
+    protected Detail detail(ClothingProductEntity clothing) {
+        return new Detail(clothing.getName(), clothing.getMaterial(), clothing.getSize(), clothing.getBranch());
+    }
+
+    public record Detail(String name, String material, ClothingSize size, String branch) implements ProductDetail {
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("material", material);
+            map.put("size", size);
+            map.put("branch", branch);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.product.CosmeticProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class CosmeticCodec extends ProductCodec<CosmeticProductEntity, CosmeticCodec.Detail> {
+
+    public CosmeticCodec() {
+        super(ProductType.COSMETICS, CosmeticProductEntity.class);
+    }
+
+    @Override
+    public CosmeticProductEntity create(Map<String, Object> data) {
+        CosmeticProductEntity cosmetic = new CosmeticProductEntity();
+        cosmetic.setBrand(string(data, "brand", "Generic"));
+        cosmetic.setCategory(string(data, "category", "Skincare"));
+        cosmetic.setExpirationDate(parseDate(data.get("expirationDate")));
+        cosmetic.setVolume(number(data, "volume"));
+        return cosmetic;
+    }
+
+    @Override
+    protected Detail detail(CosmeticProductEntity cosmetic) {
+        return new Detail(cosmetic.getName(),
+                cosmetic.getBrand(), cosmetic.getCategory(), copyOf(cosmetic.getExpirationDate()),
+                cosmetic.getVolume());
+    }
+
+    public record Detail(String name,
+                         String brand, String category, Date expirationDate, double volume) implements ProductDetail {
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("brand", brand);
+            map.put("category", category);
+            map.put("expirationDate", expirationDate);
+            map.put("volume", volume);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.product.ElectronicsProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class ElectronicsCodec extends ProductCodec<ElectronicsProductEntity, ElectronicsCodec.Detail> {
+
+    public ElectronicsCodec() {
+        super(ProductType.ELECTRONICS, ElectronicsProductEntity.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ElectronicsProductEntity create(Map<String, Object> data) {
+        ElectronicsProductEntity electronics = new ElectronicsProductEntity();
+        electronics.setBrand(string(data, "brand", "Unknown"));
+        electronics.setType(string(data, "type", "General"));
+        electronics.setWarrantyPeriod(string(data, "warrantyPeriod", "N/A"));
+        electronics.setSpecifications((Map<String, String>) data.getOrDefault("specifications", Map.of()));
+        return electronics;
+    }
+
+    @Override
+    protected Detail detail(ElectronicsProductEntity electronics) {
+        return new Detail(electronics.getName(),
+                electronics.getBrand(), electronics.getType(), electronics.getWarrantyPeriod(),
+                copyOf(electronics.getSpecifications()));
+    }
+
+    public record Detail(String name,
+                         String brand, String type, String warrantyPeriod,
+                         Map<String, String> specifications) implements ProductDetail {
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("brand", brand);
+            map.put("type", type);
+            map.put("warrantyPeriod", warrantyPeriod);
+            map.put("specifications", specifications);
+            return map;
+        }
+    }
+}
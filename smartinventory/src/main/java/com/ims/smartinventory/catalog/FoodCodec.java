@@ -0,0 +1,47 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.product.FoodProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class FoodCodec extends ProductCodec<FoodProductEntity, FoodCodec.Detail> {
+
+    public FoodCodec() {
+        super(ProductType.FOOD, FoodProductEntity.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public FoodProductEntity create(Map<String, Object> data) {
+        FoodProductEntity food = new FoodProductEntity();
+        food.setExpirationDate(parseDate(data.get("expirationDate")));
+        food.setIngredients((List<String>) data.getOrDefault("ingredients", List.of()));
+        food.setWeight(number(data, "weight"));
+        return food;
+    }
+
+    @Override
+    protected Detail detail(FoodProductEntity food) {
+        return new Detail(food.getName(),
+                copyOf(food.getExpirationDate()), copyOf(food.getIngredients()), food.getWeight());
+    }
+
+    public record Detail(String name,
+                         Date expirationDate, List<String> ingredients, double weight) implements ProductDetail {
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("expirationDate", expirationDate);
+            map.put("ingredients", ingredients);
+            map.put("weight", weight);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.product.PharmaceuticalProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class PharmaceuticalCodec extends ProductCodec<PharmaceuticalProductEntity, PharmaceuticalCodec.Detail> {
+
+    public PharmaceuticalCodec() {
+        super(ProductType.PHARMACEUTICALS, PharmaceuticalProductEntity.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public PharmaceuticalProductEntity create(Map<String, Object> data) {
+        PharmaceuticalProductEntity pharma = new PharmaceuticalProductEntity();
+        pharma.setBrand(string(data, "brand", "Generic"));
+        pharma.setGenericName(string(data, "genericName", "N/A"));
+        pharma.setDosageForm(string(data, "dosageForm", "Tablet"));
+        pharma.setStrength(string(data, "strength", "500mg"));
+        pharma.setExpirationDate(parseDate(data.get("expirationDate")));
+        pharma.setActiveIngredients((Map<String, String>) data.getOrDefault("activeIngredients", Map.of()));
+        return pharma;
+    }
+
+    @Override
+    protected Detail detail(PharmaceuticalProductEntity pharma) {
+        return new Detail(pharma.getName(),
+                pharma.getBrand(), pharma.getGenericName(), pharma.getDosageForm(), pharma.getStrength(),
+                copyOf(pharma.getExpirationDate()), copyOf(pharma.getActiveIngredients()));
+    }
+
+    public record Detail(String name,
+                         String brand, String genericName, String dosageForm, String strength,
+                         Date expirationDate, Map<String, String> activeIngredients) implements ProductDetail {
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("brand", brand);
+            map.put("genericName", genericName);
+            map.put("dosageForm", dosageForm);
+            map.put("strength", strength);
+            map.put("expirationDate", expirationDate);
+            map.put("activeIngredients", activeIngredients);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.BaseProductEntity;
+import org.hibernate.Hibernate;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Everything that differs between product types: how a unit is built from a batch request and
+ * which attributes describe it. Adding a product type means adding one codec component.
+ */
+public abstract class ProductCodec<E extends BaseProductEntity, D extends ProductDetail> {
+
+    private final ProductType type;
+    private final Class<E> entityType;
+    private final String label;
+    private final String groupLabel;
+
+    protected ProductCodec(ProductType type, Class<E> entityType) {
+        this.type = type;
+        this.entityType = entityType;
+        this.label = entityType.getSimpleName().replace("ProductEntity", "");
+        this.groupLabel = label.toUpperCase();
+    }
+
+    public ProductType type() {
+        return type;
+    }
+
+    public Class<E> entityType() {
+        return entityType;
+    }
+
+    /**
+     * Entity name without its suffix, e.g. {@code RawMaterial}.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Upper-cased {@link #label()}, e.g. {@code RAWMATERIAL}, as used by grouped listings and analytics.
+     */
+    public String groupLabel() {
+        return groupLabel;
+    }
+
+    /**
+     * A new unit carrying the type's attributes from one product entry of a batch request.
+     */
+    public abstract E create(Map<String, Object> data);
+
+    protected abstract D detail(E product);
+
+    public D detailOf(BaseProductEntity product) {
+        return detail(entityType.cast(Hibernate.unproxy(product)));
+    }
+
+    protected static Date parseDate(Object value) {
+        String dateStr = (String) value;
+        if (dateStr == null || dateStr.isEmpty()) {
+            return null;
+        }
+        try {
+            if (dateStr.contains("T")) {
+                return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").parse(dateStr);
+            } else {
+                return new SimpleDateFormat("yyyy-MM-dd").parse(dateStr);
+            }
+        } catch (ParseException e) {
+            throw new RuntimeException("Invalid date format: " + dateStr, e);
+        }
+    }
+
+    protected static Date copyOf(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+
+    protected static <T> List<T> copyOf(List<T> list) {
+        return list != null ? Collections.unmodifiableList(new ArrayList<>(list)) : null;
+    }
+
+    protected static <K, V> Map<K, V> copyOf(Map<K, V> map) {
+        return map != null ? Collections.unmodifiableMap(new LinkedHashMap<>(map)) : null;
+    }
+
+    protected static String string(Map<String, Object> data, String key, String fallback) {
+        return (String) data.getOrDefault(key, fallback);
+    }
+
+    protected static double number(Map<String, Object> data, String key) {
+        return ((Number) data.getOrDefault(key, 0)).doubleValue();
+    }
+}
@@ -0,0 +1,66 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.BaseProductEntity;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * The codec of every product type, looked up by {@link ProductType} or by entity class.
+ */
+@Component
+public class ProductCodecs {
+
+    private final Map<ProductType, ProductCodec<?, ?>> byType = new EnumMap<>(ProductType.class);
+    private final Map<Class<?>, ProductCodec<?, ?>> byEntity = new HashMap<>();
+
+    public ProductCodecs(List<ProductCodec<?, ?>> codecs) {
+        for (ProductCodec<?, ?> codec : codecs) {
+            if (byType.put(codec.type(), codec) != null) {
+                throw new IllegalStateException("More than one codec for product type " + codec.type());
+            }
+            byEntity.put(codec.entityType(), codec);
+        }
+        EnumSet<ProductType> missing = EnumSet.allOf(ProductType.class);
+        missing.removeAll(byType.keySet());
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("No codec for product types " + missing);
+        }
+    }
+
+    public ProductCodec<?, ?> of(ProductType type) {
+        return byType.get(type);
+    }
+
+    public ProductCodec<?, ?> of(BaseProductEntity product) {
+        ProductCodec<?, ?> codec = byEntity.get(Hibernate.getClass(product));
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec for " + Hibernate.getClass(product).getName());
+        }
+        return codec;
+    }
+
+    /**
+     * Entity classes of the types whose {@link ProductCodec#label()} contains the fragment, ignoring case.
+     */
+    public List<Class<? extends BaseProductEntity>> entityTypesLabelled(String fragment) {
+        String needle = fragment.toLowerCase();
+        List<Class<? extends BaseProductEntity>> types = new ArrayList<>();
+        for (ProductCodec<?, ?> codec : byType.values()) {
+            if (codec.label().toLowerCase().contains(needle)) {
+                types.add(codec.entityType());
+            }
+        }
+        return types;
+    }
+
+    public BaseProductEntity create(ProductType type, Map<String, Object> data) {
+        return of(type).create(data);
+    }
+
+    public ProductDetail detail(BaseProductEntity product) {
+        return of(product).detailOf(product);
+    }
+}
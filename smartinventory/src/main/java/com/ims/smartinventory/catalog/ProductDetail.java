@@ -0,0 +1,20 @@
+package com.ims.smartinventory.catalog;
+
+import java.util.Map;
+
+/**
+ * Attributes that make two units of a product type interchangeable.
+ * <p>
+ * Implementations are records over plain copies of the entity's values, so equality and hash
+ * are the record's own and do not depend on Hibernate collection wrappers or on whether a date
+ * came back from the database as a {@link java.sql.Timestamp}.
+ */
+public interface ProductDetail {
+
+    String name();
+
+    /**
+     * The detail as shown to clients, with {@code name} first and the type's attributes after it.
+     */
+    Map<String, Object> toMap();
+}
@@ -0,0 +1,51 @@
+package com.ims.smartinventory.catalog;
+
+import com.ims.common.config.ProductType;
+import com.ims.common.entity.product.RawMaterialProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class RawMaterialCodec extends ProductCodec<RawMaterialProductEntity, RawMaterialCodec.Detail> {
+
+    public RawMaterialCodec() {
+        super(ProductType.RAW_MATERIAL, RawMaterialProductEntity.class);
+    }
+
+    @Override
+    public RawMaterialProductEntity create(Map<String, Object> data) {
+        RawMaterialProductEntity raw = new RawMaterialProductEntity();
+        raw.setMaterialType(string(data, "materialType", "Generic"));
+        raw.setUnitOfMeasurement(string(data, "unitOfMeasurement", "kg"));
+        raw.setSupplier(string(data, "supplier", "Unknown"));
+        raw.setDeliveryDate(parseDate(data.get("deliveryDate")));
+        raw.setExpirationDate(parseDate(data.get("expirationDate")));
+        return raw;
+    }
+
+    @Override
+    protected Detail detail(RawMaterialProductEntity raw) {
+        return new Detail(raw.getName(),
+                raw.getMaterialType(), raw.getUnitOfMeasurement(), raw.getSupplier(),
+                copyOf(raw.getDeliveryDate()), copyOf(raw.getExpirationDate()));
+    }
+
+    public record Detail(String name,
+                         String materialType, String unitOfMeasurement, String supplier,
+                         Date deliveryDate, Date expirationDate) implements ProductDetail {
+        @Override
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("materialType", materialType);
+            map.put("unitOfMeasurement", unitOfMeasurement);
+            map.put("supplier", supplier);
+            map.put("deliveryDate", deliveryDate);
+            map.put("expirationDate", expirationDate);
+            return map;
+        }
+    }
+}
@@ -29,7 +29,8 @@ public class DataInitializer implements CommandLineRunner {
         if (warehouseRepository.findAll().isEmpty()) {
             WarehouseEntity warehouseEntity = new WarehouseEntity();
             warehouseEntity.setTotalSlots(10000);
-            warehouseEntity.setId("unique_warehouse");
+            warehouseEntity.setId(WarehouseEntity.DEFAULT_ID);
+            warehouseEntity.setName("Main warehouse");
             warehouseEntity.setUsedSlots(0);
             warehouseRepository.save(warehouseEntity);
         }
@@ -1,5 +1,6 @@
 package com.ims.smartinventory.config;
 
+import com.ims.smartinventory.dto.Response.CursorPage;
 import com.ims.smartinventory.security.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -56,6 +57,7 @@ public class SecurityConfig {
 
         configuration.addAllowedMethod("*");
         configuration.addAllowedHeader("*");
+        configuration.addExposedHeader(CursorPage.NEXT_CURSOR_HEADER);
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
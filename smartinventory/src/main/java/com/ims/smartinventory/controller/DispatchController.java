@@ -24,7 +24,9 @@ public class DispatchController {
 
     @GetMapping("/buyer")
     public ResponseEntity<List<DispatchHistoryResponse>> getBuyerDispatches(
-            @AuthenticationPrincipal UserEntity currentUser
+            @AuthenticationPrincipal UserEntity currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
     ) {
         if (currentUser == null) {
             System.out.println("DispatchController - No authenticated user found");
@@ -36,8 +38,7 @@ public class DispatchController {
             return ResponseEntity.status(403).build();
         }
 
-        List<DispatchHistoryResponse> dispatches = dispatchService.getBuyerDispatches(currentUser.getId());
-        return ResponseEntity.ok(dispatches);
+        return dispatchService.getBuyerDispatches(currentUser.getId(), cursor, size).toResponse();
     }
 
     @GetMapping("/{dispatchId}")
@@ -67,7 +68,9 @@ public class DispatchController {
 
     @GetMapping("/admin/pending")
     public ResponseEntity<List<DispatchHistoryResponse>> getPendingDispatches(
-            @AuthenticationPrincipal UserEntity currentUser
+            @AuthenticationPrincipal UserEntity currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
     ) {
         if (currentUser == null) {
             return ResponseEntity.status(401).build();
@@ -77,13 +80,14 @@ public class DispatchController {
             return ResponseEntity.status(403).build();
         }
 
-        List<DispatchHistoryResponse> dispatches = dispatchService.getPendingDispatches();
-        return ResponseEntity.ok(dispatches);
+        return dispatchService.getPendingDispatches(cursor, size).toResponse();
     }
 
     @GetMapping("/admin/accepted-rejected")
     public ResponseEntity<List<DispatchHistoryResponse>> getCompletedDispatches(
-            @AuthenticationPrincipal UserEntity currentUser
+            @AuthenticationPrincipal UserEntity currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
     ) {
         if (currentUser == null) {
             return ResponseEntity.status(401).build();
@@ -93,8 +97,7 @@ public class DispatchController {
             return ResponseEntity.status(403).build();
         }
 
-        List<DispatchHistoryResponse> dispatches = dispatchService.getCompletedDispatches();
-        return ResponseEntity.ok(dispatches);
+        return dispatchService.getCompletedDispatches(cursor, size).toResponse();
     }
 
     @PostMapping("/{dispatchId}/accept")
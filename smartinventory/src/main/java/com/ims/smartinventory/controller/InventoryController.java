@@ -9,6 +9,7 @@ import com.ims.smartinventory.dto.Request.ProductGroupResponseDto;
 import com.ims.smartinventory.dto.Request.SectionRequestDto;
 import com.ims.smartinventory.dto.Response.InventoryAnalyticsResponse;
 import com.ims.smartinventory.dto.Response.ProductResponse;
+import com.ims.smartinventory.dto.Response.ProductSearchResponse;
 import com.ims.smartinventory.dto.Response.ProductsByLotResponse;
 import com.ims.smartinventory.service.InventoryAnalyticsService;
 import com.ims.smartinventory.service.ProductService;
@@ -18,6 +19,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/inventory")
@@ -55,6 +57,29 @@ public class InventoryController {
         return ResponseEntity.ok(productService.getGroupedProducts());
     }
 
+    @PostMapping("/retrieveAll/rebuild")
+    public ResponseEntity<?> rebuildGroupedProducts(@AuthenticationPrincipal UserEntity currentUser) {
+        if (currentUser == null || !"ADMIN".equals(currentUser.getRole().name())) {
+            return ResponseEntity.status(403).body("Only administrators can rebuild the grouped stock view");
+        }
+        return ResponseEntity.ok(Map.of("groups", productService.rebuildGroupedProducts()));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(@RequestParam(required = false) String q,
+                                                                @RequestParam(required = false) String type,
+                                                                @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.searchProducts(q, type, size));
+    }
+
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex(@AuthenticationPrincipal UserEntity currentUser) {
+        if (currentUser == null || !"ADMIN".equals(currentUser.getRole().name())) {
+            return ResponseEntity.status(403).body("Only administrators can rebuild the search index");
+        }
+        return ResponseEntity.ok(Map.of("groups", productService.rebuildSearchIndex()));
+    }
+
     @GetMapping("/supplier/retrieveAll")
     public ResponseEntity<List<ProductGroupResponseDto>> retrieveGroupedProductsForSupplier(@AuthenticationPrincipal UserEntity currentUser) {
         if (currentUser == null || (!UserRole.SUPPLIER.equals(currentUser.getRole()) && !UserRole.TEMPORARY.equals(currentUser.getRole()))) {
@@ -101,23 +126,25 @@ public class InventoryController {
     }
 
     @GetMapping("/admin/products")
-    public ResponseEntity<List<ProductsByLotResponse>> getProductsByLotForAdmin(@AuthenticationPrincipal UserEntity currentUser) {
+    public ResponseEntity<List<ProductsByLotResponse>> getProductsByLotForAdmin(@AuthenticationPrincipal UserEntity currentUser,
+                                                                                @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer size) {
         if (currentUser == null || !UserRole.ADMIN.equals(currentUser.getRole())) {
             return ResponseEntity.status(403).body(null);
         }
 
-        List<ProductsByLotResponse> products = productService.getAllProductsByLot();
-        return ResponseEntity.ok(products);
+        return productService.getAllProductsByLot(cursor, size).toResponse();
     }
 
     @GetMapping("/supplier/products")
-    public ResponseEntity<List<ProductsByLotResponse>> getProductsByLotForSupplier(@AuthenticationPrincipal UserEntity currentUser) {
+    public ResponseEntity<List<ProductsByLotResponse>> getProductsByLotForSupplier(@AuthenticationPrincipal UserEntity currentUser,
+                                                                                   @RequestParam(required = false) String cursor,
+                                                                                   @RequestParam(required = false) Integer size) {
         if (currentUser == null || !UserRole.SUPPLIER.equals(currentUser.getRole())) {
             return ResponseEntity.status(403).body(null);
         }
 
-        List<ProductsByLotResponse> products = productService.getProductsByLotForSupplier(currentUser);
-        return ResponseEntity.ok(products);
+        return productService.getProductsByLotForSupplier(currentUser, cursor, size).toResponse();
     }
 
     @GetMapping("/supplier-temporary/products")
@@ -140,14 +167,15 @@ public class InventoryController {
             @RequestParam(required = false) String productName,
             @RequestParam(required = false) String supplierUsername,
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
 
         if (currentUser == null || !UserRole.ADMIN.equals(currentUser.getRole())) {
             return ResponseEntity.status(403).body(null);
         }
 
-        List<ProductsByLotResponse> products = productService.getProductsByLotForAdmin(
-                dispatchStatus, sectionName, productType, lotCode, productName, supplierUsername, startDate, endDate);
-        return ResponseEntity.ok(products);
+        return productService.getProductsByLotForAdmin(dispatchStatus, sectionName, productType, lotCode,
+                productName, supplierUsername, startDate, endDate, cursor, size).toResponse();
     }
 }
@@ -16,8 +16,9 @@ public class LotController {
     }
 
     @GetMapping("/history")
-    public ResponseEntity<?> getLotHistory() {
-        return ResponseEntity.ok(lotService.getLotHistory());
+    public ResponseEntity<?> getLotHistory(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size) {
+        return lotService.getLotHistory(cursor, size).toResponse();
     }
 
     @GetMapping("/pending")
@@ -41,13 +42,26 @@ public class LotController {
         return ResponseEntity.status(403).body("Only administrators can accept lots");
     }
 
+    @PostMapping("/{lotId}/reject")
+    public ResponseEntity<?> rejectLot(@PathVariable String lotId, @AuthenticationPrincipal UserEntity currentUser) {
+        if (currentUser != null && "ADMIN".equals(currentUser.getRole().name())) {
+            boolean success = lotService.rejectLot(lotId);
+            return success ?
+                    ResponseEntity.ok().build() :
+                    ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(403).body("Only administrators can reject lots");
+    }
+
     @GetMapping("/all")
-    public ResponseEntity<?> getAllLots(@AuthenticationPrincipal UserEntity currentUser) {
+    public ResponseEntity<?> getAllLots(@AuthenticationPrincipal UserEntity currentUser,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer size) {
         if (currentUser == null || !"ADMIN".equals(currentUser.getRole().name())) {
             return ResponseEntity.status(403).body("Only administrators can view all lots");
         }
 
-        return ResponseEntity.ok(lotService.getAllLotsWithAllStatuses());
+        return lotService.getAllLotsWithAllStatuses(cursor, size).toResponse();
     }
 
     @GetMapping("/{lotId}")
@@ -1,13 +1,15 @@
 package com.ims.smartinventory.controller;
 
+import com.ims.common.entity.UserEntity;
+import com.ims.smartinventory.dto.Request.WarehouseRequestDto;
 import com.ims.smartinventory.dto.Response.SectionInfoResponse;
+import com.ims.smartinventory.dto.Response.WarehouseResponse;
 import com.ims.smartinventory.dto.Response.WarehouseRevenueResponse;
 import com.ims.smartinventory.service.WarehouseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
@@ -22,9 +24,25 @@ public class WarehouseController {
         this.warehouseService = warehouseService;
     }
 
+    @GetMapping
+    public ResponseEntity<List<WarehouseResponse>> getWarehouses() {
+        return ResponseEntity.ok(warehouseService.getWarehouses());
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createWarehouse(@RequestBody WarehouseRequestDto request,
+                                             @AuthenticationPrincipal UserEntity currentUser) {
+        if (currentUser == null || !"ADMIN".equals(currentUser.getRole().name())) {
+            return ResponseEntity.status(403).body("Only administrators can create warehouses");
+        }
+        return ResponseEntity.ok(warehouseService.createWarehouse(request));
+    }
+
     @GetMapping("/sections/info")
-    public ResponseEntity<List<SectionInfoResponse>> getSection() {
-        return ResponseEntity.ok(warehouseService.getAllSection());
+    public ResponseEntity<List<SectionInfoResponse>> getSection(@RequestParam(required = false) String warehouseId) {
+        return ResponseEntity.ok(warehouseId != null
+                ? warehouseService.getSectionsByWarehouse(warehouseId)
+                : warehouseService.getAllSection());
     }
 
     @GetMapping("/revenue")
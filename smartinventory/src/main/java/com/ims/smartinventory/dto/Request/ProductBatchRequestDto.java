@@ -21,6 +21,9 @@ public class ProductBatchRequestDto {
     private Double calculatedPrice;
     private String currency = "USD";
 
+    // Pins the lot to one warehouse; otherwise the routing policy picks one
+    private String warehouseId;
+
     @Getter
     @Setter
     @AllArgsConstructor
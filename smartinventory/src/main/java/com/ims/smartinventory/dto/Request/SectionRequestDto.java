@@ -14,6 +14,7 @@ public class SectionRequestDto {
     private int shelf_height;
     private List<StorageConditionDto> storageConditions;
     private double calculatedPrice; // Price from the calculation API
+    private String warehouseId; // Defaults to the seeded warehouse
 
     public int getRequiredSlot() {
         return 6 * y_slot;
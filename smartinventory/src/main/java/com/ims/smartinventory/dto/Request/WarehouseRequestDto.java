@@ -0,0 +1,9 @@
+package com.ims.smartinventory.dto.Request;
+
+import lombok.Data;
+
+@Data
+public class WarehouseRequestDto {
+    private String name;
+    private int totalSlots;
+}
@@ -0,0 +1,41 @@
+package com.ims.smartinventory.dto.Response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. The items go out as the response body and the
+ * cursor of the following page, if any, in the {@value #NEXT_CURSOR_HEADER} header.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_SIZE = 50;
+
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * The requested page size, or the default when none was given, capped at {@code max}.
+     */
+    public static int limit(Integer requested, int max) {
+        if (requested == null || requested <= 0) {
+            return Math.min(DEFAULT_SIZE, max);
+        }
+        return Math.min(requested, max);
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(items);
+    }
+}
@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Data
@@ -23,9 +24,12 @@ public class DispatchDetailResponse {
     private List<DispatchItemResponse> items;
     private PriceDTO totalPrice;
 
-    public static DispatchDetailResponse fromEntity(DispatchEntity entity) {
+    /**
+     * @param samples one unit of each item, by item id, shown in place of the item's units
+     */
+    public static DispatchDetailResponse fromEntity(DispatchEntity entity, Map<String, BaseProductEntity> samples) {
         List<DispatchItemResponse> itemResponses = entity.getItems().stream()
-                .map(DispatchDetailResponse::mapToItemResponse)
+                .map(item -> mapToItemResponse(item, samples.get(item.getId())))
                 .collect(Collectors.toList());
 
         return DispatchDetailResponse.builder()
@@ -36,11 +40,10 @@ public class DispatchDetailResponse {
                 .build();
     }
 
-    private static DispatchItemResponse mapToItemResponse(DispatchItemEntity item) {
+    private static DispatchItemResponse mapToItemResponse(DispatchItemEntity item, BaseProductEntity representativeProduct) {
         ProductDetailsResponse productDetails = null;
 
-        if (item.getProducts() != null && !item.getProducts().isEmpty()) {
-            BaseProductEntity representativeProduct = item.getProducts().get(0);
+        if (representativeProduct != null) {
             productDetails = ProductDetailsResponse.builder()
                     .id(representativeProduct.getId())
                     .name(representativeProduct.getName())
@@ -1,14 +1,13 @@
 package com.ims.smartinventory.dto.Response;
 
-import com.ims.common.entity.management.DispatchEntity;
-import com.ims.common.entity.management.DispatchItemEntity;
+import com.ims.smartinventory.repository.DispatchRepository;
+import com.ims.smartinventory.storage.DispatchValuation;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.Date;
-import java.util.List;
 
 @Data
 @Builder
@@ -17,27 +16,27 @@ import java.util.List;
 public class DispatchHistoryResponse {
     private String id;
     private Date createdAt;
+    private Date completedAt;
     private String status;
     private int totalItems;
+    private long totalQuantity;
     private DispatchDetailResponse.PriceDTO totalPrice;
 
-    public static DispatchHistoryResponse fromEntity(DispatchEntity entity) {
-        DispatchDetailResponse.PriceDTO totalPrice = calculateTotalPrice(entity.getItems());
+    public static DispatchHistoryResponse fromSummary(DispatchRepository.DispatchSummary summary,
+                                                      DispatchValuation.Valuation valuation) {
+        DispatchDetailResponse.PriceDTO totalPrice = DispatchDetailResponse.PriceDTO.builder()
+                .value(valuation.total())
+                .currency(valuation.currency())
+                .build();
 
         return DispatchHistoryResponse.builder()
-                .id(entity.getId())
-                .createdAt(entity.getCreatedAt())
-                .status(entity.getStatus().name())
-                .totalItems(entity.getItems() != null ? entity.getItems().size() : 0)
+                .id(summary.getId())
+                .createdAt(summary.getCreatedAt())
+                .completedAt(summary.getCompletedAt())
+                .status(summary.getStatus().name())
+                .totalItems((int) summary.getItemCount())
+                .totalQuantity(summary.getTotalQuantity())
                 .totalPrice(totalPrice)
                 .build();
     }
-
-    private static DispatchDetailResponse.PriceDTO calculateTotalPrice(List<DispatchItemEntity> items) {
-
-        return DispatchDetailResponse.PriceDTO.builder()
-                .value(0)
-                .currency("")
-                .build();
-    }
 }
\ No newline at end of file
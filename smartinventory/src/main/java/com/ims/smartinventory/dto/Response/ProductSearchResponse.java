@@ -0,0 +1,20 @@
+package com.ims.smartinventory.dto.Response;
+
+import com.ims.smartinventory.dto.Request.ProductGroupResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResponse {
+    // Number of product groups matching the query and type
+    private int total;
+    private List<ProductGroupResponseDto> hits;
+    // Matching units per product type, regardless of the type filter
+    private Map<String, Long> facets;
+}
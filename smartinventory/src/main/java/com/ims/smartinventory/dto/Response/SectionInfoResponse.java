@@ -21,6 +21,7 @@ public class SectionInfoResponse {
     private SectionStatus status;
     private List<StorageConditionDto> storageConditions;
     private PriceInfoDto priceInfo;
+    private String warehouseId;
 
     @Data
     @AllArgsConstructor
@@ -12,5 +12,12 @@ public class SlotInfo {
     private int x;
     private int y;
     private boolean occupied;
+
+    /**
+     * A free grid position that has no slot row; the id is only a stable key for the client.
+     */
+    public static SlotInfo vacant(String parentId, int x, int y) {
+        return new SlotInfo(parentId + ":" + x + ":" + y, x, y, false);
+    }
 }
 
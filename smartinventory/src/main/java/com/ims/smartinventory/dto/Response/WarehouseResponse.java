@@ -0,0 +1,16 @@
+package com.ims.smartinventory.dto.Response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WarehouseResponse {
+    private String id;
+    private String name;
+    private int totalSlots;
+    private int usedSlots;
+    private long sectionCount;
+}
@@ -2,6 +2,56 @@ package com.ims.smartinventory.repository;
 
 import com.ims.common.entity.management.DispatchItemEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface DispatchItemRepository extends JpaRepository<DispatchItemEntity, String> {
+
+    /**
+     * Id of one unit of each item of the dispatch, the lowest, so that a detail view can show a
+     * unit without loading all of them.
+     */
+    interface ItemSample {
+        String getItemId();
+
+        String getProductId();
+    }
+
+    @Query("SELECT i.id AS itemId, MIN(p.id) AS productId FROM DispatchItemEntity i JOIN i.products p " +
+            "WHERE i.dispatch.id = :dispatchId GROUP BY i.id")
+    List<ItemSample> findSampleProducts(@Param("dispatchId") String dispatchId);
+
+    long countByDispatchIsNotNull();
+
+    /**
+     * Units of a dispatch item that came from one lot at one lot item price, which is null for
+     * units priced by their lot. An item without units comes back once, with no lot and no units.
+     */
+    interface LotUnits {
+        String getDispatchId();
+
+        String getItemId();
+
+        String getProductId();
+
+        int getQuantity();
+
+        String getLotId();
+
+        Double getItemPrice();
+
+        String getItemCurrency();
+
+        long getUnits();
+    }
+
+    @Query("SELECT i.dispatch.id AS dispatchId, i.id AS itemId, i.productId AS productId, i.quantity AS quantity, " +
+            "p.lot.id AS lotId, ip.value AS itemPrice, ip.currency AS itemCurrency, COUNT(p) AS units " +
+            "FROM DispatchItemEntity i LEFT JOIN i.products p LEFT JOIN LotItemEntity li ON li.product = p LEFT JOIN li.price ip " +
+            "WHERE i.dispatch.id IN :dispatchIds " +
+            "GROUP BY i.dispatch.id, i.id, i.productId, i.quantity, p.lot.id, ip.value, ip.currency ORDER BY i.id")
+    List<LotUnits> countUnitsByLot(@Param("dispatchIds") Collection<String> dispatchIds);
 }
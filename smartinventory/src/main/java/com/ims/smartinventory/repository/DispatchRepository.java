@@ -2,26 +2,95 @@ package com.ims.smartinventory.repository;
 
 import com.ims.common.config.DispatchStatus;
 import com.ims.common.entity.management.DispatchEntity;
+import com.ims.smartinventory.util.DispatchCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DispatchRepository extends JpaRepository<DispatchEntity, String> {
 
+    /**
+     * One line of dispatch history, with the item count and total quantity added up by the database.
+     */
+    interface DispatchSummary {
+        String getId();
+
+        DispatchStatus getStatus();
+
+        Date getCreatedAt();
+
+        Date getCompletedAt();
+
+        long getItemCount();
+
+        long getTotalQuantity();
+    }
+
+    String SUMMARY = "SELECT d.id AS id, d.status AS status, d.createdAt AS createdAt, d.completedAt AS completedAt, " +
+            "(SELECT COUNT(i) FROM DispatchItemEntity i WHERE i.dispatch = d) AS itemCount, " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) FROM DispatchItemEntity i WHERE i.dispatch = d) AS totalQuantity " +
+            "FROM DispatchEntity d ";
+    String AFTER = "(d.createdAt < :createdAt OR (d.createdAt = :createdAt AND d.id < :id)) ";
+    String NEWEST_FIRST = "ORDER BY d.createdAt DESC, d.id DESC";
+
     // Buyer-specific queries
-    @Query("SELECT d FROM DispatchEntity d WHERE d.user.id = :buyerId ORDER BY d.createdAt DESC")
-    List<DispatchEntity> findByBuyerIdOrderByCreatedAtDesc(@Param("buyerId") String buyerId);
+    @Query(SUMMARY + "WHERE d.user.id = :buyerId " + NEWEST_FIRST)
+    List<DispatchSummary> findFirstSummariesByBuyerId(@Param("buyerId") String buyerId, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE d.user.id = :buyerId AND " + AFTER + NEWEST_FIRST)
+    List<DispatchSummary> findSummariesByBuyerIdAfter(@Param("buyerId") String buyerId, @Param("createdAt") Date createdAt,
+                                                      @Param("id") String id, Pageable pageable);
 
     @Query("SELECT d FROM DispatchEntity d WHERE d.id = :id AND d.user.id = :buyerId")
     Optional<DispatchEntity> findByIdAndBuyerId(@Param("id") String id, @Param("buyerId") String buyerId);
 
     // Admin-specific queries for export management
-    List<DispatchEntity> findByStatusInOrderByCreatedAtDesc(List<DispatchStatus> statuses);
+    @Query(SUMMARY + "WHERE d.status IN :statuses " + NEWEST_FIRST)
+    List<DispatchSummary> findFirstSummariesByStatusIn(@Param("statuses") Collection<DispatchStatus> statuses,
+                                                       Pageable pageable);
+
+    @Query(SUMMARY + "WHERE d.status IN :statuses AND " + AFTER + NEWEST_FIRST)
+    List<DispatchSummary> findSummariesByStatusInAfter(@Param("statuses") Collection<DispatchStatus> statuses,
+                                                       @Param("createdAt") Date createdAt, @Param("id") String id,
+                                                       Pageable pageable);
+
+    /**
+     * Up to {@code limit} summaries following the cursor, of one buyer's dispatches.
+     */
+    default List<DispatchSummary> findBuyerSummaryPage(String buyerId, DispatchCursor after, int limit) {
+        Pageable first = Pageable.ofSize(limit);
+        return after == null
+                ? findFirstSummariesByBuyerId(buyerId, first)
+                : findSummariesByBuyerIdAfter(buyerId, after.createdAt(), after.id(), first);
+    }
+
+    /**
+     * Up to {@code limit} summaries following the cursor, of the dispatches in any of the statuses.
+     */
+    default List<DispatchSummary> findStatusSummaryPage(Collection<DispatchStatus> statuses, DispatchCursor after, int limit) {
+        Pageable first = Pageable.ofSize(limit);
+        return after == null
+                ? findFirstSummariesByStatusIn(statuses, first)
+                : findSummariesByStatusInAfter(statuses, after.createdAt(), after.id(), first);
+    }
 
     List<DispatchEntity> findByStatusOrderByCreatedAtDesc(DispatchStatus status);
+
+    // Row lock so that acceptance, rejection and reservation expiry decide a dispatch only once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM DispatchEntity d WHERE d.id = :id")
+    Optional<DispatchEntity> findByIdForUpdate(@Param("id") String id);
+
+    @Query("SELECT d.id FROM DispatchEntity d WHERE d.status = :status AND d.createdAt < :cutoff")
+    List<String> findIdsByStatusCreatedBefore(@Param("status") DispatchStatus status, @Param("cutoff") Date cutoff);
 }
@@ -1,7 +1,26 @@
 package com.ims.smartinventory.repository;
 
 import com.ims.common.entity.management.LotItemEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Date;
+import java.util.stream.Stream;
 
 public interface LotItemRepository extends JpaRepository<LotItemEntity, String> {
+
+    /**
+     * A lot item as the analytics see it: when its lot came in, its unit and the section that unit is
+     * stored in. Product and section are null for items without a unit or a placed unit.
+     */
+    record SupplyRow(Date importDate, String productId, String sectionId) {
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.ims.smartinventory.repository.LotItemRepository$SupplyRow(l.importDate, p.id, p.section.id) " +
+            "FROM LotItemEntity li JOIN li.lot l LEFT JOIN li.product p")
+    Stream<SupplyRow> streamSupplyRows();
 }
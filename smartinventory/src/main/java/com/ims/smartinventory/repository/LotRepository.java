@@ -2,15 +2,36 @@ package com.ims.smartinventory.repository;
 
 import com.ims.common.config.LotStatus;
 import com.ims.common.entity.management.LotEntity;
+import com.ims.smartinventory.util.LotCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
-public interface LotRepository extends JpaRepository<LotEntity, String> {
+public interface LotRepository extends JpaRepository<LotEntity, String>, JpaSpecificationExecutor<LotEntity> {
+    /**
+     * Lots per supplier, including lots that hold no items.
+     */
+    interface SupplierLots {
+        String getSupplierId();
+
+        String getSupplierUsername();
+
+        long getLots();
+    }
+
+    @Query("SELECT u.id AS supplierId, u.username AS supplierUsername, COUNT(l) AS lots FROM LotEntity l JOIN l.user u " +
+            "GROUP BY u.id, u.username")
+    List<SupplierLots> countLotsBySupplier();
+
     @Query("SELECT l FROM LotEntity l JOIN FETCH l.user LEFT JOIN FETCH l.items i LEFT JOIN FETCH i.price")
     List<LotEntity> findAllWithItemsAndUser();
 
@@ -31,6 +52,57 @@ public interface LotRepository extends JpaRepository<LotEntity, String> {
 
     List<LotEntity> findByImportDateBetween(Date startDate, Date endDate);
 
+    interface LotPrice {
+        String getLotId();
+
+        Double getValue();
+
+        String getCurrency();
+    }
+
+    @Query("SELECT l.id AS lotId, p.value AS value, p.currency AS currency FROM LotEntity l LEFT JOIN l.price p WHERE l.id IN :ids")
+    List<LotPrice> findPrices(@Param("ids") Collection<String> ids);
+
+    // Keyset pages, newest first; backed by idx_lot_import_date_id and idx_lot_user_import_date_id
+    @Query("SELECT l FROM LotEntity l JOIN FETCH l.user ORDER BY l.importDate DESC, l.id DESC")
+    List<LotEntity> findFirstPage(Pageable pageable);
+
+    @Query("SELECT l FROM LotEntity l JOIN FETCH l.user WHERE l.importDate < :importDate " +
+            "OR (l.importDate = :importDate AND l.id < :id) ORDER BY l.importDate DESC, l.id DESC")
+    List<LotEntity> findPageAfter(@Param("importDate") Date importDate, @Param("id") String id, Pageable pageable);
+
+    @Query("SELECT l FROM LotEntity l JOIN FETCH l.user WHERE l.user.id = :userId ORDER BY l.importDate DESC, l.id DESC")
+    List<LotEntity> findByUserIdNewestFirst(@Param("userId") String userId);
+
+    @Query("SELECT l FROM LotEntity l JOIN FETCH l.user WHERE l.user.id = :userId ORDER BY l.importDate DESC, l.id DESC")
+    List<LotEntity> findFirstPageByUserId(@Param("userId") String userId, Pageable pageable);
+
+    @Query("SELECT l FROM LotEntity l JOIN FETCH l.user WHERE l.user.id = :userId AND (l.importDate < :importDate " +
+            "OR (l.importDate = :importDate AND l.id < :id)) ORDER BY l.importDate DESC, l.id DESC")
+    List<LotEntity> findPageByUserIdAfter(@Param("userId") String userId, @Param("importDate") Date importDate,
+                                          @Param("id") String id, Pageable pageable);
+
+    /**
+     * Up to {@code limit} lots following the cursor, of one user or of everyone when {@code userId} is null.
+     */
+    default List<LotEntity> findPage(String userId, LotCursor after, int limit) {
+        Pageable first = Pageable.ofSize(limit);
+        if (userId == null) {
+            return after == null ? findFirstPage(first) : findPageAfter(after.importDate(), after.id(), first);
+        }
+        return after == null
+                ? findFirstPageByUserId(userId, first)
+                : findPageByUserIdAfter(userId, after.importDate(), after.id(), first);
+    }
+
+    @Query("SELECT l FROM LotEntity l JOIN FETCH l.user LEFT JOIN FETCH l.items i LEFT JOIN FETCH i.price WHERE l.id IN :ids")
+    List<LotEntity> findWithItemsAndUserByIdIn(@Param("ids") Collection<String> ids);
+
+    // Row lock so that only one admin at a time can accept or reject a given lot
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LotEntity l WHERE l.id = :id")
+    Optional<LotEntity> findByIdForUpdate(@Param("id") String id);
+
     // Backward compatibility methods (deprecated)
     @Deprecated
     @Query("SELECT l FROM LotEntity l JOIN FETCH l.user LEFT JOIN FETCH l.items i LEFT JOIN FETCH i.price WHERE l.status != 'ACCEPTED'")
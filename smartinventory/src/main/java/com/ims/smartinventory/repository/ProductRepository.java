@@ -1,15 +1,29 @@
 package com.ims.smartinventory.repository;
 
+import com.ims.common.config.LotStatus;
 import com.ims.common.entity.BaseProductEntity;
 import com.ims.common.entity.management.LotEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<BaseProductEntity, String> {
+public interface ProductRepository extends JpaRepository<BaseProductEntity, String>,
+        JpaSpecificationExecutor<BaseProductEntity> {
     List<BaseProductEntity> findByNameContaining(String name);
 
     List<BaseProductEntity> findByNameAndLot(String name, LotEntity lot);
@@ -24,8 +38,119 @@ public interface ProductRepository extends JpaRepository<BaseProductEntity, Stri
 
     List<BaseProductEntity> findByLotIdAndDispatchIsNull(String lotId);
 
+    @EntityGraph(BaseProductEntity.LOT_VIEW_GRAPH)
+    List<BaseProductEntity> findByLotIdIn(Collection<String> lotIds);
+
+    @EntityGraph(BaseProductEntity.LOT_VIEW_GRAPH)
+    List<BaseProductEntity> findByLotIdInAndDispatchIsNull(Collection<String> lotIds);
+
+    // Only the admin listing queries products by specification
+    @Override
+    @EntityGraph(BaseProductEntity.LOT_VIEW_GRAPH)
+    List<BaseProductEntity> findAll(Specification<BaseProductEntity> spec);
+
     List<BaseProductEntity> findByLotUserId(String userId);
 
     List<BaseProductEntity> findByLotUserIdAndDispatchIsNull(String userId);
 
+    List<BaseProductEntity> findByGroupFingerprintAndDispatchIsNull(String groupFingerprint);
+
+    List<BaseProductEntity> findByGroupFingerprintIsNull(Pageable pageable);
+
+    List<BaseProductEntity> findByReservedByDispatch(String dispatchId);
+
+    /**
+     * Lot of a unit, with the price of its lot item if that has one.
+     */
+    interface UnitLot {
+        String getProductId();
+
+        String getLotId();
+
+        Double getItemPrice();
+
+        String getItemCurrency();
+    }
+
+    @Query("SELECT p.id AS productId, p.lot.id AS lotId, ip.value AS itemPrice, ip.currency AS itemCurrency " +
+            "FROM BaseProductEntity p LEFT JOIN LotItemEntity li ON li.product = p LEFT JOIN li.price ip WHERE p.id IN :ids")
+    List<UnitLot> findUnitLots(@Param("ids") Collection<String> ids);
+
+    /**
+     * A unit claimed by a dispatch, with the slot it occupies and that slot's section. A record
+     * rather than an interface projection, whose proxies cost more than the query for large dispatches.
+     */
+    record DispatchedUnit(String id, String fingerprint, String slotShelfId, String shelfSectionId,
+                          String slotSectionId, String floorSectionId) {
+    }
+
+    @Query("SELECT new com.ims.smartinventory.repository.ProductRepository$DispatchedUnit(p.id, p.groupFingerprint, " +
+            "ss.id, sh.section.id, sl.id, sl.section.id) FROM BaseProductEntity p " +
+            "LEFT JOIN p.slotShelf ss LEFT JOIN ss.shelf sh LEFT JOIN p.slotSection sl " +
+            "WHERE p.reservedByDispatch = :dispatchId")
+    List<DispatchedUnit> findDispatchedUnits(@Param("dispatchId") String dispatchId);
+
+    // Native: a JPQL update of a JOINED hierarchy goes through a temporary id table
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "UPDATE product SET dispatch_id = :dispatchId, reserved_by_dispatch = NULL, " +
+            "slot_shelf_id = NULL, slot_section_id = NULL WHERE reserved_by_dispatch = :dispatchId", nativeQuery = true)
+    int markDispatched(@Param("dispatchId") String dispatchId);
+
+    // Claims of pending dispatches requested before units were reserved, which reach their units through the dispatch item only
+    @Modifying
+    @Query(value = "UPDATE product SET reserved_by_dispatch = (SELECT di.dispatch_id FROM dispatch_item di " +
+            "WHERE di.id = product.dispatch_item_id) WHERE reserved_by_dispatch IS NULL AND dispatch_id IS NULL " +
+            "AND dispatch_item_id IN (SELECT di.id FROM dispatch_item di JOIN dispatch d ON d.id = di.dispatch_id " +
+            "WHERE d.status = 'PENDING')", nativeQuery = true)
+    int reserveForPendingDispatches();
+
+    // Supplier of units stored before the column existed, taken from their lot
+    @Modifying
+    @Query(value = "UPDATE product SET supplier_id = (SELECT l.user_id FROM lot l WHERE l.id = product.lot_id) " +
+            "WHERE supplier_id IS NULL", nativeQuery = true)
+    int fillSupplierIds();
+
+    record UnitSupplier(String productId, String supplierId) {
+    }
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.ims.smartinventory.repository.ProductRepository$UnitSupplier(p.id, p.supplierId) " +
+            "FROM BaseProductEntity p WHERE p.supplierId IS NOT NULL")
+    Stream<UnitSupplier> streamUnitSuppliers();
+
+    @Query("SELECT p FROM BaseProductEntity p JOIN FETCH p.lot l WHERE p.dispatch IS NULL AND l.status = :status")
+    List<BaseProductEntity> findInStock(@Param("status") LotStatus status);
+
+    /**
+     * Units per group fingerprint, together with the id of one unit of the group.
+     */
+    interface GroupCount {
+        String getFingerprint();
+
+        long getUnits();
+
+        String getSampleId();
+    }
+
+    @Query("SELECT p.groupFingerprint AS fingerprint, COUNT(p) AS units, MIN(p.id) AS sampleId FROM BaseProductEntity p " +
+            "WHERE p.dispatch IS NULL AND p.groupFingerprint IS NOT NULL AND p.lot.status IN :statuses GROUP BY p.groupFingerprint")
+    List<GroupCount> countUndispatchedByGroup(@Param("statuses") Collection<LotStatus> statuses);
+
+    @Query("SELECT p.groupFingerprint AS fingerprint, COUNT(p) AS units, MIN(p.id) AS sampleId FROM BaseProductEntity p " +
+            "WHERE p.dispatch IS NULL AND p.groupFingerprint IS NOT NULL AND p.lot.id = :lotId GROUP BY p.groupFingerprint")
+    List<GroupCount> countUndispatchedByGroupInLot(@Param("lotId") String lotId);
+
+    /**
+     * Units stored in a section, dispatched or not.
+     */
+    interface SectionCount {
+        String getSectionId();
+
+        long getUnits();
+    }
+
+    @Query("SELECT p.section.id AS sectionId, COUNT(p) AS units FROM BaseProductEntity p WHERE p.section IS NOT NULL " +
+            "GROUP BY p.section.id")
+    List<SectionCount> countBySection();
+
 }
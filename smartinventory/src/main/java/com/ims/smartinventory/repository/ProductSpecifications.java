@@ -0,0 +1,130 @@
+package com.ims.smartinventory.repository;
+
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.smartinventory.util.LotCursor;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Criteria for the admin product listing, where lots are listed with the units that match.
+ * <p>
+ * Unit filters decide both which units are listed and, through an {@code EXISTS} over the
+ * product table, which lots are listed at all, so a page of lots and the units on it take one
+ * query each. Product types are matched on the entity type, which Hibernate resolves against
+ * the JOINED subtables.
+ */
+public final class ProductSpecifications {
+
+    /**
+     * Newest lots first, the order {@link LotCursor} walks.
+     */
+    public static final Sort LOT_ORDER = Sort.by(Sort.Direction.DESC, "importDate", "id");
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Filters of the admin listing; a null or blank value leaves its filter out.
+     *
+     * @param dispatchStatus {@code IN_WAREHOUSE} or {@code EXPORTED}
+     * @param types          entity types to keep, or null for all types
+     */
+    public record Filter(String dispatchStatus, String sectionName, Collection<Class<? extends BaseProductEntity>> types,
+                         String productName, String lotCode, String supplierUsername,
+                         Date importedFrom, Date importedTo) {
+    }
+
+    /**
+     * Lots after the cursor that match the lot filters and hold at least one matching unit.
+     */
+    public static Specification<LotEntity> lotsHolding(Filter filter, LotCursor after) {
+        return (lot, query, cb) -> {
+            if (!isCount(query)) {
+                lot.fetch("user");
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            if (after != null) {
+                predicates.add(cb.or(
+                        cb.lessThan(lot.get("importDate"), after.importDate()),
+                        cb.and(cb.equal(lot.get("importDate"), after.importDate()), cb.lessThan(lot.get("id"), after.id()))));
+            }
+            addLotPredicates(predicates, filter, lot, cb);
+
+            Subquery<Integer> units = query.subquery(Integer.class);
+            Root<BaseProductEntity> product = units.from(BaseProductEntity.class);
+            List<Predicate> unitPredicates = new ArrayList<>();
+            unitPredicates.add(cb.equal(product.get("lot"), lot));
+            addProductPredicates(unitPredicates, filter, product, cb);
+            units.select(cb.literal(1)).where(unitPredicates.toArray(Predicate[]::new));
+            predicates.add(cb.exists(units));
+
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Matching units of the given lots. {@link ProductRepository#findAll(Specification)} fetches
+     * what the listing renders along with them.
+     */
+    public static Specification<BaseProductEntity> unitsOf(Filter filter, Collection<String> lotIds) {
+        return (product, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(product.get("lot").get("id").in(lotIds));
+            addProductPredicates(predicates, filter, product, cb);
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static void addLotPredicates(List<Predicate> predicates, Filter filter, Root<LotEntity> lot, CriteriaBuilder cb) {
+        if (hasText(filter.lotCode())) {
+            predicates.add(containsIgnoreCase(cb, lot.get("lotCode"), filter.lotCode()));
+        }
+        if (hasText(filter.supplierUsername())) {
+            predicates.add(containsIgnoreCase(cb, lot.get("user").get("username"), filter.supplierUsername()));
+        }
+        if (filter.importedFrom() != null && filter.importedTo() != null) {
+            predicates.add(cb.between(lot.get("importDate"), filter.importedFrom(), filter.importedTo()));
+        }
+    }
+
+    private static void addProductPredicates(List<Predicate> predicates, Filter filter, Root<BaseProductEntity> product,
+                                             CriteriaBuilder cb) {
+        if ("IN_WAREHOUSE".equals(filter.dispatchStatus())) {
+            predicates.add(cb.isNull(product.get("dispatch")));
+        } else if ("EXPORTED".equals(filter.dispatchStatus())) {
+            predicates.add(cb.isNotNull(product.get("dispatch")));
+        }
+        if (hasText(filter.sectionName())) {
+            predicates.add(containsIgnoreCase(cb, product.get("section").get("name"), filter.sectionName()));
+        }
+        if (filter.types() != null) {
+            predicates.add(filter.types().isEmpty() ? cb.disjunction() : product.type().in(filter.types()));
+        }
+        if (hasText(filter.productName())) {
+            predicates.add(containsIgnoreCase(cb, product.get("name"), filter.productName()));
+        }
+    }
+
+    private static Predicate containsIgnoreCase(CriteriaBuilder cb, Path<String> path, String value) {
+        String escaped = value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return cb.like(cb.lower(path), "%" + escaped + "%", '\\');
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static boolean isCount(CriteriaQuery<?> query) {
+        return Long.class.equals(query.getResultType()) || long.class.equals(query.getResultType());
+    }
+}
@@ -4,7 +4,9 @@ import com.ims.common.config.SectionStatus;
 import com.ims.common.entity.WarehouseEntity;
 import com.ims.common.entity.storage.SectionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,7 +15,12 @@ public interface SectionRepository extends JpaRepository<SectionEntity, String>
     @Query("SELECT s FROM SectionEntity s LEFT JOIN FETCH s.storageConditions")
     List<SectionEntity> findAllWithStorageConditions();
 
+    @Query("SELECT s FROM SectionEntity s LEFT JOIN FETCH s.storageConditions LEFT JOIN FETCH s.price LEFT JOIN FETCH s.warehouse")
+    List<SectionEntity> findAllWithStorageConditionsPriceAndWarehouse();
+
     List<SectionEntity> findByWarehouse(WarehouseEntity warehouse);
+
+    long countByWarehouseId(String warehouseId);
     
     // Find sections by status (for price updates)
     List<SectionEntity> findByStatus(SectionStatus status);
@@ -23,4 +30,14 @@ public interface SectionRepository extends JpaRepository<SectionEntity, String>
     
     // Find first section by name (to handle duplicates)
     Optional<SectionEntity> findFirstByName(String name);
+
+    // Relative update so concurrent allocations and releases never overwrite each other
+    @Modifying
+    @Query("UPDATE SectionEntity s SET s.usedSlots = s.usedSlots + :delta WHERE s.id = :sectionId")
+    int adjustUsedSlots(@Param("sectionId") String sectionId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE SectionEntity s SET s.totalSlots = :totalSlots, s.usedSlots = :usedSlots WHERE s.id = :sectionId")
+    int resetOccupancy(@Param("sectionId") String sectionId, @Param("totalSlots") int totalSlots,
+                       @Param("usedSlots") int usedSlots);
 }
@@ -0,0 +1,39 @@
+package com.ims.smartinventory.repository;
+
+import com.ims.common.entity.storage.SlotReservationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SlotReservationRepository extends JpaRepository<SlotReservationEntity, String> {
+    @Query("SELECT r.id AS id, r.section.id AS sectionId, r.lot.id AS lotId, r.slots AS slots " +
+            "FROM SlotReservationEntity r WHERE r.lot.id = :lotId")
+    List<ReservationRow> findRowsByLotId(@Param("lotId") String lotId);
+
+    @Query("SELECT r.id AS id, r.section.id AS sectionId, r.lot.id AS lotId, r.slots AS slots " +
+            "FROM SlotReservationEntity r WHERE r.expiresAt < :now")
+    List<ReservationRow> findRowsExpiredBefore(@Param("now") LocalDateTime now);
+
+    @Query("SELECT r.id AS id, r.section.id AS sectionId, r.lot.id AS lotId, r.slots AS slots " +
+            "FROM SlotReservationEntity r")
+    List<ReservationRow> findAllRows();
+
+    // Row count tells concurrent removers (acceptance, rejection, expiry) which one won
+    @Modifying
+    @Query("DELETE FROM SlotReservationEntity r WHERE r.id = :id")
+    int deleteRow(@Param("id") String id);
+
+    interface ReservationRow {
+        String getId();
+
+        String getSectionId();
+
+        String getLotId();
+
+        int getSlots();
+    }
+}
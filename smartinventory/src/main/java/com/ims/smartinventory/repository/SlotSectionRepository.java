@@ -2,10 +2,45 @@ package com.ims.smartinventory.repository;
 
 import com.ims.common.entity.storage.SlotSection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+
 public interface SlotSectionRepository extends JpaRepository<SlotSection, String> {
     @Query("SELECT COUNT(s) FROM SlotSection s WHERE s.section.id = :sectionId AND s.occupied = true")
     int countUsedBySectionId(@Param("sectionId") String sectionId);
+
+    // Slots of units that went out with a dispatch; run after the units are marked dispatched
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE SlotSection s SET s.occupied = false, s.product = null, s.version = s.version + 1 " +
+            "WHERE s.product.id IN (SELECT p.id FROM BaseProductEntity p WHERE p.dispatch.id = :dispatchId)")
+    int releaseDispatched(@Param("dispatchId") String dispatchId);
+
+    // Virtual sections keep no rows for free slots
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM SlotSection s WHERE s.product.id IN (SELECT p.id FROM BaseProductEntity p WHERE p.dispatch.id = :dispatchId) " +
+            "AND s.section.id IN (SELECT se.id FROM SectionEntity se WHERE se.virtualSlots = true)")
+    int deleteVirtualDispatched(@Param("dispatchId") String dispatchId);
+
+    // Lightweight rows used to build the in-memory free-slot index
+    @Query("SELECT s.id AS id, s.section.id AS sectionId, s.xPosition AS x, s.yPosition AS y, " +
+            "s.occupied AS occupied, p.id AS productId " +
+            "FROM SlotSection s LEFT JOIN s.product p")
+    List<SlotPosition> findAllSlotPositions();
+
+    interface SlotPosition {
+        String getId();
+
+        String getSectionId();
+
+        int getX();
+
+        int getY();
+
+        boolean isOccupied();
+
+        String getProductId();
+    }
 }
@@ -2,11 +2,47 @@ package com.ims.smartinventory.repository;
 
 import com.ims.common.entity.storage.SlotShelf;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+
 public interface SlotShelfRepository extends JpaRepository<SlotShelf, String> {
     @Query("SELECT COUNT(s) FROM SlotShelf s WHERE s.shelf.section.id = :sectionId AND s.occupied = true")
     int countUsedBySectionId(@Param("sectionId") String sectionId);
-}
 
+    // Slots of units that went out with a dispatch; run after the units are marked dispatched
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE SlotShelf s SET s.occupied = false, s.product = null, s.version = s.version + 1 " +
+            "WHERE s.product.id IN (SELECT p.id FROM BaseProductEntity p WHERE p.dispatch.id = :dispatchId)")
+    int releaseDispatched(@Param("dispatchId") String dispatchId);
+
+    // Virtual sections keep no rows for free slots
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM SlotShelf s WHERE s.product.id IN (SELECT p.id FROM BaseProductEntity p WHERE p.dispatch.id = :dispatchId) " +
+            "AND s.shelf.id IN (SELECT sh.id FROM ShelfEntity sh WHERE sh.section.virtualSlots = true)")
+    int deleteVirtualDispatched(@Param("dispatchId") String dispatchId);
+
+    // Lightweight rows used to build the in-memory free-slot index
+    @Query("SELECT s.id AS id, sh.section.id AS sectionId, sh.id AS shelfId, s.x AS x, s.y AS y, " +
+            "s.occupied AS occupied, p.id AS productId " +
+            "FROM SlotShelf s JOIN s.shelf sh LEFT JOIN s.product p")
+    List<SlotPosition> findAllSlotPositions();
+
+    interface SlotPosition {
+        String getId();
+
+        String getSectionId();
+
+        String getShelfId();
+
+        int getX();
+
+        int getY();
+
+        boolean isOccupied();
+
+        String getProductId();
+    }
+}
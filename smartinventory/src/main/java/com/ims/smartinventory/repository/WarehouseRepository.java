@@ -2,6 +2,14 @@ package com.ims.smartinventory.repository;
 
 import com.ims.common.entity.WarehouseEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface WarehouseRepository extends JpaRepository<WarehouseEntity, String> {
+    // Check and increment in one statement; returns 0 when the warehouse lacks the capacity
+    @Modifying
+    @Query("UPDATE WarehouseEntity w SET w.usedSlots = w.usedSlots + :slots " +
+            "WHERE w.id = :warehouseId AND w.totalSlots - w.usedSlots >= :slots")
+    int reserveSlots(@Param("warehouseId") String warehouseId, @Param("slots") int slots);
 }
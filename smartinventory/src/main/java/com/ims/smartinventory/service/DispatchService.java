@@ -1,22 +1,21 @@
 package com.ims.smartinventory.service;
 
+import com.ims.smartinventory.dto.Response.CursorPage;
 import com.ims.smartinventory.dto.Response.DispatchDetailResponse;
 import com.ims.smartinventory.dto.Response.DispatchHistoryResponse;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 public interface DispatchService {
-    List<DispatchHistoryResponse> getBuyerDispatches(String buyerId);
+    CursorPage<DispatchHistoryResponse> getBuyerDispatches(String buyerId, String cursor, Integer size);
 
     DispatchDetailResponse getDispatchDetails(String dispatchId, String buyerId);
 
     DispatchDetailResponse getDispatchDetailsAdmin(String dispatchId);
 
-    List<DispatchHistoryResponse> getPendingDispatches();
+    CursorPage<DispatchHistoryResponse> getPendingDispatches(String cursor, Integer size);
 
-    List<DispatchHistoryResponse> getCompletedDispatches();
+    CursorPage<DispatchHistoryResponse> getCompletedDispatches(String cursor, Integer size);
 
     DispatchDetailResponse acceptDispatch(String dispatchId);
 
@@ -1,19 +1,22 @@
 package com.ims.smartinventory.service;
 
+import com.ims.smartinventory.dto.Response.CursorPage;
 import com.ims.smartinventory.dto.Response.LotDto;
 
 import java.util.List;
 
 public interface LotService {
-    List<LotDto> getLotHistory();
+    CursorPage<LotDto> getLotHistory(String cursor, Integer size);
 
     List<LotDto> getPendingLots();
 
     List<LotDto> getAcceptedLots();
 
-    List<LotDto> getAllLotsWithAllStatuses();
+    CursorPage<LotDto> getAllLotsWithAllStatuses(String cursor, Integer size);
 
     boolean acceptLot(String lotId);
 
+    boolean rejectLot(String lotId);
+
     LotDto getLotDetails(String lotId);
 }
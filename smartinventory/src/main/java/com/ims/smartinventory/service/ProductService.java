@@ -4,7 +4,9 @@ import com.ims.common.entity.UserEntity;
 import com.ims.smartinventory.dto.Request.ProductBatchRequestDto;
 import com.ims.smartinventory.dto.Request.ProductExportRequestDto;
 import com.ims.smartinventory.dto.Request.ProductGroupResponseDto;
+import com.ims.smartinventory.dto.Response.CursorPage;
 import com.ims.smartinventory.dto.Response.ProductResponse;
+import com.ims.smartinventory.dto.Response.ProductSearchResponse;
 import com.ims.smartinventory.dto.Response.ProductsByLotResponse;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +17,12 @@ public interface ProductService {
 
     List<ProductGroupResponseDto> getGroupedProducts();
 
+    int rebuildGroupedProducts();
+
+    ProductSearchResponse searchProducts(String query, String type, Integer size);
+
+    int rebuildSearchIndex();
+
     List<ProductGroupResponseDto> getGroupedProductsForSupplier(UserEntity supplier);
 
     ProductResponse getProductResponseBySlotId(String slotId);
@@ -22,14 +30,14 @@ public interface ProductService {
     @Transactional
     String createRetrieveRequest(ProductExportRequestDto request, UserEntity currentUser);
 
-    List<ProductsByLotResponse> getAllProductsByLot();
+    CursorPage<ProductsByLotResponse> getAllProductsByLot(String cursor, Integer size);
 
-    List<ProductsByLotResponse> getProductsByLotForSupplier(UserEntity supplier);
+    CursorPage<ProductsByLotResponse> getProductsByLotForSupplier(UserEntity supplier, String cursor, Integer size);
 
     List<ProductsByLotResponse> getProductsByLotForSupplierOrTemporary(UserEntity user);
 
-    List<ProductsByLotResponse> getProductsByLotForAdmin(
+    CursorPage<ProductsByLotResponse> getProductsByLotForAdmin(
             String dispatchStatus, String sectionName, String productType,
             String lotCode, String productName, String supplierUsername,
-            String startDate, String endDate);
+            String startDate, String endDate, String cursor, Integer size);
 }
@@ -1,6 +1,8 @@
 package com.ims.smartinventory.service;
 
+import com.ims.smartinventory.dto.Request.WarehouseRequestDto;
 import com.ims.smartinventory.dto.Response.SectionInfoResponse;
+import com.ims.smartinventory.dto.Response.WarehouseResponse;
 import com.ims.smartinventory.dto.Response.WarehouseRevenueResponse;
 
 import java.util.List;
@@ -10,5 +12,11 @@ public interface WarehouseService {
 
     List<SectionInfoResponse> getAllSection();
 
+    List<SectionInfoResponse> getSectionsByWarehouse(String warehouseId);
+
+    WarehouseResponse createWarehouse(WarehouseRequestDto request);
+
+    List<WarehouseResponse> getWarehouses();
+
     WarehouseRevenueResponse calculateWarehouseRevenue();
 }
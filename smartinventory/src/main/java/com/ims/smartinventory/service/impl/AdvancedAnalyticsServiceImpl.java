@@ -1,12 +1,7 @@
 package com.ims.smartinventory.service.impl;
 
-import com.ims.common.entity.BaseProductEntity;
-import com.ims.common.entity.UserEntity;
-import com.ims.common.entity.management.LotEntity;
-import com.ims.common.entity.management.LotItemEntity;
-import com.ims.common.entity.storage.SectionEntity;
+import com.ims.smartinventory.analytics.AnalyticsAggregator;
 import com.ims.smartinventory.dto.Response.AdvancedAnalyticsResponse;
-import com.ims.smartinventory.repository.*;
 import com.ims.smartinventory.service.AdvancedAnalyticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -14,7 +9,7 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -22,82 +17,95 @@ import java.util.stream.Collectors;
 @Service
 public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
 
-    private final ProductRepository productRepository;
-    private final LotRepository lotRepository;
-    private final DispatchRepository dispatchRepository;
-    private final SectionRepository sectionRepository;
-    private final UserRepository userRepository;
+    private static final int REPORTED_MONTHS = 12;
+
+    private final AnalyticsAggregator analyticsAggregator;
 
     @Autowired
-    public AdvancedAnalyticsServiceImpl(
-            ProductRepository productRepository,
-            LotRepository lotRepository,
-            DispatchRepository dispatchRepository,
-            SectionRepository sectionRepository,
-            UserRepository userRepository) {
-        this.productRepository = productRepository;
-        this.lotRepository = lotRepository;
-        this.dispatchRepository = dispatchRepository;
-        this.sectionRepository = sectionRepository;
-        this.userRepository = userRepository;
+    public AdvancedAnalyticsServiceImpl(AnalyticsAggregator analyticsAggregator) {
+        this.analyticsAggregator = analyticsAggregator;
     }
 
+    // Every section of the report is built from the same totals
     @Override
     public AdvancedAnalyticsResponse getAdvancedAnalytics() {
-        AdvancedAnalyticsResponse response = new AdvancedAnalyticsResponse();
+        AnalyticsAggregator.Totals totals = lastMonths(REPORTED_MONTHS);
+        List<AdvancedAnalyticsResponse.MonthlyRevenueData> monthlyRevenue = monthlyRevenue(totals);
+        AdvancedAnalyticsResponse.WarehouseProfitabilityData profitability = warehouseProfitability(totals, monthlyRevenue);
+        List<AdvancedAnalyticsResponse.SupplierSpendData> supplierSpending = supplierSpending(totals);
+        List<AdvancedAnalyticsResponse.SectionProfitabilityData> sectionProfitability = sectionProfitability(totals);
 
-        response.setSupplierSpending(getSupplierSpendingAnalysis());
-        response.setSupplierSectionSpending(getSupplierSectionSpending());
-        response.setMonthlyRevenue(getMonthlyRevenueData(12));
-        response.setWarehouseProfitability(getWarehouseProfitability());
-        response.setSectionProfitability(getSectionProfitabilityAnalysis());
-        response.setSummaryMetrics(getSummaryMetrics());
+        AdvancedAnalyticsResponse response = new AdvancedAnalyticsResponse();
+        response.setSupplierSpending(supplierSpending);
+        response.setSupplierSectionSpending(supplierSectionSpending(totals));
+        response.setMonthlyRevenue(monthlyRevenue);
+        response.setWarehouseProfitability(profitability);
+        response.setSectionProfitability(sectionProfitability);
+        response.setSummaryMetrics(summaryMetrics(totals, profitability, supplierSpending, sectionProfitability, monthlyRevenue));
 
         return response;
     }
 
     @Override
     public List<AdvancedAnalyticsResponse.SupplierSpendData> getSupplierSpendingAnalysis() {
-        List<AdvancedAnalyticsResponse.SupplierSpendData> result = new ArrayList<>();
+        return supplierSpending(lastMonths(REPORTED_MONTHS));
+    }
+
+    @Override
+    public List<AdvancedAnalyticsResponse.SupplierSectionSpendData> getSupplierSectionSpending() {
+        return supplierSectionSpending(lastMonths(REPORTED_MONTHS));
+    }
+
+    @Override
+    public List<AdvancedAnalyticsResponse.MonthlyRevenueData> getMonthlyRevenueData(int months) {
+        return monthlyRevenue(lastMonths(months));
+    }
+
+    @Override
+    public AdvancedAnalyticsResponse.WarehouseProfitabilityData getWarehouseProfitability() {
+        AnalyticsAggregator.Totals totals = lastMonths(REPORTED_MONTHS);
+        return warehouseProfitability(totals, monthlyRevenue(totals));
+    }
+
+    @Override
+    public List<AdvancedAnalyticsResponse.SectionProfitabilityData> getSectionProfitabilityAnalysis() {
+        return sectionProfitability(lastMonths(REPORTED_MONTHS));
+    }
 
-        Map<String, List<LotEntity>> lotsBySupplier = lotRepository.findAll().stream()
-                .collect(Collectors.groupingBy(lot -> lot.getUser().getUsername()));
+    @Override
+    public AdvancedAnalyticsResponse.SummaryMetrics getSummaryMetrics() {
+        return getAdvancedAnalytics().getSummaryMetrics();
+    }
 
-        for (Map.Entry<String, List<LotEntity>> entry : lotsBySupplier.entrySet()) {
-            String supplierUsername = entry.getKey();
-            List<LotEntity> supplierLots = entry.getValue();
+    @Override
+    public List<AdvancedAnalyticsResponse.MonthlyRevenueData> getRevenueDataByDateRange(LocalDate startDate, LocalDate endDate) {
+        return monthlyRevenue(analyticsAggregator.aggregate(YearMonth.from(startDate), YearMonth.from(endDate)));
+    }
 
+    // The given number of months up to and including the current one
+    private AnalyticsAggregator.Totals lastMonths(int months) {
+        YearMonth current = YearMonth.now();
+        return analyticsAggregator.aggregate(current.minusMonths(months - 1), current);
+    }
+
+    private List<AdvancedAnalyticsResponse.SupplierSpendData> supplierSpending(AnalyticsAggregator.Totals totals) {
+        List<AdvancedAnalyticsResponse.SupplierSpendData> result = new ArrayList<>();
+
+        for (AnalyticsAggregator.SupplierTotals supplier : totals.suppliers()) {
             AdvancedAnalyticsResponse.SupplierSpendData data = new AdvancedAnalyticsResponse.SupplierSpendData();
-            data.setSupplierUsername(supplierUsername);
-
-            Optional<UserEntity> supplier = userRepository.findByUsername(supplierUsername);
-            data.setSupplierId(supplier.map(UserEntity::getId).orElse("Unknown"));
-
-            BigDecimal totalSpent = BigDecimal.ZERO;
-            int productCount = 0;
-            Set<String> sectionsUsed = new HashSet<>();
-
-            for (LotEntity lot : supplierLots) {
-                for (LotItemEntity item : lot.getItems()) {
-                    BaseProductEntity product = item.getProduct();
-                    if (product != null) {
-                        productCount++;
-
-                        if (product.getSection() != null) {
-                            sectionsUsed.add(product.getSection().getName());
-                            totalSpent = totalSpent.add(calculateProductStorageCost(product));
-                        }
-                    }
-                }
-            }
+            data.setSupplierUsername(supplier.username());
+            data.setSupplierId(supplier.id());
+
+            BigDecimal totalSpent = supplier.spend();
+            int productCount = (int) supplier.units();
 
             data.setTotalSpent(totalSpent);
             data.setProductCount(productCount);
             data.setAverageSpendPerProduct(productCount > 0 ?
                     totalSpent.divide(BigDecimal.valueOf(productCount), 2, RoundingMode.HALF_UP) :
                     BigDecimal.ZERO);
-            data.setTopSections(new ArrayList<>(sectionsUsed));
-            data.setActiveLots(supplierLots.size());
+            data.setTopSections(new ArrayList<>(supplier.unitsBySectionName().keySet()));
+            data.setActiveLots((int) supplier.lots());
 
             result.add(data);
         }
@@ -106,51 +114,28 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
         return result;
     }
 
-    @Override
-    public List<AdvancedAnalyticsResponse.SupplierSectionSpendData> getSupplierSectionSpending() {
+    private List<AdvancedAnalyticsResponse.SupplierSectionSpendData> supplierSectionSpending(AnalyticsAggregator.Totals totals) {
         List<AdvancedAnalyticsResponse.SupplierSectionSpendData> result = new ArrayList<>();
 
-        List<BaseProductEntity> allProducts = productRepository.findAll();
-        Map<String, Map<String, List<BaseProductEntity>>> supplierSectionProducts = new HashMap<>();
-
-        for (BaseProductEntity product : allProducts) {
-            // Get supplier from lot through lot items
-            String supplier = getSupplierFromProduct(product);
-            if (supplier != null && product.getSection() != null) {
-                String sectionName = product.getSection().getName();
+        for (AnalyticsAggregator.SupplierTotals supplier : totals.suppliers()) {
+            Map<String, BigDecimal> spendBySection = supplier.spendBySectionName();
 
-                supplierSectionProducts
-                        .computeIfAbsent(supplier, k -> new HashMap<>())
-                        .computeIfAbsent(sectionName, k -> new ArrayList<>())
-                        .add(product);
-            }
-        }
-
-        for (Map.Entry<String, Map<String, List<BaseProductEntity>>> supplierEntry : supplierSectionProducts.entrySet()) {
-            String supplier = supplierEntry.getKey();
-
-            for (Map.Entry<String, List<BaseProductEntity>> sectionEntry : supplierEntry.getValue().entrySet()) {
+            for (Map.Entry<String, Long> sectionEntry : supplier.unitsBySectionName().entrySet()) {
                 String sectionName = sectionEntry.getKey();
-                List<BaseProductEntity> products = sectionEntry.getValue();
+                long products = sectionEntry.getValue();
 
                 AdvancedAnalyticsResponse.SupplierSectionSpendData data = new AdvancedAnalyticsResponse.SupplierSectionSpendData();
-                data.setSupplierUsername(supplier);
+                data.setSupplierUsername(supplier.username());
                 data.setSectionName(sectionName);
-                data.setProductCount(products.size());
-
-                BigDecimal totalSpent = products.stream()
-                        .map(this::calculateProductStorageCost)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                data.setTotalSpent(totalSpent);
+                data.setProductCount((int) products);
+                data.setTotalSpent(spendBySection.get(sectionName));
 
-                Optional<SectionEntity> sectionEntity = sectionRepository.findFirstByName(sectionName);
-                if (sectionEntity.isPresent()) {
-                    BigDecimal maintenanceFee = getSectionMaintenanceFee(sectionEntity.get());
-                    data.setMonthlyMaintenanceFee(maintenanceFee);
+                AnalyticsAggregator.SectionTotals section = totals.firstSectionNamed(sectionName);
+                if (section != null) {
+                    data.setMonthlyMaintenanceFee(section.fee());
 
-                    int usedSlots = products.size();
-                    int totalSlots = sectionEntity.get().getTotalSlots();
-                    data.setUtilizationPercentage(totalSlots > 0 ? (double) usedSlots / totalSlots * 100 : 0.0);
+                    int totalSlots = section.totalSlots();
+                    data.setUtilizationPercentage(totalSlots > 0 ? (double) products / totalSlots * 100 : 0.0);
                 } else {
                     data.setMonthlyMaintenanceFee(BigDecimal.ZERO);
                     data.setUtilizationPercentage(0.0);
@@ -164,25 +149,17 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
         return result;
     }
 
-    @Override
-    public List<AdvancedAnalyticsResponse.MonthlyRevenueData> getMonthlyRevenueData(int months) {
+    private List<AdvancedAnalyticsResponse.MonthlyRevenueData> monthlyRevenue(AnalyticsAggregator.Totals totals) {
         List<AdvancedAnalyticsResponse.MonthlyRevenueData> result = new ArrayList<>();
+        BigDecimal maintenanceFees = totals.maintenanceFees();
 
-        LocalDate currentDate = LocalDate.now();
-        LocalDate startDate = currentDate.minusMonths(months - 1).withDayOfMonth(1);
-
-        for (int i = 0; i < months; i++) {
-            LocalDate monthStart = startDate.plusMonths(i);
-            LocalDate monthEnd = monthStart.plusMonths(1);
-
+        for (AnalyticsAggregator.MonthTotals month : totals.months()) {
             AdvancedAnalyticsResponse.MonthlyRevenueData monthData = new AdvancedAnalyticsResponse.MonthlyRevenueData();
-            monthData.setMonth(monthStart.format(DateTimeFormatter.ofPattern("MMM")));
-            monthData.setYear(monthStart.getYear());
+            monthData.setMonth(month.month().atDay(1).format(DateTimeFormatter.ofPattern("MMM")));
+            monthData.setYear(month.month().getYear());
 
-            BigDecimal supplierSpend = calculateSupplierSpendForMonth(monthStart, monthEnd);
+            BigDecimal supplierSpend = month.spend();
             monthData.setTotalSupplierSpend(supplierSpend);
-
-            BigDecimal maintenanceFees = calculateMaintenanceFeesForMonth(monthStart, monthEnd);
             monthData.setTotalMaintenanceFees(maintenanceFees);
 
             BigDecimal netRevenue = supplierSpend.subtract(maintenanceFees);
@@ -195,11 +172,8 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
                 monthData.setProfitMargin(BigDecimal.ZERO);
             }
 
-            int productCount = countProductsForMonth(monthStart, monthEnd);
-            monthData.setTotalProducts(productCount);
-
-            Map<String, BigDecimal> spendBySection = calculateSpendBySectionForMonth(monthStart, monthEnd);
-            monthData.setSpendBySection(spendBySection);
+            monthData.setTotalProducts((int) month.items());
+            monthData.setSpendBySection(month.spendBySectionName());
 
             result.add(monthData);
         }
@@ -207,12 +181,10 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
         return result;
     }
 
-    @Override
-    public AdvancedAnalyticsResponse.WarehouseProfitabilityData getWarehouseProfitability() {
+    private AdvancedAnalyticsResponse.WarehouseProfitabilityData warehouseProfitability(
+            AnalyticsAggregator.Totals totals, List<AdvancedAnalyticsResponse.MonthlyRevenueData> monthlyData) {
         AdvancedAnalyticsResponse.WarehouseProfitabilityData data = new AdvancedAnalyticsResponse.WarehouseProfitabilityData();
 
-        List<AdvancedAnalyticsResponse.MonthlyRevenueData> monthlyData = getMonthlyRevenueData(12);
-
         BigDecimal totalRevenue = monthlyData.stream()
                 .map(AdvancedAnalyticsResponse.MonthlyRevenueData::getTotalSupplierSpend)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -236,60 +208,41 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
 
         data.setAverageMonthlyRevenue(totalRevenue.divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP));
 
-        Set<String> activeSuppliers = lotRepository.findAll().stream()
-                .map(lot -> lot.getUser().getUsername())
+        Set<String> activeSuppliers = totals.suppliers().stream()
+                .map(AnalyticsAggregator.SupplierTotals::username)
                 .collect(Collectors.toSet());
         data.setTotalActiveSuppliers(activeSuppliers.size());
 
-        data.setTotalActiveSections((int) sectionRepository.count());
+        data.setTotalActiveSections(totals.sections().size());
 
         return data;
     }
 
-    @Override
-    public List<AdvancedAnalyticsResponse.SectionProfitabilityData> getSectionProfitabilityAnalysis() {
+    private List<AdvancedAnalyticsResponse.SectionProfitabilityData> sectionProfitability(AnalyticsAggregator.Totals totals) {
         List<AdvancedAnalyticsResponse.SectionProfitabilityData> result = new ArrayList<>();
 
-        List<SectionEntity> sections = sectionRepository.findAllWithStorageConditions();
-
-        for (SectionEntity section : sections) {
+        for (AnalyticsAggregator.SectionTotals section : totals.sections()) {
             AdvancedAnalyticsResponse.SectionProfitabilityData data = new AdvancedAnalyticsResponse.SectionProfitabilityData();
 
-            data.setSectionName(section.getName());
-            data.setSectionId(section.getId());
+            data.setSectionName(section.name());
+            data.setSectionId(section.id());
 
-            BigDecimal maintenanceFee = getSectionMaintenanceFee(section);
+            BigDecimal maintenanceFee = section.fee();
             data.setMonthlyMaintenanceFee(maintenanceFee);
 
-            List<BaseProductEntity> sectionProducts = productRepository.findAll().stream()
-                    .filter(p -> p.getSection() != null && p.getSection().getId().equals(section.getId()))
-                    .collect(Collectors.toList());
-
-            BigDecimal supplierRevenue = sectionProducts.stream()
-                    .map(this::calculateProductStorageCost)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal supplierRevenue = section.cost(section.units());
             data.setSupplierRevenue(supplierRevenue);
 
             BigDecimal netProfit = supplierRevenue.subtract(maintenanceFee);
             data.setNetProfit(netProfit);
 
-            int usedSlots = sectionProducts.size();
-            int totalSlots = section.getTotalSlots();
-            double utilizationRate = totalSlots > 0 ? (double) usedSlots / totalSlots * 100 : 0.0;
+            int totalSlots = section.totalSlots();
+            double utilizationRate = totalSlots > 0 ? (double) section.units() / totalSlots * 100 : 0.0;
             data.setUtilizationRate(utilizationRate);
 
-            Set<String> activeSuppliers = sectionProducts.stream()
-                    .map(this::getSupplierFromProduct)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-            data.setActiveSuppliers(activeSuppliers.size());
-
-            data.setTotalProducts(sectionProducts.size());
-
-            String storageCondition = section.getStorageConditions().isEmpty() ?
-                    "Regular" :
-                    section.getStorageConditions().get(0).getConditionType().name();
-            data.setStorageCondition(storageCondition);
+            data.setActiveSuppliers(section.suppliers().size());
+            data.setTotalProducts((int) section.units());
+            data.setStorageCondition(section.storageCondition() != null ? section.storageCondition() : "Regular");
 
             result.add(data);
         }
@@ -298,11 +251,14 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
         return result;
     }
 
-    @Override
-    public AdvancedAnalyticsResponse.SummaryMetrics getSummaryMetrics() {
+    private AdvancedAnalyticsResponse.SummaryMetrics summaryMetrics(
+            AnalyticsAggregator.Totals totals,
+            AdvancedAnalyticsResponse.WarehouseProfitabilityData profitability,
+            List<AdvancedAnalyticsResponse.SupplierSpendData> supplierSpending,
+            List<AdvancedAnalyticsResponse.SectionProfitabilityData> sectionProfitability,
+            List<AdvancedAnalyticsResponse.MonthlyRevenueData> monthlyData) {
         AdvancedAnalyticsResponse.SummaryMetrics metrics = new AdvancedAnalyticsResponse.SummaryMetrics();
 
-        AdvancedAnalyticsResponse.WarehouseProfitabilityData profitability = getWarehouseProfitability();
         metrics.setTotalWarehouseRevenue(profitability.getTotalRevenue());
         metrics.setTotalMaintenanceCosts(profitability.getTotalCosts());
         metrics.setNetProfit(profitability.getNetProfit());
@@ -317,12 +273,10 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
             metrics.setProfitMarginPercentage(0.0);
         }
 
-        List<AdvancedAnalyticsResponse.SupplierSpendData> supplierSpending = getSupplierSpendingAnalysis();
         if (!supplierSpending.isEmpty()) {
             metrics.setTopSpendingSupplier(supplierSpending.get(0).getSupplierUsername());
         }
 
-        List<AdvancedAnalyticsResponse.SectionProfitabilityData> sectionProfitability = getSectionProfitabilityAnalysis();
         if (!sectionProfitability.isEmpty()) {
             metrics.setMostProfitableSection(sectionProfitability.get(0).getSectionName());
         }
@@ -335,15 +289,12 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
             metrics.setAverageRevenuePerSupplier(BigDecimal.ZERO);
         }
 
-        int totalExported = dispatchRepository.findAll().stream()
-                .mapToInt(dispatch -> dispatch.getItems().size())
-                .sum();
-        metrics.setTotalExportedProducts(totalExported);
+        metrics.setTotalExportedProducts((int) totals.exportedItems());
 
-        List<AdvancedAnalyticsResponse.MonthlyRevenueData> monthlyData = getMonthlyRevenueData(2);
+        // Growth of the current month over the previous one, the last two of the reported months
         if (monthlyData.size() >= 2) {
-            BigDecimal currentMonth = monthlyData.get(1).getTotalSupplierSpend();
-            BigDecimal previousMonth = monthlyData.get(0).getTotalSupplierSpend();
+            BigDecimal currentMonth = monthlyData.get(monthlyData.size() - 1).getTotalSupplierSpend();
+            BigDecimal previousMonth = monthlyData.get(monthlyData.size() - 2).getTotalSupplierSpend();
 
             if (previousMonth.compareTo(BigDecimal.ZERO) > 0) {
                 BigDecimal growthRate = currentMonth.subtract(previousMonth)
@@ -359,115 +310,4 @@ public class AdvancedAnalyticsServiceImpl implements AdvancedAnalyticsService {
 
         return metrics;
     }
-
-    @Override
-    public List<AdvancedAnalyticsResponse.MonthlyRevenueData> getRevenueDataByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<AdvancedAnalyticsResponse.MonthlyRevenueData> result = new ArrayList<>();
-
-        LocalDate current = startDate.withDayOfMonth(1);
-        LocalDate end = endDate.withDayOfMonth(1);
-
-        while (!current.isAfter(end)) {
-            LocalDate monthEnd = current.plusMonths(1);
-
-            AdvancedAnalyticsResponse.MonthlyRevenueData monthData = new AdvancedAnalyticsResponse.MonthlyRevenueData();
-            monthData.setMonth(current.format(DateTimeFormatter.ofPattern("MMM")));
-            monthData.setYear(current.getYear());
-
-            BigDecimal supplierSpend = calculateSupplierSpendForMonth(current, monthEnd);
-            BigDecimal maintenanceFees = calculateMaintenanceFeesForMonth(current, monthEnd);
-
-            monthData.setTotalSupplierSpend(supplierSpend);
-            monthData.setTotalMaintenanceFees(maintenanceFees);
-            monthData.setNetRevenue(supplierSpend.subtract(maintenanceFees));
-
-            if (supplierSpend.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal profitMargin = monthData.getNetRevenue()
-                        .divide(supplierSpend, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100));
-                monthData.setProfitMargin(profitMargin);
-            } else {
-                monthData.setProfitMargin(BigDecimal.ZERO);
-            }
-
-            monthData.setTotalProducts(countProductsForMonth(current, monthEnd));
-            monthData.setSpendBySection(calculateSpendBySectionForMonth(current, monthEnd));
-
-            result.add(monthData);
-            current = current.plusMonths(1);
-        }
-
-        return result;
-    }
-
-    private String getSupplierFromProduct(BaseProductEntity product) {
-        List<LotEntity> allLots = lotRepository.findAll();
-        for (LotEntity lot : allLots) {
-            for (LotItemEntity item : lot.getItems()) {
-                if (item.getProduct() != null && item.getProduct().getId().equals(product.getId())) {
-                    return lot.getUser().getUsername();
-                }
-            }
-        }
-        return null;
-    }
-
-    private BigDecimal calculateProductStorageCost(BaseProductEntity product) {
-        if (product.getSection() != null) {
-            BigDecimal sectionMonthlyFee = getSectionMaintenanceFee(product.getSection());
-            return sectionMonthlyFee.divide(BigDecimal.valueOf(Math.max(product.getSection().getTotalSlots(), 1)), 2, RoundingMode.HALF_UP);
-        }
-        return BigDecimal.ZERO;
-    }
-
-    private BigDecimal getSectionMaintenanceFee(SectionEntity section) {
-        return section.getPrice() != null ? BigDecimal.valueOf(section.getPrice().getValue()) : BigDecimal.ZERO;
-    }
-
-    private BigDecimal calculateSupplierSpendForMonth(LocalDate monthStart, LocalDate monthEnd) {
-        Date startDate = Date.from(monthStart.atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(monthEnd.atStartOfDay(ZoneId.systemDefault()).toInstant());
-
-        return lotRepository.findAll().stream()
-                .filter(lot -> lot.getImportDate().after(startDate) && lot.getImportDate().before(endDate))
-                .flatMap(lot -> lot.getItems().stream())
-                .filter(item -> item.getProduct() != null)
-                .map(item -> calculateProductStorageCost(item.getProduct()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    private BigDecimal calculateMaintenanceFeesForMonth(LocalDate monthStart, LocalDate monthEnd) {
-        return sectionRepository.findAll().stream()
-                .map(this::getSectionMaintenanceFee)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    private int countProductsForMonth(LocalDate monthStart, LocalDate monthEnd) {
-        Date startDate = Date.from(monthStart.atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(monthEnd.atStartOfDay(ZoneId.systemDefault()).toInstant());
-
-        return lotRepository.findAll().stream()
-                .filter(lot -> lot.getImportDate().after(startDate) && lot.getImportDate().before(endDate))
-                .mapToInt(lot -> lot.getItems().size())
-                .sum();
-    }
-
-    private Map<String, BigDecimal> calculateSpendBySectionForMonth(LocalDate monthStart, LocalDate monthEnd) {
-        Date startDate = Date.from(monthStart.atStartOfDay(ZoneId.systemDefault()).toInstant());
-        Date endDate = Date.from(monthEnd.atStartOfDay(ZoneId.systemDefault()).toInstant());
-
-        Map<String, BigDecimal> spendBySection = new HashMap<>();
-
-        lotRepository.findAll().stream()
-                .filter(lot -> lot.getImportDate().after(startDate) && lot.getImportDate().before(endDate))
-                .flatMap(lot -> lot.getItems().stream())
-                .filter(item -> item.getProduct() != null && item.getProduct().getSection() != null)
-                .forEach(item -> {
-                    String sectionName = item.getProduct().getSection().getName();
-                    BigDecimal cost = calculateProductStorageCost(item.getProduct());
-                    spendBySection.merge(sectionName, cost, BigDecimal::add);
-                });
-
-        return spendBySection;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.DispatchStatus;
+import com.ims.smartinventory.repository.DispatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Rejects pending dispatches left undecided for longer than the reservation TTL, releasing their
+ * units. Off unless {@code inventory.dispatch.expire-pending} is set, since it cancels the
+ * buyer's order.
+ * <p>
+ * Each dispatch is rejected in a transaction of its own, so one that fails is logged and retried
+ * on the next sweep without holding back the others.
+ */
+@Slf4j
+@Component
+public class DispatchExpirySweeper {
+
+    private final DispatchRepository dispatchRepository;
+    private final DispatchServiceImpl dispatchService;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public DispatchExpirySweeper(DispatchRepository dispatchRepository, DispatchServiceImpl dispatchService,
+                                 @Value("${inventory.dispatch.expire-pending:false}") boolean enabled,
+                                 @Value("${inventory.dispatch.reservation-ttl-minutes:1440}") long ttlMinutes) {
+        this.dispatchRepository = dispatchRepository;
+        this.dispatchService = dispatchService;
+        this.enabled = enabled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.dispatch.sweep-interval-ms:60000}")
+    public void expire() {
+        if (!enabled) {
+            return;
+        }
+
+        Date cutoff = new Date(System.currentTimeMillis() - ttl.toMillis());
+        int expired = 0;
+        for (String dispatchId : dispatchRepository.findIdsByStatusCreatedBefore(DispatchStatus.PENDING, cutoff)) {
+            try {
+                if (dispatchService.expireDispatch(dispatchId)) {
+                    expired++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not expire dispatch {}", dispatchId, e);
+            }
+        }
+        if (expired > 0) {
+            log.info("Rejected {} dispatches whose reservation expired", expired);
+        }
+    }
+}
@@ -3,50 +3,79 @@ package com.ims.smartinventory.service.impl;
 import com.ims.common.config.DispatchStatus;
 import com.ims.common.config.TransactionType;
 import com.ims.common.entity.BaseProductEntity;
-import com.ims.common.entity.PriceEntity;
 import com.ims.common.entity.management.DispatchEntity;
-import com.ims.common.entity.management.DispatchItemEntity;
 import com.ims.common.entity.management.InventoryTransactionEntity;
-import com.ims.common.entity.storage.SlotSection;
-import com.ims.common.entity.storage.SlotShelf;
+import com.ims.common.id.TimeOrderedIds;
+import com.ims.smartinventory.dto.Response.CursorPage;
 import com.ims.smartinventory.dto.Response.DispatchDetailResponse;
 import com.ims.smartinventory.dto.Response.DispatchHistoryResponse;
 import com.ims.smartinventory.repository.*;
 import com.ims.smartinventory.service.DispatchService;
 import com.ims.smartinventory.service.NotificationProducerService;
+import com.ims.smartinventory.storage.DispatchValuation;
+import com.ims.smartinventory.storage.GroupedStockView;
+import com.ims.smartinventory.storage.ProductSearchIndex;
+import com.ims.smartinventory.storage.SectionOccupancy;
+import com.ims.smartinventory.storage.SlotIndex;
+import com.ims.smartinventory.storage.StockQueues;
+import com.ims.smartinventory.util.DispatchCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class DispatchServiceImpl implements DispatchService {
 
     private final DispatchRepository dispatchRepository;
+    private final DispatchItemRepository dispatchItemRepository;
     private final NotificationProducerService notificationProducerService;
     private final InventoryTransactionRepository inventoryTransactionRepository;
     private final ProductRepository productRepository;
     private final SlotSectionRepository slotSectionRepository;
     private final SlotShelfRepository slotShelfRepository;
-
-    public DispatchServiceImpl(DispatchRepository dispatchRepository, NotificationProducerService notificationProducerService, InventoryTransactionRepository inventoryTransactionRepository, ProductRepository productRepository, SlotSectionRepository slotSectionRepository, SlotShelfRepository slotShelfRepository) {
+    private final SlotIndex slotIndex;
+    private final SectionOccupancy sectionOccupancy;
+    private final StockQueues stockQueues;
+    private final GroupedStockView groupedStockView;
+    private final ProductSearchIndex productSearchIndex;
+    private final DispatchValuation dispatchValuation;
+    private final int maxPageSize;
+
+    public DispatchServiceImpl(DispatchRepository dispatchRepository, DispatchItemRepository dispatchItemRepository, NotificationProducerService notificationProducerService, InventoryTransactionRepository inventoryTransactionRepository, ProductRepository productRepository, SlotSectionRepository slotSectionRepository, SlotShelfRepository slotShelfRepository, SlotIndex slotIndex, SectionOccupancy sectionOccupancy, StockQueues stockQueues,
+                               GroupedStockView groupedStockView, ProductSearchIndex productSearchIndex, DispatchValuation dispatchValuation,
+                               @Value("${inventory.paging.max-page-size:200}") int maxPageSize) {
         this.dispatchRepository = dispatchRepository;
+        this.dispatchItemRepository = dispatchItemRepository;
         this.notificationProducerService = notificationProducerService;
         this.inventoryTransactionRepository = inventoryTransactionRepository;
         this.productRepository = productRepository;
         this.slotSectionRepository = slotSectionRepository;
         this.slotShelfRepository = slotShelfRepository;
+        this.slotIndex = slotIndex;
+        this.sectionOccupancy = sectionOccupancy;
+        this.stockQueues = stockQueues;
+        this.groupedStockView = groupedStockView;
+        this.productSearchIndex = productSearchIndex;
+        this.dispatchValuation = dispatchValuation;
+        this.maxPageSize = maxPageSize;
     }
 
     @Override
-    public List<DispatchHistoryResponse> getBuyerDispatches(String buyerId) {
-        List<DispatchEntity> dispatches = dispatchRepository.findByBuyerIdOrderByCreatedAtDesc(buyerId);
-        return dispatches.stream()
-                .map(DispatchHistoryResponse::fromEntity)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<DispatchHistoryResponse> getBuyerDispatches(String buyerId, String cursor, Integer size) {
+        int limit = CursorPage.limit(size, maxPageSize);
+        return historyPage(dispatchRepository.findBuyerSummaryPage(buyerId, DispatchCursor.decode(cursor), limit + 1), limit);
     }
 
     @Override
@@ -73,150 +102,132 @@ public class DispatchServiceImpl implements DispatchService {
         return addPricingInfoToDispatchResponse(dispatch);
     }
 
-    private DispatchDetailResponse addPricingInfoToDispatchResponse(DispatchEntity dispatch) {
-        DispatchDetailResponse response = DispatchDetailResponse.fromEntity(dispatch);
+    // Summaries come one past the page size, so a full page knows whether another follows; the page is priced together
+    private CursorPage<DispatchHistoryResponse> historyPage(List<DispatchRepository.DispatchSummary> summaries, int limit) {
+        String nextCursor = summaries.size() > limit ? DispatchCursor.after(summaries.get(limit - 1)).encode() : null;
+        List<DispatchRepository.DispatchSummary> page = summaries.subList(0, Math.min(limit, summaries.size()));
+        Map<String, DispatchValuation.Valuation> valuations = dispatchValuation.value(
+                page.stream().map(DispatchRepository.DispatchSummary::getId).toList());
+        return new CursorPage<>(page.stream()
+                .map(summary -> DispatchHistoryResponse.fromSummary(summary, valuations.get(summary.getId())))
+                .collect(Collectors.toList()), nextCursor);
+    }
 
-        double totalValue = 0;
-        String currency = "VND";
+    private DispatchDetailResponse addPricingInfoToDispatchResponse(DispatchEntity dispatch) {
+        Map<String, BaseProductEntity> samples = sampleProducts(dispatch.getId());
+        DispatchDetailResponse response = DispatchDetailResponse.fromEntity(dispatch, samples);
+        DispatchValuation.Valuation valuation = dispatchValuation.value(dispatch.getId());
 
         for (int i = 0; i < response.getItems().size(); i++) {
             DispatchDetailResponse.DispatchItemResponse itemResponse = response.getItems().get(i);
-            DispatchItemEntity itemEntity = dispatch.getItems().get(i);
-
-            double itemSubtotal = 0;
-
-            if (itemEntity.getProducts() != null && !itemEntity.getProducts().isEmpty()) {
-                BaseProductEntity firstProduct = itemEntity.getProducts().get(0);
-                PriceEntity price = getProductPrice(firstProduct);
-                if (price != null) {
-                    currency = price.getCurrency();
-
-                    double unitPrice = price.getValue();
-                    DispatchDetailResponse.PriceDTO unitPriceDTO = DispatchDetailResponse.PriceDTO.builder()
-                            .value(unitPrice)
-                            .currency(currency)
-                            .build();
-
-                    if (itemResponse.getProduct() != null) {
-                        itemResponse.getProduct().setUnitPrice(unitPriceDTO);
-                    }
-                    itemSubtotal = unitPrice * itemEntity.getQuantity();
-                }
-            } else if (itemEntity.getProductId() != null) {
-                BaseProductEntity product = productRepository.findById(itemEntity.getProductId()).orElse(null);
-                if (product != null) {
-                    PriceEntity price = getProductPrice(product);
-                    if (price != null) {
-                        currency = price.getCurrency();
-                        double unitPrice = price.getValue();
-                        DispatchDetailResponse.PriceDTO unitPriceDTO = DispatchDetailResponse.PriceDTO.builder()
-                                .value(unitPrice)
-                                .currency(currency)
-                                .build();
-                        if (itemResponse.getProduct() != null) {
-                            itemResponse.getProduct().setUnitPrice(unitPriceDTO);
-                        }
-                        itemSubtotal = unitPrice * itemEntity.getQuantity();
-                    }
-                }
-            }
-            DispatchDetailResponse.PriceDTO subtotalDTO = DispatchDetailResponse.PriceDTO.builder()
-                    .value(itemSubtotal)
-                    .currency(currency)
-                    .build();
+            DispatchValuation.ItemValue value = valuation.item(dispatch.getItems().get(i).getId());
 
-            itemResponse.setSubtotal(subtotalDTO);
-            totalValue += itemSubtotal;
+            if (value.unitPrice() != null && itemResponse.getProduct() != null) {
+                itemResponse.getProduct().setUnitPrice(DispatchDetailResponse.PriceDTO.builder()
+                        .value(value.unitPrice().value())
+                        .currency(value.unitPrice().currency())
+                        .build());
+            }
+            itemResponse.setSubtotal(DispatchDetailResponse.PriceDTO.builder()
+                    .value(value.subtotal())
+                    .currency(value.unitPrice() != null ? value.unitPrice().currency() : valuation.currency())
+                    .build());
         }
 
-        DispatchDetailResponse.PriceDTO totalPrice = DispatchDetailResponse.PriceDTO.builder()
-                .value(totalValue)
-                .currency(currency)
-                .build();
-
-        response.setTotalPrice(totalPrice);
+        response.setTotalPrice(DispatchDetailResponse.PriceDTO.builder()
+                .value(valuation.total())
+                .currency(valuation.currency())
+                .build());
 
         return response;
     }
 
-    private PriceEntity getProductPrice(BaseProductEntity product) {
+    // One unit per item instead of every unit of every item
+    private Map<String, BaseProductEntity> sampleProducts(String dispatchId) {
+        Map<String, String> sampleIds = new HashMap<>();
+        dispatchItemRepository.findSampleProducts(dispatchId)
+                .forEach(sample -> sampleIds.put(sample.getItemId(), sample.getProductId()));
 
-        return null;
+        Map<String, BaseProductEntity> products = new HashMap<>();
+        productRepository.findAllById(sampleIds.values()).forEach(product -> products.put(product.getId(), product));
+
+        Map<String, BaseProductEntity> samples = new HashMap<>();
+        sampleIds.forEach((itemId, productId) -> samples.put(itemId, products.get(productId)));
+        return samples;
     }
 
     @Override
-    public List<DispatchHistoryResponse> getPendingDispatches() {
-        List<DispatchEntity> dispatches = dispatchRepository.findByStatusInOrderByCreatedAtDesc(
-                List.of(DispatchStatus.PENDING)
-        );
-        return dispatches.stream()
-                .map(DispatchHistoryResponse::fromEntity)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<DispatchHistoryResponse> getPendingDispatches(String cursor, Integer size) {
+        return statusPage(List.of(DispatchStatus.PENDING), cursor, size);
     }
 
     @Override
-    public List<DispatchHistoryResponse> getCompletedDispatches() {
-        List<DispatchEntity> dispatches = dispatchRepository.findByStatusInOrderByCreatedAtDesc(
-                List.of(DispatchStatus.ACCEPTED, DispatchStatus.REJECTED)
-        );
-        return dispatches.stream()
-                .map(DispatchHistoryResponse::fromEntity)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<DispatchHistoryResponse> getCompletedDispatches(String cursor, Integer size) {
+        return statusPage(List.of(DispatchStatus.ACCEPTED, DispatchStatus.REJECTED), cursor, size);
+    }
+
+    private CursorPage<DispatchHistoryResponse> statusPage(List<DispatchStatus> statuses, String cursor, Integer size) {
+        int limit = CursorPage.limit(size, maxPageSize);
+        return historyPage(dispatchRepository.findStatusSummaryPage(statuses, DispatchCursor.decode(cursor), limit + 1), limit);
     }
 
     @Override
     @Transactional
     public DispatchDetailResponse acceptDispatch(String dispatchId) {
-        DispatchEntity dispatch = dispatchRepository.findById(dispatchId).orElse(null);
+        DispatchEntity dispatch = dispatchRepository.findByIdForUpdate(dispatchId).orElse(null);
 
         if (dispatch == null || dispatch.getStatus() != DispatchStatus.PENDING) {
             return null;
         }
 
         dispatch.setStatus(DispatchStatus.ACCEPTED);
-        dispatch = dispatchRepository.save(dispatch);
-
-        List<SlotShelf> slotShelvesToUpdate = new ArrayList<>();
-        List<SlotSection> slotSectionsToUpdate = new ArrayList<>();
-        List<BaseProductEntity> productsToUpdate = new ArrayList<>();
-
-        for (DispatchItemEntity item : dispatch.getItems()) {
-            if (item.getProducts() != null) {
-                for (BaseProductEntity product : item.getProducts()) {
-                    product.setDispatch(dispatch);
-
-                    if (product.getSlotShelf() != null) {
-                        SlotShelf slotShelf = product.getSlotShelf();
-                        slotShelf.setOccupied(false);
-                        slotShelf.setProduct(null);
-                        slotShelvesToUpdate.add(slotShelf);
-                        product.setSlotShelf(null);
-                    }
-
-                    if (product.getSlotSection() != null) {
-                        SlotSection slotSection = product.getSlotSection();
-                        slotSection.setOccupied(false);
-                        slotSection.setProduct(null);
-                        slotSectionsToUpdate.add(slotSection);
-                        product.setSlotSection(null);
-                    }
-
-                    productsToUpdate.add(product);
-                }
+        dispatchRepository.save(dispatch);
+
+        // Read what the in-memory indexes need, then move the units out in a few set-based statements
+        Map<String, String> fingerprints = new HashMap<>();
+        Map<String, Integer> unitsPerGroup = new HashMap<>();
+        List<String> releasedSlots = new ArrayList<>();
+        // Sorted, so section rows are updated in the same order by every acceptance and cannot deadlock
+        Map<String, Integer> releasedPerSection = new TreeMap<>();
+        boolean onShelves = false;
+        boolean onFloors = false;
+        for (ProductRepository.DispatchedUnit unit : productRepository.findDispatchedUnits(dispatchId)) {
+            if (unit.fingerprint() != null) {
+                fingerprints.put(unit.id(), unit.fingerprint());
+                unitsPerGroup.merge(unit.fingerprint(), 1, Integer::sum);
+            }
+            if (unit.slotShelfId() != null) {
+                onShelves = true;
+                releasedSlots.add(unit.slotShelfId());
+                releasedPerSection.merge(unit.shelfSectionId(), 1, Integer::sum);
+            }
+            if (unit.slotSectionId() != null) {
+                onFloors = true;
+                releasedSlots.add(unit.slotSectionId());
+                releasedPerSection.merge(unit.floorSectionId(), 1, Integer::sum);
             }
         }
 
-        if (!productsToUpdate.isEmpty()) {
-            productRepository.saveAll(productsToUpdate);
+        productRepository.markDispatched(dispatchId);
+        if (onShelves) {
+            slotShelfRepository.deleteVirtualDispatched(dispatchId);
+            slotShelfRepository.releaseDispatched(dispatchId);
         }
-
-        if (!slotShelvesToUpdate.isEmpty()) {
-            slotShelfRepository.saveAll(slotShelvesToUpdate);
+        if (onFloors) {
+            slotSectionRepository.deleteVirtualDispatched(dispatchId);
+            slotSectionRepository.releaseDispatched(dispatchId);
         }
 
-        if (!slotSectionsToUpdate.isEmpty()) {
-            slotSectionRepository.saveAll(slotSectionsToUpdate);
-        }
+        stockQueues.remove(fingerprints);
+        groupedStockView.remove(fingerprints);
+        productSearchIndex.remove(unitsPerGroup);
+        slotIndex.release(releasedSlots);
+        releasedPerSection.forEach(sectionOccupancy::release);
+
+        // The bulk statements cleared the persistence context
+        dispatch = dispatchRepository.findById(dispatchId).orElseThrow();
 
         InventoryTransactionEntity inventoryTransaction = new InventoryTransactionEntity();
         inventoryTransaction.setType(TransactionType.EXPORT);
@@ -226,7 +237,7 @@ public class DispatchServiceImpl implements DispatchService {
 
         notificationProducerService.sendNotification(
                 dispatch.getBuyerId(),
-                "Your dispatch request #" + dispatch.getId().substring(0, 8) + " has been accepted."
+                "Your dispatch request #" + TimeOrderedIds.shortForm(dispatch.getId()) + " has been accepted."
         );
 
         return addPricingInfoToDispatchResponse(dispatch);
@@ -235,7 +246,21 @@ public class DispatchServiceImpl implements DispatchService {
     @Override
     @Transactional
     public DispatchDetailResponse rejectDispatch(String dispatchId, String reason) {
-        DispatchEntity dispatch = dispatchRepository.findById(dispatchId).orElse(null);
+        DispatchEntity dispatch = reject(dispatchId, reason);
+        return dispatch != null ? addPricingInfoToDispatchResponse(dispatch) : null;
+    }
+
+    /**
+     * Rejects a dispatch whose reservation expired, in a transaction of its own; false when it
+     * was decided in the meantime.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean expireDispatch(String dispatchId) {
+        return reject(dispatchId, "Reservation expired") != null;
+    }
+
+    private DispatchEntity reject(String dispatchId, String reason) {
+        DispatchEntity dispatch = dispatchRepository.findByIdForUpdate(dispatchId).orElse(null);
 
         if (dispatch == null || dispatch.getStatus() != DispatchStatus.PENDING) {
             return null;
@@ -245,12 +270,22 @@ public class DispatchServiceImpl implements DispatchService {
         dispatch.setRejectionReason(reason);
         dispatch = dispatchRepository.save(dispatch);
 
+        List<BaseProductEntity> reserved = productRepository.findByReservedByDispatch(dispatchId);
+        reserved.forEach(product -> product.setReservedByDispatch(null));
+        productRepository.saveAll(reserved);
+        stockQueues.release(dispatchId, reserved.stream().map(BaseProductEntity::getId).toList());
+        Map<String, Integer> releasedPerGroup = new HashMap<>();
+        reserved.stream()
+                .filter(product -> product.getGroupFingerprint() != null)
+                .forEach(product -> releasedPerGroup.merge(product.getGroupFingerprint(), 1, Integer::sum));
+        groupedStockView.release(releasedPerGroup);
+
         notificationProducerService.sendNotification(
                 dispatch.getBuyerId(),
-                "Your dispatch request #" + dispatch.getId().substring(0, 8) + " has been rejected. Reason: " +
+                "Your dispatch request #" + TimeOrderedIds.shortForm(dispatch.getId()) + " has been rejected. Reason: " +
                         (reason != null && !reason.isEmpty() ? reason : "No reason provided")
         );
 
-        return addPricingInfoToDispatchResponse(dispatch);
+        return dispatch;
     }
 }
\ No newline at end of file
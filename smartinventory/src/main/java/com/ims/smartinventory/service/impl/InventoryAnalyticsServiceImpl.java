@@ -7,9 +7,11 @@ import com.ims.common.entity.management.DispatchItemEntity;
 import com.ims.common.entity.management.LotEntity;
 import com.ims.common.entity.management.LotItemEntity;
 import com.ims.common.entity.storage.SectionEntity;
+import com.ims.smartinventory.catalog.ProductCodecs;
 import com.ims.smartinventory.dto.Response.InventoryAnalyticsResponse;
 import com.ims.smartinventory.repository.*;
 import com.ims.smartinventory.service.InventoryAnalyticsService;
+import com.ims.smartinventory.storage.SectionOccupancy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -26,8 +28,8 @@ public class InventoryAnalyticsServiceImpl implements InventoryAnalyticsService
     private final LotRepository lotRepository;
     private final DispatchRepository dispatchRepository;
     private final SectionRepository sectionRepository;
-    private final SlotSectionRepository slotSectionRepository;
-    private final SlotShelfRepository slotShelfRepository;
+    private final SectionOccupancy sectionOccupancy;
+    private final ProductCodecs productCodecs;
 
     @Autowired
     public InventoryAnalyticsServiceImpl(
@@ -35,14 +37,14 @@ public class InventoryAnalyticsServiceImpl implements InventoryAnalyticsService
             LotRepository lotRepository,
             DispatchRepository dispatchRepository,
             SectionRepository sectionRepository,
-            SlotSectionRepository slotSectionRepository,
-            SlotShelfRepository slotShelfRepository) {
+            SectionOccupancy sectionOccupancy,
+            ProductCodecs productCodecs) {
         this.productRepository = productRepository;
         this.lotRepository = lotRepository;
         this.dispatchRepository = dispatchRepository;
         this.sectionRepository = sectionRepository;
-        this.slotSectionRepository = slotSectionRepository;
-        this.slotShelfRepository = slotShelfRepository;
+        this.sectionOccupancy = sectionOccupancy;
+        this.productCodecs = productCodecs;
     }
 
     @Override
@@ -204,14 +206,8 @@ public class InventoryAnalyticsServiceImpl implements InventoryAnalyticsService
                     section.getStorageConditions().get(0).getConditionType().name();
             data.setSectionCondition(conditionStr);
 
-            int totalSlots = section.getTotalSlots();
-            int usedSlots;
-
-            if (section.getNumShelves() > 0) {
-                usedSlots = slotShelfRepository.countUsedBySectionId(section.getId());
-            } else {
-                usedSlots = slotSectionRepository.countUsedBySectionId(section.getId());
-            }
+            int totalSlots = sectionOccupancy.totalSlots(section);
+            int usedSlots = sectionOccupancy.usedSlots(section);
 
             data.setTotalSlots(totalSlots);
             data.setUsedSlots(usedSlots);
@@ -236,13 +232,8 @@ public class InventoryAnalyticsServiceImpl implements InventoryAnalyticsService
 
         List<SectionEntity> sections = sectionRepository.findAllWithStorageConditions();
         for (SectionEntity section : sections) {
-            totalSlots += section.getTotalSlots();
-
-            if (section.getNumShelves() > 0) {
-                usedSlots += slotShelfRepository.countUsedBySectionId(section.getId());
-            } else {
-                usedSlots += slotSectionRepository.countUsedBySectionId(section.getId());
-            }
+            totalSlots += sectionOccupancy.totalSlots(section);
+            usedSlots += sectionOccupancy.usedSlots(section);
         }
 
         stats.setOverallUtilization(totalSlots > 0 ? (double) usedSlots / totalSlots : 0);
@@ -299,7 +290,6 @@ public class InventoryAnalyticsServiceImpl implements InventoryAnalyticsService
     }
 
     private String getProductTypeName(BaseProductEntity product) {
-        String className = product.getClass().getSimpleName();
-        return className.replace("ProductEntity", "").toUpperCase();
+        return productCodecs.of(product).groupLabel();
     }
 }
\ No newline at end of file
@@ -7,19 +7,32 @@ import com.ims.common.entity.management.InventoryTransactionEntity;
 import com.ims.common.entity.management.LotEntity;
 import com.ims.common.entity.management.LotItemEntity;
 import com.ims.common.entity.storage.SectionEntity;
-import com.ims.common.entity.storage.SlotEntity;
+import com.ims.common.entity.storage.ShelfEntity;
 import com.ims.common.entity.storage.SlotSection;
 import com.ims.common.entity.storage.SlotShelf;
+import com.ims.common.id.TimeOrderedIds;
+import com.ims.smartinventory.catalog.ProductCodecs;
+import com.ims.smartinventory.dto.Response.CursorPage;
 import com.ims.smartinventory.dto.Response.LotDto;
 import com.ims.smartinventory.dto.Response.LotItemDto;
 import com.ims.smartinventory.exception.StorageException;
 import com.ims.smartinventory.repository.*;
 import com.ims.smartinventory.service.LotService;
 import com.ims.smartinventory.service.NotificationProducerService;
+import com.ims.smartinventory.storage.GroupedStockView;
+import com.ims.smartinventory.storage.ProductSearchIndex;
+import com.ims.smartinventory.storage.ReservationLedger;
+import com.ims.smartinventory.storage.SectionLocks;
+import com.ims.smartinventory.storage.SectionOccupancy;
+import com.ims.smartinventory.storage.SlotIndex;
+import com.ims.smartinventory.storage.StockQueues;
+import com.ims.smartinventory.util.LotCursor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class LotServiceImpl implements LotService {
@@ -27,28 +40,49 @@ public class LotServiceImpl implements LotService {
     private final LotRepository lotRepository;
     private final SlotSectionRepository slotSectionRepository;
     private final SlotShelfRepository slotShelfRepository;
-    private final ProductServiceImpl productService;
+    private final ProductCodecs productCodecs;
     private final InventoryTransactionRepository inventoryTransactionRepository;
     private final ProductRepository productRepository;
     private final NotificationProducerService notificationProducerService;
+    private final SlotIndex slotIndex;
+    private final SectionOccupancy sectionOccupancy;
+    private final ReservationLedger reservationLedger;
+    private final SectionLocks sectionLocks;
+    private final StockQueues stockQueues;
+    private final GroupedStockView groupedStockView;
+    private final ProductSearchIndex productSearchIndex;
+    private final int maxPageSize;
 
     public LotServiceImpl(LotRepository lotRepository, SlotSectionRepository slotSectionRepository, SlotShelfRepository slotShelfRepository,
-                          ProductServiceImpl productService,
+                          ProductCodecs productCodecs,
                           InventoryTransactionRepository inventoryTransactionRepository,
-                          ProductRepository productRepository, NotificationProducerService notificationProducerService) {
+                          ProductRepository productRepository, NotificationProducerService notificationProducerService,
+                          SlotIndex slotIndex, SectionOccupancy sectionOccupancy,
+                          ReservationLedger reservationLedger, SectionLocks sectionLocks,
+                          StockQueues stockQueues, GroupedStockView groupedStockView,
+                          ProductSearchIndex productSearchIndex,
+                          @Value("${inventory.paging.max-page-size:200}") int maxPageSize) {
         this.lotRepository = lotRepository;
         this.slotSectionRepository = slotSectionRepository;
         this.slotShelfRepository = slotShelfRepository;
-        this.productService = productService;
+        this.productCodecs = productCodecs;
         this.inventoryTransactionRepository = inventoryTransactionRepository;
         this.productRepository = productRepository;
         this.notificationProducerService = notificationProducerService;
+        this.slotIndex = slotIndex;
+        this.sectionOccupancy = sectionOccupancy;
+        this.reservationLedger = reservationLedger;
+        this.sectionLocks = sectionLocks;
+        this.stockQueues = stockQueues;
+        this.groupedStockView = groupedStockView;
+        this.productSearchIndex = productSearchIndex;
+        this.maxPageSize = maxPageSize;
     }
 
     @Override
-    public List<LotDto> getLotHistory() {
-        List<LotEntity> lots = lotRepository.findAllWithItemsAndUser();
-        return convertLotEntitiesToDtos(lots);
+    @Transactional(readOnly = true)
+    public CursorPage<LotDto> getLotHistory(String cursor, Integer size) {
+        return lotPage(cursor, size);
     }
 
     @Override
@@ -66,7 +100,7 @@ public class LotServiceImpl implements LotService {
     @Override
     @Transactional
     public boolean acceptLot(String lotId) {
-        Optional<LotEntity> lotOpt = lotRepository.findById(lotId);
+        Optional<LotEntity> lotOpt = lotRepository.findByIdForUpdate(lotId);
 
         if (lotOpt.isPresent()) {
             LotEntity lot = lotOpt.get();
@@ -74,22 +108,26 @@ public class LotServiceImpl implements LotService {
             if (lot.getStatus() == LotStatus.ACCEPTED) {
                 return true;
             }
+            if (lot.getStatus() == LotStatus.REJECTED) {
+                return false;
+            }
 
             List<BaseProductEntity> products = productRepository.findByLotIdAndSlotShelfIsNullAndSlotSectionIsNull(lot.getId());
+            Map<SectionEntity, List<BaseProductEntity>> productsBySection = products.stream()
+                    .collect(Collectors.groupingBy(BaseProductEntity::getSection, LinkedHashMap::new, Collectors.toList()));
+            sectionLocks.lockUntilCompletion(productsBySection.keySet().stream()
+                    .map(SectionEntity::getId)
+                    .toList());
 
-            for (BaseProductEntity product : products) {
-                SectionEntity sectionEntity = product.getSection();
-                boolean onShelf = product.isOnShelf();
+            Map<String, Integer> heldPerSection = reservationLedger.settle(lot, products);
 
-                if (onShelf) {
-                    allocateSlotInShelf(sectionEntity, product);
-                } else {
-                    allocateSlotInSection(sectionEntity, product);
-                }
-            }
+            productsBySection.forEach(this::allocateSlots);
+            heldPerSection.forEach((sectionId, slots) -> sectionOccupancy.allocate(sectionId, slots, slots));
 
             lot.setStatus(LotStatus.ACCEPTED);
             lotRepository.save(lot);
+            stockQueues.add(lot, products);
+            groupedStockView.add(products);
 
             InventoryTransactionEntity inventoryTransaction = new InventoryTransactionEntity();
             inventoryTransaction.setType(TransactionType.IMPORT);
@@ -99,7 +137,7 @@ public class LotServiceImpl implements LotService {
 
             notificationProducerService.sendNotification(
                     lot.getUser().getId(),
-                    "Your lot request #" + lot.getId().substring(0, 8) + " has been accepted."
+                    "Your lot request " + displayCode(lot) + " has been accepted."
             );
             return true;
         }
@@ -107,43 +145,120 @@ public class LotServiceImpl implements LotService {
         return false;
     }
 
-    private void allocateSlotInShelf(SectionEntity section, BaseProductEntity product) {
-        List<SlotShelf> availableSlots = slotShelfRepository.findAll().stream()
-                .filter(SlotEntity::isAvailable)
-                .filter(slot -> slot.getShelf().getSection().equals(section) && slot.getProduct() == null)
-                .sorted(
-                        Comparator.comparing((SlotShelf s) -> s.getShelf().getId())
-                                .thenComparingInt(SlotShelf::getX)
-                                .thenComparingInt(SlotShelf::getY)
-                )
-                .toList();
+    // Lots stored before lot codes existed fall back to the random tail of their id
+    private static String displayCode(LotEntity lot) {
+        return lot.getLotCode() != null ? lot.getLotCode() : "#" + TimeOrderedIds.shortForm(lot.getId());
+    }
+
+    @Override
+    @Transactional
+    public boolean rejectLot(String lotId) {
+        Optional<LotEntity> lotOpt = lotRepository.findByIdForUpdate(lotId);
 
-        if (availableSlots.isEmpty()) {
-            throw new StorageException("No available slot in shelf for section: " + section.getName());
+        if (lotOpt.isEmpty() || lotOpt.get().getStatus() != LotStatus.PENDING) {
+            return false;
         }
 
-        SlotShelf selectedSlot = availableSlots.getFirst();
-        selectedSlot.setOccupied(true);
-        selectedSlot.setProduct(product);
-        product.setSlotShelf(selectedSlot);
+        LotEntity lot = lotOpt.get();
+        lot.setStatus(LotStatus.REJECTED);
+        lotRepository.save(lot);
 
-        slotShelfRepository.save(selectedSlot);
-        productRepository.save(product);
+        reservationLedger.release(lot.getId());
+        productSearchIndex.removeGroups(productRepository.countUndispatchedByGroupInLot(lot.getId()));
+
+        notificationProducerService.sendNotification(
+                lot.getUser().getId(),
+                "Your lot request " + displayCode(lot) + " has been rejected."
+        );
+        return true;
     }
 
-    private void allocateSlotInSection(SectionEntity section, BaseProductEntity product) {
-        List<SlotSection> availableSlots = slotSectionRepository.findAll().stream()
-                .filter(SlotEntity::isAvailable)
-                .filter(slot -> slot.getSection().equals(section) && slot.getProduct() == null)
-                .sorted(Comparator.comparingInt(SlotSection::getXPosition).thenComparingInt(SlotSection::getYPosition))
+    /**
+     * Gives every product of one section a slot, claiming them from the index in one pass and
+     * writing slots and products back as batched updates. Positions of a virtual section get
+     * their slot row here.
+     */
+    private void allocateSlots(SectionEntity section, List<BaseProductEntity> products) {
+        List<SlotIndex.ClaimedSlot> claimed = slotIndex.claim(section.getId(), products.size());
+        boolean onShelf = products.getFirst().isOnShelf();
+
+        if (claimed.size() < products.size()) {
+            throw new StorageException(onShelf
+                    ? "No available slot in shelf for section: " + section.getName()
+                    : "No available slot in section: " + section.getName());
+        }
+
+        List<String> existingIds = claimed.stream()
+                .filter(SlotIndex.ClaimedSlot::isMaterialized)
+                .map(SlotIndex.ClaimedSlot::slotId)
                 .toList();
-        SlotSection selectedSlot = availableSlots.getFirst();
-        selectedSlot.setOccupied(true);
-        selectedSlot.setProduct(product);
-        product.setSlotSection(selectedSlot);
 
-        slotSectionRepository.save(selectedSlot);
-        productRepository.save(product);
+        if (onShelf) {
+            Map<String, SlotShelf> existing = new HashMap<>();
+            slotShelfRepository.findAllById(existingIds).forEach(slot -> existing.put(slot.getId(), slot));
+            Map<String, ShelfEntity> shelves = existingIds.size() < claimed.size()
+                    ? section.getShelves().stream().collect(Collectors.toMap(ShelfEntity::getId, shelf -> shelf))
+                    : Map.of();
+
+            List<SlotShelf> slots = new ArrayList<>(products.size());
+            for (int i = 0; i < products.size(); i++) {
+                SlotIndex.ClaimedSlot position = claimed.get(i);
+                SlotShelf slot;
+                if (position.isMaterialized()) {
+                    slot = requireSlot(existing.get(position.slotId()), position.slotId(), section);
+                } else {
+                    slot = new SlotShelf();
+                    slot.setShelf(shelves.get(position.shelfId()));
+                    slot.setX(position.x());
+                    slot.setY(position.y());
+                }
+                slot.setOccupied(true);
+                slot.setProduct(products.get(i));
+                products.get(i).setSlotShelf(slot);
+                slots.add(slot);
+            }
+            slotShelfRepository.saveAll(slots);
+            bindNewSlots(section, claimed, slots.stream().map(SlotShelf::getId).toList());
+        } else {
+            Map<String, SlotSection> existing = new HashMap<>();
+            slotSectionRepository.findAllById(existingIds).forEach(slot -> existing.put(slot.getId(), slot));
+
+            List<SlotSection> slots = new ArrayList<>(products.size());
+            for (int i = 0; i < products.size(); i++) {
+                SlotIndex.ClaimedSlot position = claimed.get(i);
+                SlotSection slot;
+                if (position.isMaterialized()) {
+                    slot = requireSlot(existing.get(position.slotId()), position.slotId(), section);
+                } else {
+                    slot = new SlotSection();
+                    slot.setSection(section);
+                    slot.setXPosition(position.x());
+                    slot.setYPosition(position.y());
+                }
+                slot.setOccupied(true);
+                slot.setProduct(products.get(i));
+                products.get(i).setSlotSection(slot);
+                slots.add(slot);
+            }
+            slotSectionRepository.saveAll(slots);
+            bindNewSlots(section, claimed, slots.stream().map(SlotSection::getId).toList());
+        }
+        productRepository.saveAll(products);
+    }
+
+    private void bindNewSlots(SectionEntity section, List<SlotIndex.ClaimedSlot> claimed, List<String> slotIds) {
+        for (int i = 0; i < claimed.size(); i++) {
+            if (!claimed.get(i).isMaterialized()) {
+                slotIndex.bind(section.getId(), claimed.get(i).position(), slotIds.get(i));
+            }
+        }
+    }
+
+    private static <T> T requireSlot(T slot, String slotId, SectionEntity section) {
+        if (slot == null) {
+            throw new StorageException("Slot " + slotId + " no longer exists in section: " + section.getName());
+        }
+        return slot;
     }
 
     @Override
@@ -167,55 +282,71 @@ public class LotServiceImpl implements LotService {
             dto.setUsername(lot.getUser().getUsername());
             dto.setStatus(lot.getStatus());
 
-            List<LotItemDto> groupedItems = new ArrayList<>();
-            List<Map<String, Object>> groupedDetails = new ArrayList<>();
-
+            // Items of the same product at the same price are shown as one line
+            Map<ItemKey, LotItemDto> groupedItems = new LinkedHashMap<>();
             for (LotItemEntity item : lot.getItems()) {
                 if (item.getProduct() == null) continue;
 
-                Map<String, Object> currentDetail = productService.extractDetail(item.getProduct());
-                boolean merged = false;
-
-                for (int i = 0; i < groupedItems.size(); i++) {
-                    LotItemDto existing = groupedItems.get(i);
-                    Map<String, Object> existingDetail = groupedDetails.get(i);
-
-                    boolean sameName = existing.getProductName().equals(item.getProductName());
-                    boolean samePrice = Objects.equals(existing.getPrice(), item.getPrice() != null ? item.getPrice().getValue() : null);
-                    boolean sameCurrency = Objects.equals(existing.getCurrency(), item.getPrice() != null ? item.getPrice().getCurrency() : null);
-                    boolean sameDetail = productService.matchesDetail(item.getProduct(), existingDetail);
-
-                    if (sameName && samePrice && sameCurrency && sameDetail) {
-                        existing.setQuantity(existing.getQuantity() + item.getQuantity());
-                        merged = true;
-                        break;
-                    }
+                ItemKey key = ItemKey.of(item, productCodecs);
+                LotItemDto existing = groupedItems.get(key);
+                if (existing != null) {
+                    existing.setQuantity(existing.getQuantity() + item.getQuantity());
+                    continue;
                 }
 
-                if (!merged) {
-                    LotItemDto itemDto = new LotItemDto();
-                    itemDto.setProductName(item.getProductName());
-                    itemDto.setQuantity(item.getQuantity());
-                    itemDto.setImportDate(item.getImportDate().toString());
-
-                    if (item.getPrice() != null) {
-                        itemDto.setPrice(item.getPrice().getValue());
-                        itemDto.setCurrency(item.getPrice().getCurrency());
-                    }
+                LotItemDto itemDto = new LotItemDto();
+                itemDto.setProductName(item.getProductName());
+                itemDto.setQuantity(item.getQuantity());
+                itemDto.setImportDate(item.getImportDate().toString());
 
-                    groupedItems.add(itemDto);
-                    groupedDetails.add(currentDetail);
+                if (item.getPrice() != null) {
+                    itemDto.setPrice(item.getPrice().getValue());
+                    itemDto.setCurrency(item.getPrice().getCurrency());
                 }
+
+                groupedItems.put(key, itemDto);
             }
 
-            dto.setItems(groupedItems);
+            dto.setItems(new ArrayList<>(groupedItems.values()));
             return dto;
         }).toList();
     }
 
     @Override
-    public List<LotDto> getAllLotsWithAllStatuses() {
-        List<LotEntity> allLots = lotRepository.findAllWithItemsAndUser();
-        return convertLotEntitiesToDtos(allLots);
+    @Transactional(readOnly = true)
+    public CursorPage<LotDto> getAllLotsWithAllStatuses(String cursor, Integer size) {
+        return lotPage(cursor, size);
+    }
+
+    private CursorPage<LotDto> lotPage(String cursor, Integer size) {
+        int limit = CursorPage.limit(size, maxPageSize);
+        List<LotEntity> lots = lotRepository.findPage(null, LotCursor.decode(cursor), limit + 1);
+        String nextCursor = lots.size() > limit ? LotCursor.after(lots.get(limit - 1)).encode() : null;
+        List<String> ids = lots.stream().limit(limit).map(LotEntity::getId).toList();
+        if (ids.isEmpty()) {
+            return new CursorPage<>(List.of(), nextCursor);
+        }
+
+        // Items are fetched for the page only, then put back into keyset order
+        Map<String, LotEntity> withItems = lotRepository.findWithItemsAndUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(LotEntity::getId, lot -> lot, (first, duplicate) -> first));
+        return new CursorPage<>(convertLotEntitiesToDtos(ids.stream().map(withItems::get).toList()), nextCursor);
+    }
+
+    /**
+     * What makes two lot items one line. The product's group fingerprint stands for its detail, so
+     * building the key does not load the product's attributes; units stored before fingerprints
+     * existed fall back to the detail itself.
+     */
+    private record ItemKey(String productName, Double price, String currency, Object detail) {
+        static ItemKey of(LotItemEntity item, ProductCodecs productCodecs) {
+            BaseProductEntity product = item.getProduct();
+            Object detail = product.getGroupFingerprint() != null
+                    ? product.getGroupFingerprint()
+                    : productCodecs.detail(product);
+            return item.getPrice() != null
+                    ? new ItemKey(item.getProductName(), item.getPrice().getValue(), item.getPrice().getCurrency(), detail)
+                    : new ItemKey(item.getProductName(), null, null, detail);
+        }
     }
-}
\ No newline at end of file
+}
@@ -8,28 +8,56 @@ import com.ims.common.entity.management.DispatchEntity;
 import com.ims.common.entity.management.DispatchItemEntity;
 import com.ims.common.entity.management.LotEntity;
 import com.ims.common.entity.management.LotItemEntity;
-import com.ims.common.entity.product.*;
 import com.ims.common.entity.storage.SectionEntity;
 import com.ims.common.entity.storage.SlotShelf;
-import com.ims.common.entity.storage.StorageConditionEntity;
+import com.ims.common.id.TimeOrderedIds;
+import com.ims.smartinventory.catalog.ProductCodecs;
 import com.ims.smartinventory.dto.Request.ProductBatchRequestDto;
 import com.ims.smartinventory.dto.Request.ProductExportRequestDto;
 import com.ims.smartinventory.dto.Request.ProductGroupResponseDto;
+import com.ims.smartinventory.dto.Response.CursorPage;
 import com.ims.smartinventory.dto.Response.ProductResponse;
+import com.ims.smartinventory.dto.Response.ProductSearchResponse;
 import com.ims.smartinventory.dto.Response.ProductsByLotResponse;
 import com.ims.smartinventory.exception.NoSuitableSectionException;
 import com.ims.smartinventory.exception.StorageException;
 import com.ims.smartinventory.repository.*;
 import com.ims.smartinventory.service.ProductService;
+import com.ims.smartinventory.storage.GroupedStockView;
+import com.ims.smartinventory.storage.ProductSearchIndex;
+import com.ims.smartinventory.storage.ProductSupplierIndex;
+import com.ims.smartinventory.storage.ReservationLedger;
+import com.ims.smartinventory.storage.SectionConditionIndex;
+import com.ims.smartinventory.storage.SectionOccupancy;
+import com.ims.smartinventory.storage.StockQueues;
+import com.ims.smartinventory.storage.WarehouseRouter;
+import com.ims.smartinventory.util.LotCursor;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ProductServiceImpl implements ProductService {
+    // matches hibernate.jdbc.batch_size so every flush goes out as full JDBC batches
+    private static final int INGEST_BATCH_SIZE = 500;
+
     private final LotRepository lotRepository;
     private final ProductRepository productRepository;
     private final SlotShelfRepository slotShelfRepository;
@@ -42,6 +70,16 @@ public class ProductServiceImpl implements ProductService {
     private final NotificationProducerServiceImpl notificationProducerService;
     private final PriceRepository priceRepository;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final SectionOccupancy sectionOccupancy;
+    private final WarehouseRouter warehouseRouter;
+    private final ReservationLedger reservationLedger;
+    private final StockQueues stockQueues;
+    private final GroupedStockView groupedStockView;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSupplierIndex productSupplierIndex;
+    private final ProductCodecs productCodecs;
+    private final int maxPageSize;
 
     public ProductServiceImpl(LotRepository lotRepository, ProductRepository productRepository,
                               SlotShelfRepository slotShelfRepository, SlotSectionRepository slotSectionRepository,
@@ -49,7 +87,13 @@ public class ProductServiceImpl implements ProductService {
                               LotItemRepository lotItemRepository, DispatchItemRepository dispatchItemRepository,
                               DispatchRepository dispatchRepository, InventoryTransactionRepository inventoryTransactionRepository,
                               NotificationProducerServiceImpl notificationProducerService,
-                              PriceRepository priceRepository, UserRepository userRepository) {
+                              PriceRepository priceRepository, UserRepository userRepository,
+                              EntityManager entityManager, SectionOccupancy sectionOccupancy,
+                              WarehouseRouter warehouseRouter, ReservationLedger reservationLedger,
+                              StockQueues stockQueues, GroupedStockView groupedStockView,
+                              ProductSearchIndex productSearchIndex, ProductSupplierIndex productSupplierIndex,
+                              ProductCodecs productCodecs,
+                              @Value("${inventory.paging.max-page-size:200}") int maxPageSize) {
         this.lotRepository = lotRepository;
         this.productRepository = productRepository;
         this.slotShelfRepository = slotShelfRepository;
@@ -62,6 +106,16 @@ public class ProductServiceImpl implements ProductService {
         this.notificationProducerService = notificationProducerService;
         this.priceRepository = priceRepository;
         this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.sectionOccupancy = sectionOccupancy;
+        this.warehouseRouter = warehouseRouter;
+        this.reservationLedger = reservationLedger;
+        this.stockQueues = stockQueues;
+        this.groupedStockView = groupedStockView;
+        this.productSearchIndex = productSearchIndex;
+        this.productSupplierIndex = productSupplierIndex;
+        this.productCodecs = productCodecs;
+        this.maxPageSize = maxPageSize;
     }
 
     @Transactional
@@ -86,51 +140,144 @@ public class ProductServiceImpl implements ProductService {
 
         List<Map<String, Object>> productDetails = batchRequest.getProductDetails();
 
-        for (Map<String, Object> productData : productDetails) {
+        // A lot stays within one warehouse: the first one offered by the router whose matching
+        // sections can hold every entry gets it. Storage conditions are per batch, so the matching
+        // sections are looked up once per warehouse.
+        List<SectionEntity> targetSections = null;
+        for (WarehouseRouter.Candidate candidate : warehouseRouter.route(batchRequest.getWarehouseId(),
+                batchRequest.getStorageConditions())) {
+            List<SectionEntity> sections = sectionRepository.findAllById(candidate.fits().keySet());
+            if (placeEntries(lot, productDetails, sections, candidate.fits(), false) != null) {
+                targetSections = placeEntries(lot, productDetails, sections, candidate.fits(), true);
+                break;
+            }
+        }
+
+        if (targetSections == null) {
+            throw new NoSuitableSectionException("No suitable section found for storage conditions. Please contact administrator to create appropriate sections.");
+        }
+
+        Date importDate = new Date();
+        List<BaseProductEntity> productBuffer = new ArrayList<>(INGEST_BATCH_SIZE);
+        List<LotItemEntity> lotItemBuffer = new ArrayList<>(INGEST_BATCH_SIZE);
+
+        for (int entry = 0; entry < productDetails.size(); entry++) {
+            Map<String, Object> productData = productDetails.get(entry);
             boolean onShelf = (boolean) productData.getOrDefault("onShelf", false);
             int quantity = ((Number) productData.getOrDefault(
                     "quantity", 1)).intValue();
-            List<SectionEntity> sections = sectionRepository.findAllWithStorageConditions();
-
-            SectionEntity suitableSection = sections.stream()
-                    .filter(section -> (section.getNumShelves() != 0) == onShelf)
-                    .filter(section -> {
-                        int totalSlots = section.getTotalSlots();
-                        int usedSlots = onShelf
-                                ? slotShelfRepository.countUsedBySectionId(section.getId())
-                                : slotSectionRepository.countUsedBySectionId(section.getId());
-                        return totalSlots - usedSlots >= quantity;
-                    })
-                    .filter(section -> isSuitableForConditions(section, batchRequest.getStorageConditions()))
-                    .findFirst()
-                    .orElse(null);
-
-            if (suitableSection == null) {
-                throw new NoSuitableSectionException("No suitable section found for storage conditions. Please contact administrator to create appropriate sections.");
-            }
 
             for (int i = 0; i < quantity; i++) {
-                BaseProductEntity product = createProduct(batchRequest, productData, onShelf, suitableSection);
+                BaseProductEntity product = createProduct(batchRequest, productData, onShelf, targetSections.get(entry));
                 product.setLot(lot);
-                product = productRepository.save(product);
+                product.setSupplierId(lot.getUser().getId());
+                productBuffer.add(product);
 
                 LotItemEntity lotItem = new LotItemEntity();
                 lotItem.setLot(lot);
                 lotItem.setProduct(product);
                 lotItem.setProductName(product.getName());
                 lotItem.setQuantity(1);
-                lotItem.setImportDate(new Date());
-                lotItemRepository.save(lotItem);
+                lotItem.setImportDate(importDate);
+                lotItemBuffer.add(lotItem);
+
+                if (productBuffer.size() == INGEST_BATCH_SIZE) {
+                    persistIngestChunk(productBuffer, lotItemBuffer);
+                }
+            }
+        }
+
+        persistIngestChunk(productBuffer, lotItemBuffer);
+    }
+
+    /**
+     * Picks a section for every entry of the batch from one warehouse's matching sections, or
+     * returns null if some entry does not fit. With {@code reserve} set the capacity is claimed
+     * through the reservation ledger as it goes.
+     */
+    private List<SectionEntity> placeEntries(LotEntity lot, List<Map<String, Object>> productDetails,
+                                             List<SectionEntity> sections,
+                                             Map<String, SectionConditionIndex.Fit> fits, boolean reserve) {
+        Map<String, Integer> freeSlots = new HashMap<>();
+        sections.forEach(section -> freeSlots.put(section.getId(), sectionOccupancy.freeSlots(section)));
+
+        List<SectionEntity> targetSections = new ArrayList<>(productDetails.size());
+
+        for (Map<String, Object> productData : productDetails) {
+            boolean onShelf = (boolean) productData.getOrDefault("onShelf", false);
+            int quantity = ((Number) productData.getOrDefault(
+                    "quantity", 1)).intValue();
+
+            // Best fit: fewest unneeded conditions, tightest ranges, then least capacity left over,
+            // so that climate-controlled space stays free for goods that need it.
+            List<SectionEntity> ranked = sections.stream()
+                    .filter(section -> (section.getNumShelves() != 0) == onShelf)
+                    .filter(section -> freeSlots.get(section.getId()) >= quantity)
+                    .sorted(Comparator.comparing((SectionEntity section) -> fits.get(section.getId()))
+                            .thenComparingInt(section -> freeSlots.get(section.getId()))
+                            .thenComparing(SectionEntity::getId))
+                    .toList();
+
+            // The reservation is what actually claims the capacity; a concurrent batch may have
+            // taken the room in between, in which case the next best section is tried.
+            SectionEntity suitableSection = null;
+            for (SectionEntity section : ranked) {
+                if (!reserve || reservationLedger.reserve(lot, section, quantity)) {
+                    suitableSection = section;
+                    break;
+                }
+            }
+
+            if (suitableSection == null) {
+                if (reserve) {
+                    throw new NoSuitableSectionException("No suitable section found for storage conditions. Please contact administrator to create appropriate sections.");
+                }
+                return null;
             }
+
+            freeSlots.merge(suitableSection.getId(), -quantity, Integer::sum);
+            targetSections.add(suitableSection);
+        }
+        return targetSections;
+    }
+
+    /**
+     * Writes one chunk of units as JDBC batches and detaches it, so a large lot neither issues
+     * a round trip per row nor keeps every unit in the persistence context.
+     */
+    private void persistIngestChunk(List<BaseProductEntity> products, List<LotItemEntity> lotItems) {
+        if (products.isEmpty()) {
+            return;
         }
+        productRepository.saveAll(products);
+        lotItemRepository.saveAll(lotItems);
+        productSearchIndex.add(products);
+        productSupplierIndex.add(products);
+        entityManager.flush();
+        entityManager.clear();
+        products.clear();
+        lotItems.clear();
     }
 
     @Override
     public List<ProductGroupResponseDto> getGroupedProducts() {
-        List<BaseProductEntity> all = productRepository.findAll().stream()
-                .filter(product -> product.getDispatch() == null)
-                .toList();
-        return groupProducts(all);
+        return groupedStockView.groups();
+    }
+
+    @Override
+    public int rebuildGroupedProducts() {
+        return groupedStockView.rebuild();
+    }
+
+    @Override
+    public ProductSearchResponse searchProducts(String query, String type, Integer size) {
+        ProductSearchIndex.Result result = productSearchIndex.search(query, type, CursorPage.limit(size, maxPageSize));
+        return new ProductSearchResponse(result.total(), result.hits(), result.facets());
+    }
+
+    @Override
+    public int rebuildSearchIndex() {
+        return productSearchIndex.rebuild();
     }
 
     @Override
@@ -145,13 +292,13 @@ public class ProductServiceImpl implements ProductService {
         for (BaseProductEntity product : products) {
             if (product.getSlotShelf() == null && product.getSlotSection() == null) continue;
 
-            String key = generateGroupKey(product);
+            String key = product.getGroupFingerprint() != null ? product.getGroupFingerprint() : groupFingerprint(product);
             ProductGroupResponseDto dto = grouped.computeIfAbsent(key, k -> {
                 ProductGroupResponseDto newDto = new ProductGroupResponseDto();
                 newDto.setProductId(product.getId());
-                newDto.setProductType(product.getClass().getSimpleName().replace("ProductEntity", "").toUpperCase());
+                newDto.setProductType(productCodecs.of(product).groupLabel());
                 newDto.setName(product.getName());
-                newDto.setDetail(extractDetail(product));
+                newDto.setDetail(productCodecs.detail(product).toMap());
                 newDto.setCount(0);
                 return newDto;
             });
@@ -162,172 +309,63 @@ public class ProductServiceImpl implements ProductService {
         return new ArrayList<>(grouped.values());
     }
 
-    private String generateGroupKey(BaseProductEntity p) {
-        String base = p.getClass().getSimpleName() + "|" + p.getName();
-
-        if (p instanceof FoodProductEntity food) {
-            base += "|" + food.getExpirationDate() + "|" + food.getIngredients() + "|" + food.getWeight();
-        } else if (p instanceof BookProductEntity book) {
-            base += "|" + book.getAuthor() + "|" + book.getPublisher();
-        }
-
-        return base;
-    }
+    private BaseProductEntity createProduct(ProductBatchRequestDto batchRequest, Map<String, Object> productData, boolean onShelf, SectionEntity sectionEntity) {
+        BaseProductEntity product = productCodecs.create(batchRequest.getProductType(), productData);
 
-    Map<String, Object> extractDetail(BaseProductEntity p) {
-        Map<String, Object> map = new LinkedHashMap<>();
-        map.put("name", p.getName());
-        switch (p) {
-            case BookProductEntity book -> {
-                map.put("author", book.getAuthor());
-                map.put("publisher", book.getPublisher());
-                map.put("publicationDate", book.getPublicationDate());
-                map.put("genre", book.getGenre());
-                map.put("description", book.getDescription());
-            }
-            case FoodProductEntity food -> {
-                map.put("expirationDate", food.getExpirationDate());
-                map.put("ingredients", food.getIngredients());
-                map.put("weight", food.getWeight());
-            }
-            case ClothingProductEntity clothing -> {
-                map.put("material", clothing.getMaterial());
-                map.put("size", clothing.getSize());
-                map.put("branch", clothing.getBranch());
-            }
-            case CosmeticProductEntity cosmetic -> {
-                map.put("brand", cosmetic.getBrand());
-                map.put("category", cosmetic.getCategory());
-                map.put("expirationDate", cosmetic.getExpirationDate());
-                map.put("volume", cosmetic.getVolume());
-            }
-            case ElectronicsProductEntity electronics -> {
-                map.put("brand", electronics.getBrand());
-                map.put("type", electronics.getType());
-                map.put("warrantyPeriod", electronics.getWarrantyPeriod());
-                map.put("specifications", electronics.getSpecifications());
-            }
-            case RawMaterialProductEntity rawMaterial -> {
-                map.put("materialType", rawMaterial.getMaterialType());
-                map.put("unitOfMeasurement", rawMaterial.getUnitOfMeasurement());
-                map.put("supplier", rawMaterial.getSupplier());
-                map.put("deliveryDate", rawMaterial.getDeliveryDate());
-                map.put("expirationDate", rawMaterial.getExpirationDate());
-            }
-            case PharmaceuticalProductEntity pharma -> {
-                map.put("brand", pharma.getBrand());
-                map.put("genericName", pharma.getGenericName());
-                map.put("dosageForm", pharma.getDosageForm());
-                map.put("strength", pharma.getStrength());
-                map.put("expirationDate", pharma.getExpirationDate());
-                map.put("activeIngredients", pharma.getActiveIngredients());
-            }
-            default -> map.put("id", p.getId());
-        }
-        return map;
+        product.setName((String) productData.getOrDefault("name", "Unknown Product"));
+        product.setOnShelf(onShelf);
+        product.setSection(sectionEntity);
+        product.setGroupFingerprint(groupFingerprint(product));
+        return product;
     }
 
-    private boolean isSuitableForConditions(SectionEntity section, List<ProductBatchRequestDto.StorageConditionDto> requiredConditions) {
-        List<StorageConditionEntity> sectionConditions = section.getStorageConditions();
-
-        if (requiredConditions == null || requiredConditions.isEmpty()) return true;
-
-        for (ProductBatchRequestDto.StorageConditionDto required : requiredConditions) {
-            boolean matched = sectionConditions.stream().anyMatch(actual ->
-                    actual.getConditionType() == required.getConditionType()
-                            && required.getMinValue() >= actual.getMinValue()
-                            && required.getMaxValue() <= actual.getMaxValue()
-            );
+    /**
+     * Fingerprint of everything that makes two units interchangeable: the product type and the
+     * attributes {@link ProductCodecs#detail} exposes. Values are written in a form that survives a
+     * round trip through the database, so a reloaded unit hashes the same as a fresh one.
+     */
+    String groupFingerprint(BaseProductEntity product) {
+        StringBuilder canonical = new StringBuilder(productCodecs.of(product).entityType().getSimpleName());
+        productCodecs.detail(product).toMap().forEach((key, value) ->
+                canonical.append('\u001f').append(key).append('=').append(canonicalValue(value)));
 
-            if (!matched) {
-                return false;
-            }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-
-        return true;
     }
 
-    @SuppressWarnings("unchecked")
-    private BaseProductEntity createProduct(ProductBatchRequestDto batchRequest, Map<String, Object> productData, boolean onShelf, SectionEntity sectionEntity) {
-        BaseProductEntity product = switch (batchRequest.getProductType()) {
-            case BOOKS -> {
-                BookProductEntity book = new BookProductEntity();
-                book.setAuthor((String) productData.getOrDefault("author", "Unknown Author"));
-                book.setPublisher((String) productData.getOrDefault("publisher", "Unknown Publisher"));
-                book.setPublicationDate(parseDate((String) productData.get("publicationDate")));
-                book.setGenre((String) productData.getOrDefault("genre", "Unknown Genre"));
-                book.setDescription((String) productData.getOrDefault("description", ""));
-                yield book;
-            }
-            case FOOD -> {
-                FoodProductEntity food = new FoodProductEntity();
-                food.setExpirationDate(parseDate((String) productData.get("expirationDate")));
-                food.setIngredients((List<String>) productData.getOrDefault("ingredients", List.of()));
-                food.setWeight(((Number) productData.getOrDefault("weight", 0)).doubleValue());
-                yield food;
-            }
-            case ELECTRONICS -> {
-                ElectronicsProductEntity electronic = new ElectronicsProductEntity();
-                electronic.setBrand((String) productData.getOrDefault("brand", "Unknown"));
-                electronic.setType((String) productData.getOrDefault("type", "General"));
-                electronic.setWarrantyPeriod((String) productData.getOrDefault("warrantyPeriod", "N/A"));
-                electronic.setSpecifications((Map<String, String>) productData.getOrDefault("specifications", Map.of()));
-                yield electronic;
-            }
-            case CLOTHING -> {
-                ClothingProductEntity clothing = new ClothingProductEntity();
-                clothing.setMaterial((String) productData.getOrDefault("material", "Cotton"));
-                clothing.setSize(ClothingSize.valueOf(((String) productData.getOrDefault("size", "M")).toUpperCase()));
-                clothing.setBranch((String) productData.getOrDefault("branch", "Default"));
-                yield clothing;
-            }
-            case RAW_MATERIAL -> {
-                RawMaterialProductEntity raw = new RawMaterialProductEntity();
-                raw.setMaterialType((String) productData.getOrDefault("materialType", "Generic"));
-                raw.setUnitOfMeasurement((String) productData.getOrDefault("unitOfMeasurement", "kg"));
-                raw.setSupplier((String) productData.getOrDefault("supplier", "Unknown"));
-                raw.setDeliveryDate(parseDate((String) productData.get("deliveryDate")));
-                raw.setExpirationDate(parseDate((String) productData.get("expirationDate")));
-                yield raw;
-            }
-            case PHARMACEUTICALS -> {
-                PharmaceuticalProductEntity pharma = new PharmaceuticalProductEntity();
-                pharma.setBrand((String) productData.getOrDefault("brand", "Generic"));
-                pharma.setGenericName((String) productData.getOrDefault("genericName", "N/A"));
-                pharma.setDosageForm((String) productData.getOrDefault("dosageForm", "Tablet"));
-                pharma.setStrength((String) productData.getOrDefault("strength", "500mg"));
-                pharma.setExpirationDate(parseDate((String) productData.get("expirationDate")));
-                pharma.setActiveIngredients((Map<String, String>) productData.getOrDefault("activeIngredients", Map.of()));
-                yield pharma;
-            }
-            case COSMETICS -> {
-                CosmeticProductEntity cosmetic = new CosmeticProductEntity();
-                cosmetic.setBrand((String) productData.getOrDefault("brand", "Generic"));
-                cosmetic.setCategory((String) productData.getOrDefault("category", "Skincare"));
-                cosmetic.setExpirationDate(parseDate((String) productData.get("expirationDate")));
-                cosmetic.setVolume(((Number) productData.getOrDefault("volume", 0)).doubleValue());
-                yield cosmetic;
-            }
+    private static String canonicalValue(Object value) {
+        return switch (value) {
+            case null -> "\u0000";
+            case Date date -> Long.toString(date.getTime());
+            case Map<?, ?> map -> new TreeMap<>(map).toString();
+            case Collection<?> collection -> new ArrayList<>(collection).toString();
+            default -> value.toString();
         };
-
-        product.setName((String) productData.getOrDefault("name", "Unknown Product"));
-        product.setOnShelf(onShelf);
-        product.setSection(sectionEntity);
-        return product;
     }
 
-    private Date parseDate(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
-            return null;
+    /**
+     * Fills in the fingerprint of units stored before the column existed, a chunk at a time.
+     * Runs ahead of the other startup listeners, since the stock queues are keyed by it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfillGroupFingerprints() {
+        int filled = 0;
+        List<BaseProductEntity> chunk;
+        while (!(chunk = productRepository.findByGroupFingerprintIsNull(PageRequest.of(0, INGEST_BATCH_SIZE))).isEmpty()) {
+            chunk.forEach(product -> product.setGroupFingerprint(groupFingerprint(product)));
+            filled += chunk.size();
+            entityManager.flush();
+            entityManager.clear();
         }
-        try {
-            if (dateStr.contains("T")) {
-                return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").parse(dateStr);
-            } else {
-                return new SimpleDateFormat("yyyy-MM-dd").parse(dateStr);
-            }
-        } catch (ParseException e) {
-            throw new RuntimeException("Invalid date format: " + dateStr, e);
+        if (filled > 0) {
+            log.info("Group fingerprints backfilled for {} products", filled);
         }
     }
 
@@ -343,71 +381,14 @@ public class ProductServiceImpl implements ProductService {
         ProductResponse response = new ProductResponse();
         response.setName(product.getName());
 
-        switch (product) {
-            case BookProductEntity book -> {
-                book.setDispatch(null);
-                book.setLot(null);
-                response.setProductType(ProductType.BOOKS.name());
-                response.setDetail(book);
-            }
-            case FoodProductEntity food -> {
-                food.setDispatch(null);
-                food.setLot(null);
-                response.setProductType(ProductType.FOOD.name());
-                response.setDetail(food);
-            }
-            case ClothingProductEntity clothing -> {
-                clothing.setDispatch(null);
-                clothing.setLot(null);
-                response.setProductType(ProductType.CLOTHING.name());
-                response.setDetail(clothing);
-            }
-            case CosmeticProductEntity cosmetic -> {
-                cosmetic.setDispatch(null);
-                cosmetic.setLot(null);
-                response.setProductType(ProductType.COSMETICS.name());
-                response.setDetail(cosmetic);
-            }
-            case ElectronicsProductEntity electronics -> {
-                electronics.setDispatch(null);
-                electronics.setLot(null);
-                response.setProductType(ProductType.ELECTRONICS.name());
-                response.setDetail(electronics);
-            }
-            case RawMaterialProductEntity rawMaterial -> {
-                rawMaterial.setDispatch(null);
-                rawMaterial.setLot(null);
-                response.setProductType(ProductType.RAW_MATERIAL.name());
-                response.setDetail(rawMaterial);
-            }
-            case PharmaceuticalProductEntity pharma -> {
-                pharma.setDispatch(null);
-                pharma.setLot(null);
-                response.setProductType(ProductType.PHARMACEUTICALS.name());
-                response.setDetail(pharma);
-            }
-            default -> {
-                response.setProductType("UNKNOWN");
-                response.setDetail(null);
-            }
-        }
+        product.setDispatch(null);
+        product.setLot(null);
+        response.setProductType(productCodecs.of(product).type().name());
+        response.setDetail(product);
 
         return response;
     }
 
-    boolean matchesDetail(BaseProductEntity product, Map<String, Object> detail) {
-        Map<String, Object> actual = extractDetail(product);
-        if (actual.size() != detail.size()) return false;
-
-        for (Map.Entry<String, Object> entry : detail.entrySet()) {
-            Object actualVal = actual.get(entry.getKey());
-            if (actualVal == null || !actualVal.toString().equals(entry.getValue().toString())) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     @Transactional
     @Override
     public String createRetrieveRequest(ProductExportRequestDto request, UserEntity currentUser) {
@@ -422,30 +403,31 @@ public class ProductServiceImpl implements ProductService {
         dispatch.setStatus(DispatchStatus.PENDING);
         dispatch = dispatchRepository.save(dispatch);
 
+        Map<String, Integer> claimedPerGroup = new HashMap<>();
         for (ProductExportRequestDto.ProductExportItem item : request.getProducts()) {
             int quantity = item.getQuantity();
 
             BaseProductEntity reference = productRepository.findById(item.getProductId()).orElseThrow();
             StorageStrategy strategy = reference.getLot().getStorageStrategy();
-            List<BaseProductEntity> candidates = new ArrayList<>(productRepository.findAll().stream()
-                    .filter(p -> p.getDispatch() == null)
-                    .filter(p -> matchesDetail(p, extractDetail(reference)))
-                    .toList());
+            String fingerprint = reference.getGroupFingerprint() != null
+                    ? reference.getGroupFingerprint()
+                    : groupFingerprint(reference);
+            List<String> picked = stockQueues.claim(fingerprint, strategy, quantity, dispatch.getId());
 
-            if (candidates.size() < quantity) {
+            if (picked.size() < quantity) {
                 throw new StorageException("Not enough products to export for: " + reference.getName());
             }
+            claimedPerGroup.merge(fingerprint, quantity, Integer::sum);
 
-            switch (strategy) {
-                case FIFO -> candidates.sort(Comparator.comparing(p -> p.getLot().getImportDate()));
-                case LIFO ->
-                        candidates.sort(Comparator.comparing((BaseProductEntity p) -> p.getLot().getImportDate()).reversed());
-                case FEFO -> candidates.sort(Comparator.comparing(BaseProductEntity::getExpirationDate));
-                case RANDOM -> Collections.shuffle(candidates);
+            Map<String, BaseProductEntity> byId = new HashMap<>();
+            productRepository.findAllById(picked).forEach(product -> byId.put(product.getId(), product));
+            List<BaseProductEntity> selectedProducts = new ArrayList<>(quantity);
+            for (String id : picked) {
+                BaseProductEntity product = byId.get(id);
+                product.setReservedByDispatch(dispatch.getId());
+                selectedProducts.add(product);
             }
 
-            List<BaseProductEntity> selectedProducts = candidates.subList(0, quantity);
-
             String productName = reference.getName();
             DispatchItemEntity dispatchItem = new DispatchItemEntity();
             dispatchItem.setDispatch(dispatch);
@@ -457,6 +439,7 @@ public class ProductServiceImpl implements ProductService {
 
             dispatchItemRepository.save(dispatchItem);
         }
+        groupedStockView.reserve(claimedPerGroup);
 
         notificationProducerService.sendNotification("37e4db5d-7ad4-4120-99d8-19f38ec6d8c1",
                 "New retrieval request created by " + currentUser.getUsername() +
@@ -466,30 +449,37 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public List<ProductsByLotResponse> getAllProductsByLot() {
-        List<LotEntity> allLots = lotRepository.findAll();
-        return allLots.stream().map(lot -> {
-            List<BaseProductEntity> products = productRepository.findByLotId(lot.getId());
-
-            ProductsByLotResponse response = new ProductsByLotResponse();
-            response.setLotId(lot.getId());
-            response.setLotCode(lot.getLotCode());
-            response.setImportDate(lot.getImportDate());
-            response.setImportedByUser(lot.getUser() != null ? lot.getUser().getUsername() : "Unknown");
-            response.setStatus(lot.getStatus());
+    @Transactional(readOnly = true)
+    public CursorPage<ProductsByLotResponse> getAllProductsByLot(String cursor, Integer size) {
+        int limit = CursorPage.limit(size, maxPageSize);
+        return productsByLotPage(lotRepository.findPage(null, LotCursor.decode(cursor), limit + 1), limit,
+                productRepository::findByLotIdIn);
+    }
 
-            List<ProductsByLotResponse.ProductInLot> productList = products.stream().map(this::createEnhancedProductInLot).toList();
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductsByLotResponse> getProductsByLotForSupplier(UserEntity supplier, String cursor, Integer size) {
+        int limit = CursorPage.limit(size, maxPageSize);
+        return productsByLotPage(lotRepository.findPage(supplier.getId(), LotCursor.decode(cursor), limit + 1), limit,
+                productRepository::findByLotIdInAndDispatchIsNull);
+    }
 
-            response.setProducts(productList);
-            return response;
-        }).toList();
+    // Lots holds up to limit + 1 lots in keyset order; the extra one only tells whether a next page exists
+    private CursorPage<ProductsByLotResponse> productsByLotPage(List<LotEntity> lots, int limit,
+                                                                Function<List<String>, List<BaseProductEntity>> productsOfLots) {
+        String nextCursor = lots.size() > limit ? LotCursor.after(lots.get(limit - 1)).encode() : null;
+        return new CursorPage<>(productsByLot(lots.subList(0, Math.min(limit, lots.size())), productsOfLots), nextCursor);
     }
 
-    @Override
-    public List<ProductsByLotResponse> getProductsByLotForSupplier(UserEntity supplier) {
-        List<LotEntity> supplierLots = lotRepository.findByUserId(supplier.getId());
-        return supplierLots.stream().map(lot -> {
-            List<BaseProductEntity> products = productRepository.findByLotIdAndDispatchIsNull(lot.getId());
+    // The products of all lots come from one query, whose entity graph also brings what the listing shows
+    private List<ProductsByLotResponse> productsByLot(List<LotEntity> lots,
+                                                      Function<List<String>, List<BaseProductEntity>> productsOfLots) {
+        Map<String, List<BaseProductEntity>> productsByLot = lots.isEmpty() ? Map.of()
+                : productsOfLots.apply(lots.stream().map(LotEntity::getId).toList()).stream()
+                .collect(Collectors.groupingBy(product -> product.getLot().getId()));
+
+        return lots.stream().map(lot -> {
+            List<BaseProductEntity> products = productsByLot.getOrDefault(lot.getId(), List.of());
 
             ProductsByLotResponse response = new ProductsByLotResponse();
             response.setLotId(lot.getId());
@@ -506,6 +496,7 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProductsByLotResponse> getProductsByLotForSupplierOrTemporary(UserEntity user) {
         String supplierId;
 
@@ -520,112 +511,39 @@ public class ProductServiceImpl implements ProductService {
             throw new RuntimeException("User role not supported for product access");
         }
 
-        List<LotEntity> supplierLots = lotRepository.findByUserId(supplierId);
-        return supplierLots.stream().map(lot -> {
-            List<BaseProductEntity> products = productRepository.findByLotIdAndDispatchIsNull(lot.getId());
-
-            ProductsByLotResponse response = new ProductsByLotResponse();
-            response.setLotId(lot.getId());
-            response.setLotCode(lot.getLotCode());
-            response.setImportDate(lot.getImportDate());
-            response.setImportedByUser(lot.getUser() != null ? lot.getUser().getUsername() : "Unknown");
-            response.setStatus(lot.getStatus());
-
-            List<ProductsByLotResponse.ProductInLot> productList = products.stream().map(this::createEnhancedProductInLot).toList();
-
-            response.setProducts(productList);
-            return response;
-        }).toList();
+        return productsByLot(lotRepository.findByUserIdNewestFirst(supplierId), productRepository::findByLotIdInAndDispatchIsNull);
     }
 
     @Override
-    public List<ProductsByLotResponse> getProductsByLotForAdmin(
+    @Transactional(readOnly = true)
+    public CursorPage<ProductsByLotResponse> getProductsByLotForAdmin(
             String dispatchStatus, String sectionName, String productType,
             String lotCode, String productName, String supplierUsername,
-            String startDate, String endDate) {
-
-        List<LotEntity> allLots = lotRepository.findAll();
-
-        if (lotCode != null && !lotCode.trim().isEmpty()) {
-            allLots = allLots.stream()
-                    .filter(lot -> lot.getLotCode() != null &&
-                            lot.getLotCode().toLowerCase().contains(lotCode.toLowerCase()))
-                    .toList();
-        }
+            String startDate, String endDate, String cursor, Integer size) {
 
+        Date importedFrom = null;
+        Date importedTo = null;
         if (startDate != null && endDate != null && !startDate.trim().isEmpty() && !endDate.trim().isEmpty()) {
             try {
-                Date start = new SimpleDateFormat("yyyy-MM-dd").parse(startDate);
-                Date end = new SimpleDateFormat("yyyy-MM-dd").parse(endDate);
-                allLots = allLots.stream()
-                        .filter(lot -> lot.getImportDate() != null &&
-                                !lot.getImportDate().before(start) &&
-                                !lot.getImportDate().after(end))
-                        .toList();
+                importedFrom = new SimpleDateFormat("yyyy-MM-dd").parse(startDate);
+                importedTo = new SimpleDateFormat("yyyy-MM-dd").parse(endDate);
             } catch (ParseException e) {
                 System.err.println("Date parsing error: " + e.getMessage());
+                importedFrom = null;
+                importedTo = null;
             }
         }
 
-        return allLots.stream().map(lot -> {
-                    List<BaseProductEntity> products = productRepository.findByLotId(lot.getId());
-
-                    if (dispatchStatus != null && !dispatchStatus.trim().isEmpty()) {
-                        if ("IN_WAREHOUSE".equals(dispatchStatus)) {
-                            products = products.stream()
-                                    .filter(product -> product.getDispatch() == null)
-                                    .toList();
-                        } else if ("EXPORTED".equals(dispatchStatus)) {
-                            products = products.stream()
-                                    .filter(product -> product.getDispatch() != null)
-                                    .toList();
-                        }
-                    }
-
-                    if (sectionName != null && !sectionName.trim().isEmpty()) {
-                        products = products.stream()
-                                .filter(product -> product.getSection() != null &&
-                                        product.getSection().getName().toLowerCase().contains(sectionName.toLowerCase()))
-                                .toList();
-                    }
-
-                    if (productType != null && !productType.trim().isEmpty()) {
-                        products = products.stream()
-                                .filter(product -> product.getClass().getSimpleName().replace("ProductEntity", "")
-                                        .toLowerCase().contains(productType.toLowerCase()))
-                                .toList();
-                    }
-
-                    if (productName != null && !productName.trim().isEmpty()) {
-                        products = products.stream()
-                                .filter(product -> product.getName() != null &&
-                                        product.getName().toLowerCase().contains(productName.toLowerCase()))
-                                .toList();
-                    }
-
-                    if (supplierUsername != null && !supplierUsername.trim().isEmpty()) {
-                        products = products.stream()
-                                .filter(product -> product.getLot() != null &&
-                                        product.getLot().getUser() != null &&
-                                        product.getLot().getUser().getUsername().toLowerCase()
-                                                .contains(supplierUsername.toLowerCase()))
-                                .toList();
-                    }
-
-                    ProductsByLotResponse response = new ProductsByLotResponse();
-                    response.setLotId(lot.getId());
-                    response.setLotCode(lot.getLotCode());
-                    response.setImportDate(lot.getImportDate());
-                    response.setImportedByUser(lot.getUser() != null ? lot.getUser().getUsername() : "Unknown");
-                    response.setStatus(lot.getStatus());
-
-                    List<ProductsByLotResponse.ProductInLot> productList = products.stream().map(this::createEnhancedProductInLot).toList();
-
-                    response.setProducts(productList);
-                    return response;
-                })
-                .filter(response -> !response.getProducts().isEmpty())
-                .toList();
+        ProductSpecifications.Filter filter = new ProductSpecifications.Filter(dispatchStatus, sectionName,
+                productType != null && !productType.trim().isEmpty() ? productCodecs.entityTypesLabelled(productType) : null,
+                productName, lotCode, supplierUsername, importedFrom, importedTo);
+
+        int limit = CursorPage.limit(size, maxPageSize);
+        List<LotEntity> lots = lotRepository.findBy(
+                ProductSpecifications.lotsHolding(filter, LotCursor.decode(cursor)),
+                query -> query.sortBy(ProductSpecifications.LOT_ORDER).limit(limit + 1).all());
+        return productsByLotPage(lots, limit,
+                lotIds -> productRepository.findAll(ProductSpecifications.unitsOf(filter, lotIds)));
     }
 
     private ProductsByLotResponse.ProductInLot createEnhancedProductInLot(BaseProductEntity product) {
@@ -633,8 +551,8 @@ public class ProductServiceImpl implements ProductService {
 
         productItem.setProductId(product.getId());
         productItem.setProductName(product.getName());
-        productItem.setProductType(product.getClass().getSimpleName().replace("ProductEntity", ""));
-        productItem.setDetails(extractDetail(product));
+        productItem.setProductType(productCodecs.of(product).label());
+        productItem.setDetails(productCodecs.detail(product).toMap());
 
         if (product.getSection() != null) {
             productItem.setSectionId(product.getSection().getId());
@@ -646,12 +564,12 @@ public class ProductServiceImpl implements ProductService {
             if (product.getSlotShelf() != null) {
                 productItem.setShelfId(product.getSlotShelf().getShelf().getId());
                 productItem.setSlotId(product.getSlotShelf().getId());
-                locationPath.append(" → Shelf ").append(product.getSlotShelf().getShelf().getId().substring(0, 8))
-                        .append(" → Slot ").append(product.getSlotShelf().getId().substring(0, 8));
+                locationPath.append(" → Shelf ").append(TimeOrderedIds.shortForm(product.getSlotShelf().getShelf().getId()))
+                        .append(" → Slot ").append(TimeOrderedIds.shortForm(product.getSlotShelf().getId()));
                 productItem.setOnShelf(true);
             } else if (product.getSlotSection() != null) {
                 productItem.setSlotId(product.getSlotSection().getId());
-                locationPath.append(" → Slot ").append(product.getSlotSection().getId().substring(0, 8));
+                locationPath.append(" → Slot ").append(TimeOrderedIds.shortForm(product.getSlotSection().getId()));
                 productItem.setOnShelf(false);
             } else {
                 locationPath.append(" → Location Pending");
@@ -681,18 +599,8 @@ public class ProductServiceImpl implements ProductService {
             productItem.setBuyerUsername(null);
         }
 
-        productItem.setExpirationDate(getExpirationDate(product));
+        productItem.setExpirationDate(product.getExpirationDate());
 
         return productItem;
     }
-
-    private Date getExpirationDate(BaseProductEntity product) {
-        return switch (product) {
-            case FoodProductEntity food -> food.getExpirationDate();
-            case CosmeticProductEntity cosmetic -> cosmetic.getExpirationDate();
-            case PharmaceuticalProductEntity pharma -> pharma.getExpirationDate();
-            case RawMaterialProductEntity raw -> raw.getExpirationDate();
-            default -> null;
-        };
-    }
 }
\ No newline at end of file
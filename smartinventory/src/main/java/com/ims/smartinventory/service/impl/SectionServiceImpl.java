@@ -12,13 +12,19 @@ import com.ims.smartinventory.dto.Response.SlotInfo;
 import com.ims.smartinventory.repository.SectionRepository;
 import com.ims.smartinventory.repository.WarehouseRepository;
 import com.ims.smartinventory.service.SectionService;
+import com.ims.smartinventory.storage.SectionConditionIndex;
+import com.ims.smartinventory.storage.SectionOccupancy;
+import com.ims.smartinventory.storage.SlotIndex;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -28,22 +34,36 @@ public class SectionServiceImpl implements SectionService {
     private final SectionRepository sectionRepository;
     private final WarehouseRepository warehouseRepository;
     private final NotificationProducerServiceImpl notificationProducerService;
-
-    public SectionServiceImpl(SectionRepository sectionRepository, WarehouseRepository warehouseRepository, NotificationProducerServiceImpl notificationProducerService) {
+    private final SlotIndex slotIndex;
+    private final SectionOccupancy sectionOccupancy;
+    private final SectionConditionIndex sectionConditionIndex;
+    private final boolean virtualSlots;
+
+    public SectionServiceImpl(SectionRepository sectionRepository, WarehouseRepository warehouseRepository,
+                              NotificationProducerServiceImpl notificationProducerService, SlotIndex slotIndex,
+                              SectionOccupancy sectionOccupancy, SectionConditionIndex sectionConditionIndex,
+                              @Value("${inventory.slots.virtual:false}") boolean virtualSlots) {
         this.sectionRepository = sectionRepository;
         this.warehouseRepository = warehouseRepository;
         this.notificationProducerService = notificationProducerService;
+        this.slotIndex = slotIndex;
+        this.sectionOccupancy = sectionOccupancy;
+        this.sectionConditionIndex = sectionConditionIndex;
+        this.virtualSlots = virtualSlots;
     }
 
     @Transactional
     @Override
     public SectionEntity createSection(SectionRequestDto sectionRequest) {
-        WarehouseEntity warehouse = warehouseRepository.findById("unique_warehouse")
-                .orElseThrow(() -> new RuntimeException("Warehouse with ID 'unique_warehouse' not found"));
+        String warehouseId = sectionRequest.getWarehouseId() != null
+                ? sectionRequest.getWarehouseId()
+                : WarehouseEntity.DEFAULT_ID;
+        WarehouseEntity warehouse = warehouseRepository.findById(warehouseId)
+                .orElseThrow(() -> new RuntimeException("Warehouse with ID '" + warehouseId + "' not found"));
 
         int requiredSlots = sectionRequest.getRequiredSlot();
 
-        if (!warehouse.hasAvailableSlots(requiredSlots)) {
+        if (warehouseRepository.reserveSlots(warehouse.getId(), requiredSlots) == 0) {
             throw new RuntimeException("Not enough slots in the warehouse");
         }
 
@@ -79,6 +99,7 @@ public class SectionServiceImpl implements SectionService {
         section.setX(newX);
         section.setY(newY);
         section.setY_slot(sectionRequest.getY_slot());
+        section.setVirtualSlots(virtualSlots);
 
         List<StorageConditionEntity> storageConditions = sectionRequest.getStorageConditions().stream()
                 .map(cond -> {
@@ -120,14 +141,16 @@ public class SectionServiceImpl implements SectionService {
                 shelf.setSlotsPerShelf(6 * sectionRequest.getShelf_height());
 
                 List<SlotShelf> slotShelves = new ArrayList<>();
-                for (int x = 0; x < sectionRequest.getShelf_height(); x++) {
-                    for (int y = 0; y < 6; y++) {
-                        SlotShelf slot = new SlotShelf();
-                        slot.setShelf(shelf);
-                        slot.setX(x);
-                        slot.setY(y);
-                        slot.setOccupied(false);
-                        slotShelves.add(slot);
+                if (!virtualSlots) {
+                    for (int x = 0; x < sectionRequest.getShelf_height(); x++) {
+                        for (int y = 0; y < 6; y++) {
+                            SlotShelf slot = new SlotShelf();
+                            slot.setShelf(shelf);
+                            slot.setX(x);
+                            slot.setY(y);
+                            slot.setOccupied(false);
+                            slotShelves.add(slot);
+                        }
                     }
                 }
 
@@ -139,24 +162,31 @@ public class SectionServiceImpl implements SectionService {
             section.setSlotSections(null);
         } else {
             List<SlotSection> slotSections = new ArrayList<>();
-            for (int i = 0; i < requiredSlots; i++) {
-                SlotSection slot = new SlotSection();
-                slot.setSection(section);
-                slot.setXPosition(i % 6);
-                slot.setYPosition(i / 6);
-                slot.setOccupied(false);
-                slotSections.add(slot);
+            if (!virtualSlots) {
+                for (int i = 0; i < requiredSlots; i++) {
+                    SlotSection slot = new SlotSection();
+                    slot.setSection(section);
+                    slot.setXPosition(i % 6);
+                    slot.setYPosition(i / 6);
+                    slot.setOccupied(false);
+                    slotSections.add(slot);
+                }
             }
             section.setSlotSections(slotSections);
             section.setShelves(null);
             section.setNumShelves(0);
         }
-        warehouse.setUsedSlots(warehouse.getUsedSlots() + requiredSlots);
+        section.setTotalSlots(section.computeGridSlots());
+        section.setUsedSlots(0);
+
+        SectionEntity savedSection = sectionRepository.save(section);
+        slotIndex.registerSection(savedSection);
+        sectionOccupancy.register(savedSection);
+        sectionConditionIndex.register(savedSection);
 
-        warehouseRepository.save(warehouse);
         notificationProducerService.sendNotification("37e4db5d-7ad4-4120-99d8-19f38ec6d8c1",
                 "Section " + section.getName() + " was created at" + section.getCreatedAt());
-        return sectionRepository.save(section);
+        return savedSection;
     }
 
     @Override
@@ -173,13 +203,22 @@ public class SectionServiceImpl implements SectionService {
                             shelf.getSlotsPerShelf()
                     )).toList();
         } else {
-            return section.getSlotSections().stream()
-                    .map(slot -> new SlotInfo(
-                            slot.getId(),
-                            slot.getXPosition(),
-                            slot.getYPosition(),
-                            slot.isOccupied()
-                    )).toList();
+            // As deep as the slot index sees the floor, so rows past y_slot are listed too
+            Map<Integer, SlotSection> rows = new HashMap<>();
+            int depth = section.getY_slot();
+            for (SlotSection slot : section.getSlotSections()) {
+                rows.put(slot.getYPosition() * 6 + slot.getXPosition(), slot);
+                depth = Math.max(depth, slot.getYPosition() + 1);
+            }
+
+            List<SlotInfo> slots = new ArrayList<>(6 * depth);
+            for (int i = 0; i < 6 * depth; i++) {
+                SlotSection slot = rows.get(i);
+                slots.add(slot != null
+                        ? new SlotInfo(slot.getId(), slot.getXPosition(), slot.getYPosition(), slot.isOccupied())
+                        : SlotInfo.vacant(section.getId(), i % 6, i / 6));
+            }
+            return slots;
         }
     }
 
@@ -193,18 +232,7 @@ public class SectionServiceImpl implements SectionService {
             throw new RuntimeException("Section is already terminated");
         }
 
-        boolean hasOccupiedSlots = false;
-
-        if (section.getNumShelves() > 0) {
-            hasOccupiedSlots = section.getShelves().stream()
-                    .anyMatch(shelf -> shelf.getSlotShelves().stream()
-                            .anyMatch(SlotShelf::isOccupied));
-        } else {
-            hasOccupiedSlots = section.getSlotSections().stream()
-                    .anyMatch(SlotSection::isOccupied);
-        }
-
-        if (hasOccupiedSlots) {
+        if (sectionOccupancy.usedSlots(section) > 0) {
             throw new RuntimeException("Cannot terminate section with occupied slots. Please relocate items first.");
         }
 
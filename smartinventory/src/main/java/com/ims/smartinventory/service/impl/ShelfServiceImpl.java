@@ -1,12 +1,16 @@
 package com.ims.smartinventory.service.impl;
 
 import com.ims.common.entity.storage.ShelfEntity;
+import com.ims.common.entity.storage.SlotShelf;
 import com.ims.smartinventory.dto.Response.SlotInfo;
 import com.ims.smartinventory.repository.ShelfRepository;
 import com.ims.smartinventory.service.ShelfService;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ShelfServiceImpl implements ShelfService {
@@ -22,13 +26,22 @@ public class ShelfServiceImpl implements ShelfService {
         ShelfEntity shelf = shelfRepository.findById(shelfId)
                 .orElseThrow(() -> new RuntimeException("Shelf not found"));
 
-        return shelf.getSlotShelves().stream()
-                .map(slot -> new SlotInfo(
-                        slot.getId(),
-                        slot.getX(),
-                        slot.getY(),
-                        slot.isOccupied()
-                )).toList();
+        Map<Integer, SlotShelf> rows = new HashMap<>();
+        for (SlotShelf slot : shelf.getSlotShelves()) {
+            rows.put(slot.getX() * 6 + slot.getY(), slot);
+        }
+
+        // Virtual sections only keep rows for occupied slots, so walk the grid instead of the rows
+        List<SlotInfo> slots = new ArrayList<>(shelf.getHeight() * 6);
+        for (int x = 0; x < shelf.getHeight(); x++) {
+            for (int y = 0; y < 6; y++) {
+                SlotShelf slot = rows.get(x * 6 + y);
+                slots.add(slot != null
+                        ? new SlotInfo(slot.getId(), x, y, slot.isOccupied())
+                        : SlotInfo.vacant(shelf.getId(), x, y));
+            }
+        }
+        return slots;
     }
 
 }
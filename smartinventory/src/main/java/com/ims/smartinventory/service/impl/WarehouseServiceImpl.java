@@ -1,16 +1,22 @@
 package com.ims.smartinventory.service.impl;
 
 import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.WarehouseEntity;
 import com.ims.common.entity.management.InventoryTransactionEntity;
 import com.ims.common.entity.management.LotEntity;
 import com.ims.common.entity.management.LotItemEntity;
 import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.id.TimeOrderedIds;
+import com.ims.smartinventory.dto.Request.WarehouseRequestDto;
 import com.ims.smartinventory.dto.Response.SectionInfoResponse;
+import com.ims.smartinventory.dto.Response.WarehouseResponse;
 import com.ims.smartinventory.dto.Response.WarehouseRevenueResponse;
 import com.ims.smartinventory.repository.*;
 import com.ims.smartinventory.service.WarehouseService;
+import com.ims.smartinventory.storage.SectionOccupancy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -23,23 +29,23 @@ import java.util.*;
 public class WarehouseServiceImpl implements WarehouseService {
 
     private final SectionRepository sectionRepository;
-    private final SlotShelfRepository slotShelfRepository;
-    private final SlotSectionRepository slotSectionRepository;
     private final ProductRepository productRepository;
     private final InventoryTransactionRepository inventoryTransactionRepository;
     private final LotItemRepository lotItemRepository;
+    private final SectionOccupancy sectionOccupancy;
+    private final WarehouseRepository warehouseRepository;
 
     @Autowired
-    public WarehouseServiceImpl(SectionRepository sectionRepository, SlotShelfRepository slotShelfRepository,
-                                SlotSectionRepository slotSectionRepository, ProductRepository productRepository,
+    public WarehouseServiceImpl(SectionRepository sectionRepository, ProductRepository productRepository,
                                 InventoryTransactionRepository inventoryTransactionRepository,
-                                LotItemRepository lotItemRepository) {
+                                LotItemRepository lotItemRepository, SectionOccupancy sectionOccupancy,
+                                WarehouseRepository warehouseRepository) {
         this.sectionRepository = sectionRepository;
-        this.slotShelfRepository = slotShelfRepository;
-        this.slotSectionRepository = slotSectionRepository;
         this.productRepository = productRepository;
         this.inventoryTransactionRepository = inventoryTransactionRepository;
         this.lotItemRepository = lotItemRepository;
+        this.sectionOccupancy = sectionOccupancy;
+        this.warehouseRepository = warehouseRepository;
     }
 
 
@@ -50,14 +56,54 @@ public class WarehouseServiceImpl implements WarehouseService {
 
     @Override
     public List<SectionInfoResponse> getAllSection() {
-        List<SectionEntity> sections = sectionRepository.findAll();
+        return toSectionInfo(sectionRepository.findAllWithStorageConditions());
+    }
 
-        return sections.stream().map(section -> {
-            int totalSlots = section.getTotalSlots();
+    @Override
+    public List<SectionInfoResponse> getSectionsByWarehouse(String warehouseId) {
+        return toSectionInfo(sectionRepository.findAllWithStorageConditions().stream()
+                .filter(section -> section.getWarehouse() != null && warehouseId.equals(section.getWarehouse().getId()))
+                .toList());
+    }
 
-            int usedSlots = section.getShelves() != null && !section.getShelves().isEmpty()
-                    ? slotShelfRepository.countUsedBySectionId(section.getId())
-                    : slotSectionRepository.countUsedBySectionId(section.getId());
+    @Override
+    @Transactional
+    public WarehouseResponse createWarehouse(WarehouseRequestDto request) {
+        if (request.getTotalSlots() <= 0) {
+            throw new RuntimeException("Warehouse capacity must be positive");
+        }
+
+        WarehouseEntity warehouse = new WarehouseEntity();
+        warehouse.setId(TimeOrderedIds.next());
+        warehouse.setName(request.getName());
+        warehouse.setTotalSlots(request.getTotalSlots());
+        warehouse.setUsedSlots(0);
+        warehouse = warehouseRepository.save(warehouse);
+
+        return toWarehouseResponse(warehouse);
+    }
+
+    @Override
+    public List<WarehouseResponse> getWarehouses() {
+        return warehouseRepository.findAll().stream()
+                .map(this::toWarehouseResponse)
+                .toList();
+    }
+
+    private WarehouseResponse toWarehouseResponse(WarehouseEntity warehouse) {
+        return new WarehouseResponse(
+                warehouse.getId(),
+                warehouse.getName(),
+                warehouse.getTotalSlots(),
+                warehouse.getUsedSlots(),
+                sectionRepository.countByWarehouseId(warehouse.getId())
+        );
+    }
+
+    private List<SectionInfoResponse> toSectionInfo(List<SectionEntity> sections) {
+        return sections.stream().map(section -> {
+            int totalSlots = sectionOccupancy.totalSlots(section);
+            int usedSlots = sectionOccupancy.usedSlots(section);
 
             List<SectionInfoResponse.StorageConditionDto> conditionDtos = section.getStorageConditions().stream()
                     .map(cond -> new SectionInfoResponse.StorageConditionDto(
@@ -90,7 +136,8 @@ public class WarehouseServiceImpl implements WarehouseService {
                     usedSlots,
                     section.getStatus(),
                     conditionDtos,
-                    priceInfo
+                    priceInfo,
+                    section.getWarehouse() != null ? section.getWarehouse().getId() : WarehouseEntity.DEFAULT_ID
             );
         }).toList();
     }
@@ -0,0 +1,182 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.smartinventory.repository.DispatchItemRepository;
+import com.ims.smartinventory.repository.LotRepository;
+import com.ims.smartinventory.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Prices dispatches from the lots their units came from.
+ * <p>
+ * A unit costs the price of its lot item when that has one, otherwise the price of its lot. The
+ * units of any number of dispatches are counted per item, lot and lot item price in one grouped
+ * query. Lot prices are fixed when the lot is stored, so they are kept in a bounded LRU cache and a
+ * page of dispatch history mostly prices from memory.
+ */
+@Component
+public class DispatchValuation {
+
+    private static final String DEFAULT_CURRENCY = "VND";
+
+    private final DispatchItemRepository dispatchItemRepository;
+    private final ProductRepository productRepository;
+    private final LotRepository lotRepository;
+
+    // Access-ordered, so the least recently priced lot is evicted first; empty for lots without a price
+    private final Map<String, Optional<Price>> lotPrices;
+
+    public DispatchValuation(DispatchItemRepository dispatchItemRepository, ProductRepository productRepository,
+                             LotRepository lotRepository,
+                             @Value("${inventory.pricing.lot-price-cache-size:10000}") int cacheSize) {
+        this.dispatchItemRepository = dispatchItemRepository;
+        this.productRepository = productRepository;
+        this.lotRepository = lotRepository;
+        this.lotPrices = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<Price>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public record Price(double value, String currency) {
+    }
+
+    /**
+     * @param unitPrice average price of the item's priced units, or null if none has a price
+     */
+    public record ItemValue(Price unitPrice, double subtotal) {
+        static final ItemValue NONE = new ItemValue(null, 0);
+    }
+
+    /**
+     * @param currency currency of the last priced item, as a dispatch is not expected to mix them
+     */
+    public record Valuation(Map<String, ItemValue> items, double total, String currency) {
+        public ItemValue item(String itemId) {
+            return items.getOrDefault(itemId, ItemValue.NONE);
+        }
+    }
+
+    public Valuation value(String dispatchId) {
+        return value(List.of(dispatchId)).get(dispatchId);
+    }
+
+    /**
+     * Values the dispatches, keyed by dispatch id, in at most three queries however many there are.
+     */
+    public Map<String, Valuation> value(Collection<String> dispatchIds) {
+        if (dispatchIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Map<String, List<Units>>> unitsByItem = new HashMap<>();
+        Map<String, List<Reference>> references = new HashMap<>();
+        for (DispatchItemRepository.LotUnits row : dispatchItemRepository.countUnitsByLot(dispatchIds)) {
+            List<Units> units = unitsByItem.computeIfAbsent(row.getDispatchId(), id -> new LinkedHashMap<>())
+                    .computeIfAbsent(row.getItemId(), id -> new ArrayList<>());
+            if (row.getUnits() > 0) {
+                units.add(new Units(row.getLotId(), price(row.getItemPrice(), row.getItemCurrency()), row.getUnits()));
+            } else if (row.getProductId() != null) {
+                references.computeIfAbsent(row.getProductId(), id -> new ArrayList<>()).add(new Reference(units, row.getQuantity()));
+            }
+        }
+        addReferencedUnits(references);
+
+        Map<String, Optional<Price>> prices = lotPrices(unitsByItem.values().stream()
+                .flatMap(items -> items.values().stream())
+                .flatMap(List::stream)
+                .filter(units -> units.itemPrice() == null)
+                .map(Units::lotId)
+                .collect(Collectors.toSet()));
+
+        Map<String, Valuation> valuations = new HashMap<>();
+        for (String dispatchId : dispatchIds) {
+            Map<String, ItemValue> items = new HashMap<>();
+            double total = 0;
+            String currency = DEFAULT_CURRENCY;
+            for (Map.Entry<String, List<Units>> item : unitsByItem.getOrDefault(dispatchId, Map.of()).entrySet()) {
+                ItemValue value = valueOf(item.getValue(), prices);
+                items.put(item.getKey(), value);
+                total += value.subtotal();
+                if (value.unitPrice() != null) {
+                    currency = value.unitPrice().currency();
+                }
+            }
+            valuations.put(dispatchId, new Valuation(items, total, currency));
+        }
+        return valuations;
+    }
+
+    // Items created before units were attached to them only reference one unit and a quantity
+    private void addReferencedUnits(Map<String, List<Reference>> references) {
+        if (references.isEmpty()) {
+            return;
+        }
+        for (ProductRepository.UnitLot unit : productRepository.findUnitLots(references.keySet())) {
+            Price itemPrice = price(unit.getItemPrice(), unit.getItemCurrency());
+            for (Reference reference : references.get(unit.getProductId())) {
+                reference.units().add(new Units(unit.getLotId(), itemPrice, reference.quantity()));
+            }
+        }
+    }
+
+    private Map<String, Optional<Price>> lotPrices(Set<String> lotIds) {
+        Map<String, Optional<Price>> prices = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (lotPrices) {
+            for (String lotId : lotIds) {
+                Optional<Price> price = lotPrices.get(lotId);
+                if (price != null) {
+                    prices.put(lotId, price);
+                } else {
+                    missing.add(lotId);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return prices;
+        }
+
+        Map<String, Optional<Price>> loaded = new HashMap<>();
+        for (LotRepository.LotPrice row : lotRepository.findPrices(missing)) {
+            loaded.put(row.getLotId(), Optional.ofNullable(price(row.getValue(), row.getCurrency())));
+        }
+        synchronized (lotPrices) {
+            lotPrices.putAll(loaded);
+        }
+        prices.putAll(loaded);
+        return prices;
+    }
+
+    private static ItemValue valueOf(List<Units> units, Map<String, Optional<Price>> lotPrices) {
+        double subtotal = 0;
+        long pricedUnits = 0;
+        String currency = null;
+        for (Units group : units) {
+            Price price = group.itemPrice() != null
+                    ? group.itemPrice()
+                    : lotPrices.getOrDefault(group.lotId(), Optional.empty()).orElse(null);
+            if (price != null) {
+                subtotal += price.value() * group.count();
+                pricedUnits += group.count();
+                currency = price.currency();
+            }
+        }
+        return pricedUnits > 0 ? new ItemValue(new Price(subtotal / pricedUnits, currency), subtotal) : ItemValue.NONE;
+    }
+
+    private static Price price(Double value, String currency) {
+        return value != null ? new Price(value, currency != null ? currency : DEFAULT_CURRENCY) : null;
+    }
+
+    private record Units(String lotId, Price itemPrice, long count) {
+    }
+
+    private record Reference(List<Units> units, int quantity) {
+    }
+}
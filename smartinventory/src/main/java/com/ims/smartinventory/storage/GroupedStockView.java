@@ -0,0 +1,197 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.config.LotStatus;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.smartinventory.catalog.ProductCodec;
+import com.ims.smartinventory.catalog.ProductCodecs;
+import com.ims.smartinventory.dto.Request.ProductGroupResponseDto;
+import com.ims.smartinventory.repository.ProductRepository;
+import com.ims.smartinventory.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock on hand per product group, as listed by {@code /inventory/retrieveAll}.
+ * <p>
+ * One row per group fingerprint holds the unit count, how many of those units pending dispatches
+ * have claimed, and the detail of the first unit seen, whose id stands for the group in export
+ * requests. When that unit is dispatched, the earliest imported unit left in {@link StockQueues}
+ * takes its place. Only unclaimed units are counted in the listing. Rows follow lot acceptance and
+ * dispatch requests, rejections and acceptance after commit, so reading the view never touches the
+ * product table. The list handed out is built once per change and then served as is.
+ */
+@Slf4j
+@Component
+public class GroupedStockView {
+
+    private final ProductRepository productRepository;
+    private final ProductCodecs productCodecs;
+    private final StockQueues stockQueues;
+
+    private final Map<String, Row> rows = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public GroupedStockView(ProductRepository productRepository, ProductCodecs productCodecs, StockQueues stockQueues) {
+        this.productRepository = productRepository;
+        this.productCodecs = productCodecs;
+        this.stockQueues = stockQueues;
+    }
+
+    /**
+     * Recomputes every row from the units in stock.
+     *
+     * @return number of product groups
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        Map<String, Row> rebuilt = new LinkedHashMap<>();
+        for (BaseProductEntity product : productRepository.findInStock(LotStatus.ACCEPTED)) {
+            if (product.getGroupFingerprint() == null) continue;
+            int claimed = product.getReservedByDispatch() != null ? 1 : 0;
+            rebuilt.compute(product.getGroupFingerprint(), (fingerprint, row) -> row == null
+                    ? Row.of(product, productCodecs.of(product)).claiming(claimed)
+                    : row.plus(1).claiming(claimed));
+        }
+
+        rows.clear();
+        rows.putAll(rebuilt);
+        version.incrementAndGet();
+        log.info("Grouped stock view built for {} product groups", rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Counts the units of an accepted lot once the surrounding transaction commits.
+     */
+    public void add(Collection<BaseProductEntity> products) {
+        List<Row> added = products.stream()
+                .filter(product -> product.getGroupFingerprint() != null)
+                .map(product -> Row.of(product, productCodecs.of(product)))
+                .toList();
+
+        TransactionHooks.afterCommit(() -> {
+            added.forEach(row -> rows.merge(row.fingerprint(), row, (current, unit) -> current.plus(1)));
+            version.incrementAndGet();
+        });
+    }
+
+    /**
+     * Holds back units claimed by a pending dispatch once the surrounding transaction commits.
+     *
+     * @param units number of claimed units per group fingerprint
+     */
+    public void reserve(Map<String, Integer> units) {
+        Map<String, Integer> reserved = Map.copyOf(units);
+
+        TransactionHooks.afterCommit(() -> {
+            reserved.forEach((fingerprint, count) -> rows.computeIfPresent(fingerprint, (key, row) -> row.claiming(count)));
+            version.incrementAndGet();
+        });
+    }
+
+    /**
+     * Lists again the units of a dispatch that will not go out once the surrounding transaction commits.
+     *
+     * @param units number of released units per group fingerprint
+     */
+    public void release(Map<String, Integer> units) {
+        Map<String, Integer> released = Map.copyOf(units);
+
+        TransactionHooks.afterCommit(() -> {
+            released.forEach((fingerprint, count) -> rows.computeIfPresent(fingerprint, (key, row) -> row.claiming(-count)));
+            version.incrementAndGet();
+        });
+    }
+
+    /**
+     * Uncounts dispatched units, which their dispatch had claimed, once the surrounding transaction commits.
+     *
+     * @param fingerprints group fingerprint of each dispatched unit, by unit id
+     */
+    public void remove(Map<String, String> fingerprints) {
+        Set<String> removedIds = Set.copyOf(fingerprints.keySet());
+        Map<String, Integer> removed = new HashMap<>();
+        fingerprints.values().forEach(fingerprint -> removed.merge(fingerprint, 1, Integer::sum));
+
+        TransactionHooks.afterCommit(() -> {
+            removed.forEach((fingerprint, count) -> rows.computeIfPresent(fingerprint, (key, row) -> {
+                if (row.count() <= count) {
+                    return null;
+                }
+                String representative = removedIds.contains(row.productId())
+                        ? stockQueues.firstUnit(fingerprint, removedIds)
+                        : null;
+                Row left = row.minus(count).claiming(-count);
+                return representative != null ? left.representedBy(representative) : left;
+            }));
+            version.incrementAndGet();
+        });
+    }
+
+    public List<ProductGroupResponseDto> groups() {
+        long current = version.get();
+        Snapshot cached = snapshot;
+        if (cached != null && cached.version() == current) {
+            return cached.groups();
+        }
+
+        List<ProductGroupResponseDto> groups = rows.values().stream()
+                .filter(row -> row.available() > 0)
+                .map(Row::toDto)
+                .toList();
+        snapshot = new Snapshot(current, groups);
+        return groups;
+    }
+
+    private record Row(String fingerprint, String productId, String productType, String name,
+                       Map<String, Object> detail, int count, int claimed) {
+        // The detail holds copies, so element collections are not read lazily after the session is gone
+        static Row of(BaseProductEntity product, ProductCodec<?, ?> codec) {
+            return new Row(product.getGroupFingerprint(), product.getId(), codec.groupLabel(),
+                    product.getName(), codec.detailOf(product).toMap(), 1, 0);
+        }
+
+        Row plus(int units) {
+            return new Row(fingerprint, productId, productType, name, detail, count + units, claimed);
+        }
+
+        Row minus(int units) {
+            return new Row(fingerprint, productId, productType, name, detail, count - units, claimed);
+        }
+
+        // Never below zero, in case a claim restored at startup was not yet on the unit when the view was built
+        Row claiming(int units) {
+            return new Row(fingerprint, productId, productType, name, detail, count, Math.max(0, claimed + units));
+        }
+
+        Row representedBy(String unitId) {
+            return new Row(fingerprint, unitId, productType, name, detail, count, claimed);
+        }
+
+        int available() {
+            return count - claimed;
+        }
+
+        ProductGroupResponseDto toDto() {
+            ProductGroupResponseDto dto = new ProductGroupResponseDto();
+            dto.setProductId(productId);
+            dto.setProductType(productType);
+            dto.setName(name);
+            dto.setDetail(new LinkedHashMap<>(detail));
+            dto.setCount(available());
+            return dto;
+        }
+    }
+
+    private record Snapshot(long version, List<ProductGroupResponseDto> groups) {
+    }
+}
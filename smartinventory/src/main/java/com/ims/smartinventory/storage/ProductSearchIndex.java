@@ -0,0 +1,290 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.config.LotStatus;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.smartinventory.catalog.ProductCodec;
+import com.ims.smartinventory.catalog.ProductCodecs;
+import com.ims.smartinventory.dto.Request.ProductGroupResponseDto;
+import com.ims.smartinventory.repository.ProductRepository;
+import com.ims.smartinventory.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over the product catalog: the units of pending and accepted lots that have not
+ * been dispatched.
+ * <p>
+ * Interchangeable units share a group fingerprint and every searchable attribute, so the index
+ * holds one entry per group with its unit count rather than one per unit. Terms are the
+ * lower-cased words of the name and of every value the type's {@link ProductCodec} exposes
+ * (author, brand, ingredients, specification keys and values, ...). A query matches the entries
+ * holding all of its words, the last word taken as a prefix so that partial input already finds
+ * something.
+ * <p>
+ * Units enter when their batch commits and leave when their lot is rejected or their dispatch
+ * accepted. Writers are serialized; searches read the concurrent maps without locking.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final Set<LotStatus> INDEXED_LOTS = EnumSet.of(LotStatus.PENDING, LotStatus.ACCEPTED);
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int REBUILD_CHUNK = 1000;
+    // Most units first, then by name
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::count).reversed()
+            .thenComparing(Entry::name, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Entry::fingerprint);
+
+    private final ProductRepository productRepository;
+    private final ProductCodecs productCodecs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+
+    public ProductSearchIndex(ProductRepository productRepository, ProductCodecs productCodecs) {
+        this.productRepository = productRepository;
+        this.productCodecs = productCodecs;
+    }
+
+    /**
+     * Re-reads the catalog: a count per group, then one unit of each group for its attributes.
+     *
+     * @return number of product groups indexed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized int rebuild() {
+        Map<String, ProductRepository.GroupCount> groups = new HashMap<>();
+        for (ProductRepository.GroupCount group : productRepository.countUndispatchedByGroup(INDEXED_LOTS)) {
+            groups.put(group.getSampleId(), group);
+        }
+
+        Map<String, Entry> rebuilt = new HashMap<>();
+        List<String> sampleIds = new ArrayList<>(groups.keySet());
+        for (int from = 0; from < sampleIds.size(); from += REBUILD_CHUNK) {
+            List<String> chunk = sampleIds.subList(from, Math.min(from + REBUILD_CHUNK, sampleIds.size()));
+            for (BaseProductEntity sample : productRepository.findAllById(chunk)) {
+                Entry entry = entryOf(sample);
+                rebuilt.put(entry.fingerprint(), entry.withCount((int) groups.get(sample.getId()).getUnits()));
+            }
+        }
+
+        entries.clear();
+        postings.clear();
+        rebuilt.values().forEach(this::put);
+        log.info("Product search index built for {} product groups ({} terms)", entries.size(), postings.size());
+        return entries.size();
+    }
+
+    /**
+     * Indexes newly stored units once the surrounding transaction commits.
+     */
+    public void add(Collection<BaseProductEntity> products) {
+        Map<String, Entry> added = new HashMap<>();
+        for (BaseProductEntity product : products) {
+            if (product.getGroupFingerprint() == null) continue;
+            added.merge(product.getGroupFingerprint(), entryOf(product), (current, unit) -> current.withCount(current.count() + 1));
+        }
+
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                added.values().forEach(entry -> {
+                    Entry current = entries.get(entry.fingerprint());
+                    if (current == null) {
+                        put(entry);
+                    } else {
+                        entries.put(entry.fingerprint(), current.withCount(current.count() + entry.count()));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Drops units that left the catalog once the surrounding transaction commits.
+     *
+     * @param units number of units per group fingerprint
+     */
+    public void remove(Map<String, Integer> units) {
+        removeCounts(Map.copyOf(units));
+    }
+
+    /**
+     * Drops counted units, such as those of a rejected lot, once the surrounding transaction commits.
+     */
+    public void removeGroups(Collection<ProductRepository.GroupCount> groups) {
+        Map<String, Integer> removed = new HashMap<>();
+        groups.forEach(group -> removed.merge(group.getFingerprint(), (int) group.getUnits(), Integer::sum));
+        removeCounts(removed);
+    }
+
+    private void removeCounts(Map<String, Integer> removed) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                removed.forEach((fingerprint, count) -> {
+                    Entry current = entries.get(fingerprint);
+                    if (current == null) {
+                        return;
+                    }
+                    if (current.count() > count) {
+                        entries.put(fingerprint, current.withCount(current.count() - count));
+                    } else {
+                        drop(current);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Groups matching every word of the query, most units first, with the number of matching
+     * units per product type. The type filter narrows the hits but not the facets, so they still
+     * show what the other types would return.
+     *
+     * @param type group label such as {@code BOOK}, or null for every type
+     */
+    public Result search(String query, String type, int limit) {
+        List<String> words = words(query);
+        Collection<Entry> matches = words.isEmpty() ? entries.values() : match(words);
+
+        Map<String, Long> facets = new TreeMap<>();
+        List<Entry> hits = new ArrayList<>();
+        for (Entry entry : matches) {
+            facets.merge(entry.productType(), (long) entry.count(), Long::sum);
+            if (type == null || type.isBlank() || entry.productType().equalsIgnoreCase(type)) {
+                hits.add(entry);
+            }
+        }
+
+        return new Result(hits.size(), top(hits, limit).stream().map(Entry::toDto).toList(), facets);
+    }
+
+    public record Result(int total, List<ProductGroupResponseDto> hits, Map<String, Long> facets) {
+    }
+
+    // Starts from the rarest word and checks the others against it
+    private Collection<Entry> match(List<String> words) {
+        List<Set<String>> sets = new ArrayList<>(words.size());
+        for (int i = 0; i < words.size(); i++) {
+            Set<String> fingerprints = i < words.size() - 1 ? postings.get(words.get(i)) : prefixed(words.get(i));
+            if (fingerprints == null || fingerprints.isEmpty()) {
+                return List.of();
+            }
+            sets.add(fingerprints);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        List<Entry> matches = new ArrayList<>();
+        for (String fingerprint : sets.getFirst()) {
+            if (sets.stream().skip(1).allMatch(set -> set.contains(fingerprint))) {
+                Entry entry = entries.get(fingerprint);
+                if (entry != null) {
+                    matches.add(entry);
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Keeps the best limit hits in a bounded heap instead of sorting every match
+    private static List<Entry> top(List<Entry> hits, int limit) {
+        PriorityQueue<Entry> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Entry hit : hits) {
+            best.add(hit);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Entry> page = new ArrayList<>(best);
+        page.sort(RANKING);
+        return page;
+    }
+
+    private Set<String> prefixed(String prefix) {
+        Collection<Set<String>> terms = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (terms.size() == 1) {
+            return terms.iterator().next();
+        }
+        Set<String> union = new HashSet<>();
+        terms.forEach(union::addAll);
+        return union;
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.fingerprint(), entry);
+        entry.terms().forEach(term -> postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(entry.fingerprint()));
+    }
+
+    private void drop(Entry entry) {
+        entries.remove(entry.fingerprint());
+        entry.terms().forEach(term -> {
+            Set<String> fingerprints = postings.get(term);
+            if (fingerprints != null) {
+                fingerprints.remove(entry.fingerprint());
+                if (fingerprints.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        });
+    }
+
+    private Entry entryOf(BaseProductEntity product) {
+        ProductCodec<?, ?> codec = productCodecs.of(product);
+        Map<String, Object> detail = codec.detailOf(product).toMap();
+        Set<String> terms = new HashSet<>(words(product.getName()));
+        detail.values().forEach(value -> collectTerms(value, terms));
+        return new Entry(product.getGroupFingerprint(), product.getId(), codec.groupLabel(), product.getName(), detail, Set.copyOf(terms), 1);
+    }
+
+    private static void collectTerms(Object value, Set<String> terms) {
+        switch (value) {
+            case null -> {
+            }
+            case CharSequence text -> terms.addAll(words(text.toString()));
+            case Collection<?> collection -> collection.forEach(element -> collectTerms(element, terms));
+            case Map<?, ?> map -> map.forEach((key, element) -> {
+                collectTerms(key, terms);
+                collectTerms(element, terms);
+            });
+            // Dates, numbers and flags are not words anyone searches for
+            default -> {
+            }
+        }
+    }
+
+    private static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(NON_WORD.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private record Entry(String fingerprint, String productId, String productType, String name,
+                         Map<String, Object> detail, Set<String> terms, int count) {
+        Entry withCount(int units) {
+            return new Entry(fingerprint, productId, productType, name, detail, terms, units);
+        }
+
+        ProductGroupResponseDto toDto() {
+            ProductGroupResponseDto dto = new ProductGroupResponseDto();
+            dto.setProductId(productId);
+            dto.setProductType(productType);
+            dto.setName(name);
+            dto.setDetail(new LinkedHashMap<>(detail));
+            dto.setCount(count);
+            return dto;
+        }
+    }
+}
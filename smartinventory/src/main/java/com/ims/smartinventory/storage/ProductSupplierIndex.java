@@ -0,0 +1,207 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.smartinventory.repository.ProductRepository;
+import com.ims.smartinventory.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Supplier of every stored unit, so that the analytics attribute a unit without reading the
+ * supplier of its lot.
+ * <p>
+ * Suppliers are dictionary-encoded: each distinct supplier id is stored once and stands for a
+ * small int code. Units map to codes in an open-addressing table keyed by the two halves of their
+ * UUID, random or time-ordered alike, which takes 20 bytes a unit instead of a map entry with a
+ * string key and a boxed value. Ids that do not parse as a UUID go to an ordinary map.
+ * <p>
+ * A unit keeps its supplier for good, so entries are only ever added: when their batch commits,
+ * or by the rebuild at startup, which first copies the supplier of the lot onto units stored
+ * before the {@code supplier_id} column existed. Lookups share a read lock, so a report pass
+ * does not serialize with other readers.
+ */
+@Slf4j
+@Component
+public class ProductSupplierIndex {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> suppliers = new ArrayList<>();
+    private final Map<String, Integer> legacyUnits = new HashMap<>();
+    private long[] highBits = new long[INITIAL_CAPACITY];
+    private long[] lowBits = new long[INITIAL_CAPACITY];
+    // Supplier code plus one, so that zero marks a free slot
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public ProductSupplierIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Fills in the supplier of units stored before the column existed, then re-reads every unit.
+     *
+     * @return number of units indexed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public int rebuild() {
+        int filled = productRepository.fillSupplierIds();
+        if (filled > 0) {
+            log.info("Supplier ids backfilled for {} products", filled);
+        }
+
+        lock.writeLock().lock();
+        try {
+            reset();
+            try (Stream<ProductRepository.UnitSupplier> units = productRepository.streamUnitSuppliers()) {
+                units.forEach(unit -> put(unit.productId(), unit.supplierId()));
+            }
+            log.info("Product supplier index built for {} units of {} suppliers", size + legacyUnits.size(), suppliers.size());
+            return size + legacyUnits.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes newly stored units once the surrounding transaction commits.
+     */
+    public void add(Collection<BaseProductEntity> products) {
+        Map<String, String> added = new HashMap<>();
+        for (BaseProductEntity product : products) {
+            if (product.getSupplierId() != null) {
+                added.put(product.getId(), product.getSupplierId());
+            }
+        }
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                added.forEach(this::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Id of the supplier the unit came from, or null for a unit the index does not hold.
+     */
+    public String supplierOf(String productId) {
+        UUID key = uuidOf(productId);
+        lock.readLock().lock();
+        try {
+            int code = key != null
+                    ? find(key.getMostSignificantBits(), key.getLeastSignificantBits())
+                    : legacyUnits.getOrDefault(productId, -1);
+            return code >= 0 ? suppliers.get(code) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size + legacyUnits.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reset() {
+        codes.clear();
+        suppliers.clear();
+        legacyUnits.clear();
+        highBits = new long[INITIAL_CAPACITY];
+        lowBits = new long[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private void put(String productId, String supplierId) {
+        int code = codes.computeIfAbsent(supplierId, id -> {
+            suppliers.add(id);
+            return suppliers.size() - 1;
+        });
+        UUID key = uuidOf(productId);
+        if (key == null) {
+            legacyUnits.put(productId, code);
+            return;
+        }
+        if ((size + 1) * 2 > slots.length) {
+            grow();
+        }
+        insert(key.getMostSignificantBits(), key.getLeastSignificantBits(), code);
+    }
+
+    private int find(long high, long low) {
+        int mask = slots.length - 1;
+        for (int slot = slotOf(high, low, mask); slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (highBits[slot] == high && lowBits[slot] == low) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long high, long low, int code) {
+        int mask = slots.length - 1;
+        int slot = slotOf(high, low, mask);
+        while (slots[slot] != 0) {
+            if (highBits[slot] == high && lowBits[slot] == low) {
+                slots[slot] = code + 1;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        highBits[slot] = high;
+        lowBits[slot] = low;
+        slots[slot] = code + 1;
+        size++;
+    }
+
+    private void grow() {
+        long[] oldHigh = highBits;
+        long[] oldLow = lowBits;
+        int[] oldSlots = slots;
+        highBits = new long[oldSlots.length * 2];
+        lowBits = new long[oldSlots.length * 2];
+        slots = new int[oldSlots.length * 2];
+        size = 0;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                insert(oldHigh[i], oldLow[i], oldSlots[i] - 1);
+            }
+        }
+    }
+
+    // The time-ordered high half varies little between neighbours, so both halves are mixed in
+    private static int slotOf(long high, long low, int mask) {
+        long hash = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private static UUID uuidOf(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
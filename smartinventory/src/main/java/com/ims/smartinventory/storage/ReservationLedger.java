@@ -0,0 +1,124 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.entity.storage.SlotReservationEntity;
+import com.ims.smartinventory.exception.StorageException;
+import com.ims.smartinventory.repository.SlotReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Section capacity held for pending lots.
+ * <p>
+ * Each reservation is a {@code slot_reservation} row plus the matching share of the section's
+ * in-memory reserved counter in {@link SectionOccupancy}. Rows are removed one by one and the
+ * counter only released for rows actually deleted, so acceptance, rejection and expiry racing
+ * on the same lot never release a reservation twice.
+ */
+@Slf4j
+@Component
+public class ReservationLedger {
+
+    private final SlotReservationRepository slotReservationRepository;
+    private final SectionOccupancy sectionOccupancy;
+    private final Duration ttl;
+
+    public ReservationLedger(SlotReservationRepository slotReservationRepository, SectionOccupancy sectionOccupancy,
+                             @Value("${inventory.reservation.ttl-minutes:2880}") long ttlMinutes) {
+        this.slotReservationRepository = slotReservationRepository;
+        this.sectionOccupancy = sectionOccupancy;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * Reserves slots of the section for a pending lot; false when the section has no room left.
+     */
+    public boolean reserve(LotEntity lot, SectionEntity section, int slots) {
+        if (!sectionOccupancy.tryReserve(section.getId(), slots)) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SlotReservationEntity reservation = new SlotReservationEntity();
+        reservation.setLot(lot);
+        reservation.setSection(section);
+        reservation.setSlots(slots);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plus(ttl));
+        slotReservationRepository.save(reservation);
+        return true;
+    }
+
+    /**
+     * Turns the lot's reservations into a hold of exactly one slot per product in its section,
+     * topping up from free capacity where a reservation is missing or has expired.
+     *
+     * @return slots held per section id, to be passed on to {@link SectionOccupancy#allocate}
+     */
+    public Map<String, Integer> settle(LotEntity lot, List<BaseProductEntity> products) {
+        Map<String, SectionEntity> sections = new HashMap<>();
+        Map<String, Integer> needed = new HashMap<>();
+        for (BaseProductEntity product : products) {
+            sections.putIfAbsent(product.getSection().getId(), product.getSection());
+            needed.merge(product.getSection().getId(), 1, Integer::sum);
+        }
+
+        Map<String, Integer> held = remove(slotReservationRepository.findRowsByLotId(lot.getId()));
+
+        held.forEach((sectionId, slots) -> {
+            int surplus = slots - needed.getOrDefault(sectionId, 0);
+            if (surplus > 0) {
+                sectionOccupancy.releaseReservation(sectionId, surplus);
+            }
+        });
+        needed.forEach((sectionId, slots) -> {
+            int missing = slots - held.getOrDefault(sectionId, 0);
+            if (missing > 0 && !sectionOccupancy.tryReserve(sectionId, missing)) {
+                throw new StorageException("Section " + sections.get(sectionId).getName()
+                        + " no longer has room for lot " + lot.getLotCode());
+            }
+        });
+        return needed;
+    }
+
+    /**
+     * Drops all reservations of a lot that will not be accepted.
+     */
+    public void release(String lotId) {
+        remove(slotReservationRepository.findRowsByLotId(lotId))
+                .forEach(sectionOccupancy::releaseReservation);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    @Transactional
+    public void expire() {
+        Map<String, Integer> expired = remove(slotReservationRepository.findRowsExpiredBefore(LocalDateTime.now()));
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        expired.forEach(sectionOccupancy::releaseReservation);
+        log.info("Released expired reservations in {} sections", expired.size());
+    }
+
+    private Map<String, Integer> remove(List<SlotReservationRepository.ReservationRow> rows) {
+        Map<String, Integer> removed = new HashMap<>();
+        for (SlotReservationRepository.ReservationRow row : rows) {
+            if (slotReservationRepository.deleteRow(row.getId()) == 1) {
+                removed.merge(row.getSectionId(), row.getSlots(), Integer::sum);
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,207 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.config.StorageConditions;
+import com.ims.common.entity.WarehouseEntity;
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.entity.storage.StorageConditionEntity;
+import com.ims.smartinventory.dto.Request.ProductBatchRequestDto;
+import com.ims.smartinventory.repository.SectionRepository;
+import com.ims.smartinventory.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Storage-condition ranges of every section, kept per condition type as arrays sorted by their
+ * lower bound.
+ * <p>
+ * A section satisfies a required range when one of its ranges of the same type contains it, so
+ * the candidates for one requirement are found by binary-searching the lower bounds and
+ * checking the upper bound of that prefix only. Requirements are intersected by section id.
+ * <p>
+ * Each warehouse has its own partition, so a lookup only ever scans the sections of the
+ * warehouse a batch was routed to.
+ */
+@Slf4j
+@Component
+public class SectionConditionIndex {
+
+    private static final Range[] NO_RANGES = new Range[0];
+
+    private final SectionRepository sectionRepository;
+
+    private volatile Map<String, Partition> partitions = Map.of();
+
+    public SectionConditionIndex(SectionRepository sectionRepository) {
+        this.sectionRepository = sectionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Map<String, Map<StorageConditions, List<Range>>> byWarehouse = new HashMap<>();
+        Map<String, Map<String, Integer>> countsByWarehouse = new HashMap<>();
+
+        for (SectionEntity section : sectionRepository.findAllWithStorageConditions()) {
+            String warehouseId = warehouseOf(section);
+            collect(section,
+                    byWarehouse.computeIfAbsent(warehouseId, id -> new EnumMap<>(StorageConditions.class)),
+                    countsByWarehouse.computeIfAbsent(warehouseId, id -> new HashMap<>()));
+        }
+
+        Map<String, Partition> rebuilt = new HashMap<>();
+        byWarehouse.forEach((warehouseId, byType) ->
+                rebuilt.put(warehouseId, new Partition(sort(byType), countsByWarehouse.get(warehouseId))));
+        partitions = rebuilt;
+        log.info("Storage condition index built for {} warehouses ({} sections)", rebuilt.size(),
+                countsByWarehouse.values().stream().mapToInt(Map::size).sum());
+    }
+
+    /**
+     * Adds a freshly created section once its transaction commits.
+     */
+    public void register(SectionEntity section) {
+        String warehouseId = warehouseOf(section);
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                Partition current = partitions.getOrDefault(warehouseId, Partition.EMPTY);
+                Map<StorageConditions, List<Range>> byType = new EnumMap<>(StorageConditions.class);
+                current.byType().forEach((type, ranges) -> byType.put(type, new ArrayList<>(Arrays.asList(ranges))));
+                Map<String, Integer> conditionCounts = new HashMap<>(current.conditionCounts());
+
+                collect(section, byType, conditionCounts);
+                Map<String, Partition> updated = new HashMap<>(partitions);
+                updated.put(warehouseId, new Partition(sort(byType), conditionCounts));
+                partitions = updated;
+            }
+        });
+    }
+
+    /**
+     * Warehouses that have at least one section.
+     */
+    public Set<String> warehouseIds() {
+        return partitions.keySet();
+    }
+
+    /**
+     * Sections of the warehouse whose ranges contain every required range, with how well each
+     * one fits. No requirements means every section of the warehouse qualifies.
+     */
+    public Map<String, Fit> match(String warehouseId, List<ProductBatchRequestDto.StorageConditionDto> requiredConditions) {
+        Partition current = partitions.getOrDefault(warehouseId, Partition.EMPTY);
+
+        if (requiredConditions == null || requiredConditions.isEmpty()) {
+            Map<String, Fit> all = new HashMap<>();
+            current.conditionCounts().forEach((sectionId, count) -> all.put(sectionId, new Fit(count, 0)));
+            return all;
+        }
+
+        Map<String, Double> widths = null;
+        for (ProductBatchRequestDto.StorageConditionDto required : requiredConditions) {
+            Map<String, Double> matched = containing(current, required);
+            if (widths == null) {
+                widths = matched;
+            } else {
+                widths.keySet().retainAll(matched.keySet());
+                widths.replaceAll((sectionId, width) -> width + matched.get(sectionId));
+            }
+            if (widths.isEmpty()) {
+                return Map.of();
+            }
+        }
+
+        Map<String, Fit> fits = new HashMap<>();
+        long requiredTypes = requiredConditions.stream()
+                .map(ProductBatchRequestDto.StorageConditionDto::getConditionType)
+                .distinct()
+                .count();
+        widths.forEach((sectionId, width) -> {
+            int extra = Math.max(0, current.conditionCounts().get(sectionId) - (int) requiredTypes);
+            fits.put(sectionId, new Fit(extra, width));
+        });
+        return fits;
+    }
+
+    private Map<String, Double> containing(Partition current, ProductBatchRequestDto.StorageConditionDto required) {
+        Range[] ranges = current.byType().getOrDefault(required.getConditionType(), NO_RANGES);
+        int end = upperBound(ranges, required.getMinValue());
+
+        Map<String, Double> matched = new HashMap<>();
+        for (int i = 0; i < end; i++) {
+            Range range = ranges[i];
+            if (range.max() >= required.getMaxValue()) {
+                matched.merge(range.sectionId(), range.max() - range.min(), Math::min);
+            }
+        }
+        return matched;
+    }
+
+    // first index whose lower bound is greater than value
+    private static int upperBound(Range[] ranges, double value) {
+        int low = 0;
+        int high = ranges.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ranges[mid].min() <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Sections saved before warehouses were selectable belong to the seeded one
+    private static String warehouseOf(SectionEntity section) {
+        return section.getWarehouse() != null ? section.getWarehouse().getId() : WarehouseEntity.DEFAULT_ID;
+    }
+
+    private static void collect(SectionEntity section, Map<StorageConditions, List<Range>> byType,
+                                Map<String, Integer> conditionCounts) {
+        List<StorageConditionEntity> conditions = section.getStorageConditions() != null
+                ? section.getStorageConditions()
+                : List.of();
+        for (StorageConditionEntity condition : conditions) {
+            byType.computeIfAbsent(condition.getConditionType(), type -> new ArrayList<>())
+                    .add(new Range(section.getId(), condition.getMinValue(), condition.getMaxValue()));
+        }
+        conditionCounts.put(section.getId(), (int) conditions.stream()
+                .map(StorageConditionEntity::getConditionType)
+                .distinct()
+                .count());
+    }
+
+    private static Map<StorageConditions, Range[]> sort(Map<StorageConditions, List<Range>> byType) {
+        Map<StorageConditions, Range[]> sorted = new EnumMap<>(StorageConditions.class);
+        byType.forEach((type, ranges) -> {
+            Range[] array = ranges.toArray(NO_RANGES);
+            Arrays.sort(array, Comparator.comparingDouble(Range::min));
+            sorted.put(type, array);
+        });
+        return sorted;
+    }
+
+    /**
+     * How snugly a section fits a request: condition types it offers beyond the required ones,
+     * then the summed width of the ranges that matched. Smaller is tighter.
+     */
+    public record Fit(int extraConditions, double rangeWidth) implements Comparable<Fit> {
+        @Override
+        public int compareTo(Fit other) {
+            int byExtra = Integer.compare(extraConditions, other.extraConditions);
+            return byExtra != 0 ? byExtra : Double.compare(rangeWidth, other.rangeWidth);
+        }
+    }
+
+    private record Range(String sectionId, double min, double max) {
+    }
+
+    private record Partition(Map<StorageConditions, Range[]> byType, Map<String, Integer> conditionCounts) {
+        private static final Partition EMPTY = new Partition(Map.of(), Map.of());
+    }
+}
@@ -0,0 +1,54 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.smartinventory.util.TransactionHooks;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped per-section locks for slot allocation.
+ * <p>
+ * Work on one section is serialized while sections on different stripes proceed in parallel.
+ * Stripes are always taken in ascending order, so callers locking several sections cannot
+ * deadlock each other.
+ */
+@Component
+public class SectionLocks {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public SectionLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the given sections and keeps them locked until the surrounding transaction
+     * completes, so that slot writes are flushed before the next allocator gets in.
+     */
+    public void lockUntilCompletion(Collection<String> sectionIds) {
+        int[] indices = sectionIds.stream()
+                .mapToInt(SectionLocks::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        for (int index : indices) {
+            stripes[index].lock();
+        }
+        TransactionHooks.afterCompletion(() -> {
+            for (int i = indices.length - 1; i >= 0; i--) {
+                stripes[indices[i]].unlock();
+            }
+        });
+    }
+
+    private static int stripeOf(String sectionId) {
+        int hash = sectionId.hashCode();
+        return ((hash ^ (hash >>> 16)) & 0x7fffffff) % STRIPES;
+    }
+}
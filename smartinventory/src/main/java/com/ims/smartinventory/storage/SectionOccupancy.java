@@ -0,0 +1,193 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.smartinventory.repository.SectionRepository;
+import com.ims.smartinventory.repository.SlotReservationRepository;
+import com.ims.smartinventory.repository.SlotSectionRepository;
+import com.ims.smartinventory.repository.SlotShelfRepository;
+import com.ims.smartinventory.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live used/reserved/total slot counters per section.
+ * <p>
+ * The {@code used_slots} column is moved with relative updates in the same transaction as the
+ * slot rows; the in-memory counter follows once that transaction commits. Capacity and
+ * utilization reads go through here instead of counting slot rows.
+ * <p>
+ * Reserved slots belong to pending lots (see {@link ReservationLedger}). They are taken with a
+ * compare-and-set right away so concurrent submissions cannot overbook a section, and handed
+ * back if the reserving transaction rolls back.
+ */
+@Slf4j
+@Component
+public class SectionOccupancy {
+
+    private final SectionRepository sectionRepository;
+    private final SlotShelfRepository slotShelfRepository;
+    private final SlotSectionRepository slotSectionRepository;
+    private final SlotReservationRepository slotReservationRepository;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public SectionOccupancy(SectionRepository sectionRepository, SlotShelfRepository slotShelfRepository,
+                            SlotSectionRepository slotSectionRepository,
+                            SlotReservationRepository slotReservationRepository) {
+        this.sectionRepository = sectionRepository;
+        this.slotShelfRepository = slotShelfRepository;
+        this.slotSectionRepository = slotSectionRepository;
+        this.slotReservationRepository = slotReservationRepository;
+    }
+
+    /**
+     * Recounts every section once at startup, fixing up the stored columns where they drifted
+     * or predate this feature.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcile() {
+        Map<String, Integer> reserved = new HashMap<>();
+        for (SlotReservationRepository.ReservationRow row : slotReservationRepository.findAllRows()) {
+            reserved.merge(row.getSectionId(), row.getSlots(), Integer::sum);
+        }
+
+        int corrected = 0;
+        for (SectionEntity section : sectionRepository.findAll()) {
+            int totalSlots = section.computeGridSlots();
+            int usedSlots = section.getNumShelves() > 0
+                    ? slotShelfRepository.countUsedBySectionId(section.getId())
+                    : slotSectionRepository.countUsedBySectionId(section.getId());
+
+            if (section.getTotalSlots() != totalSlots || section.getUsedSlots() != usedSlots) {
+                sectionRepository.resetOccupancy(section.getId(), totalSlots, usedSlots);
+                corrected++;
+            }
+            counters.put(section.getId(), new Counter(totalSlots, new AtomicInteger(usedSlots),
+                    new AtomicInteger(reserved.getOrDefault(section.getId(), 0))));
+        }
+
+        log.info("Occupancy counters loaded for {} sections ({} corrected)", counters.size(), corrected);
+    }
+
+    /**
+     * Starts tracking a freshly created section once its transaction commits.
+     */
+    public void register(SectionEntity section) {
+        Counter counter = new Counter(section.getTotalSlots(), new AtomicInteger(section.getUsedSlots()),
+                new AtomicInteger());
+        TransactionHooks.afterCommit(() -> counters.put(section.getId(), counter));
+    }
+
+    public void allocate(String sectionId, int slots) {
+        allocate(sectionId, slots, 0);
+    }
+
+    /**
+     * Marks slots used and drops {@code reservedSlots} of the section's reservations once the
+     * transaction commits. Used goes up before reserved comes down, so a concurrent reader
+     * never sees more room than there is.
+     */
+    public void allocate(String sectionId, int slots, int reservedSlots) {
+        adjust(sectionId, slots);
+        releaseReservation(sectionId, reservedSlots);
+    }
+
+    public void release(String sectionId, int slots) {
+        adjust(sectionId, -slots);
+    }
+
+    public int totalSlots(SectionEntity section) {
+        Counter counter = counters.get(section.getId());
+        return counter != null ? counter.total() : section.getTotalSlots();
+    }
+
+    public int usedSlots(SectionEntity section) {
+        Counter counter = counters.get(section.getId());
+        return counter != null ? counter.used().get() : section.getUsedSlots();
+    }
+
+    public int reservedSlots(SectionEntity section) {
+        Counter counter = counters.get(section.getId());
+        return counter != null ? counter.reserved().get() : 0;
+    }
+
+    /**
+     * Slots neither used nor held for a pending lot.
+     */
+    public int freeSlots(SectionEntity section) {
+        return totalSlots(section) - usedSlots(section) - reservedSlots(section);
+    }
+
+    /**
+     * Same as {@link #freeSlots(SectionEntity)} for a section only known by id; untracked
+     * sections have no room.
+     */
+    public int freeSlots(String sectionId) {
+        Counter counter = counters.get(sectionId);
+        return counter != null ? counter.total() - counter.used().get() - counter.reserved().get() : 0;
+    }
+
+    /**
+     * Holds {@code slots} of the section for a pending lot if that many are free. The hold is
+     * visible immediately and undone if the surrounding transaction rolls back.
+     */
+    public boolean tryReserve(String sectionId, int slots) {
+        Counter counter = counters.get(sectionId);
+        if (counter == null) {
+            return false;
+        }
+
+        while (true) {
+            int reserved = counter.reserved().get();
+            if (counter.total() - counter.used().get() - reserved < slots) {
+                return false;
+            }
+            if (counter.reserved().compareAndSet(reserved, reserved + slots)) {
+                break;
+            }
+        }
+
+        TransactionHooks.afterRollback(() -> counter.reserved().addAndGet(-slots));
+        return true;
+    }
+
+    /**
+     * Gives reserved slots back once the surrounding transaction commits.
+     */
+    public void releaseReservation(String sectionId, int slots) {
+        if (slots == 0) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            Counter counter = counters.get(sectionId);
+            if (counter != null) {
+                counter.reserved().addAndGet(-slots);
+            }
+        });
+    }
+
+    private void adjust(String sectionId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        sectionRepository.adjustUsedSlots(sectionId, delta);
+        TransactionHooks.afterCommit(() -> {
+            Counter counter = counters.get(sectionId);
+            if (counter != null) {
+                counter.used().addAndGet(delta);
+            }
+        });
+    }
+
+    private record Counter(int total, AtomicInteger used, AtomicInteger reserved) {
+    }
+}
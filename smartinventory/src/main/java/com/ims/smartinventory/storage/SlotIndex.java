@@ -0,0 +1,330 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.entity.storage.ShelfEntity;
+import com.ims.common.entity.storage.SlotSection;
+import com.ims.common.entity.storage.SlotShelf;
+import com.ims.smartinventory.repository.SectionRepository;
+import com.ims.smartinventory.repository.SlotSectionRepository;
+import com.ims.smartinventory.repository.SlotShelfRepository;
+import com.ims.smartinventory.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory free-slot index, one bitset per section.
+ * <p>
+ * Positions follow the order lot acceptance has always used: shelf id, then x, then y for shelf
+ * sections, and x then y for open-floor sections. Picking the next free slot is a
+ * {@link BitSet#nextSetBit(int)} away and never touches the database.
+ * <p>
+ * Sections with virtual slots only have rows for occupied positions. Their grid starts out free,
+ * a claimed position comes back without a slot id until the caller has written its row and
+ * {@link #bind bound} it, and a released position forgets its id again since the row is deleted.
+ */
+@Slf4j
+@Component
+public class SlotIndex {
+
+    private final SectionRepository sectionRepository;
+    private final SlotShelfRepository slotShelfRepository;
+    private final SlotSectionRepository slotSectionRepository;
+
+    private final Map<String, SectionSlots> sections = new ConcurrentHashMap<>();
+    private final Map<String, SlotRef> slotRefs = new ConcurrentHashMap<>();
+
+    public SlotIndex(SectionRepository sectionRepository, SlotShelfRepository slotShelfRepository,
+                     SlotSectionRepository slotSectionRepository) {
+        this.sectionRepository = sectionRepository;
+        this.slotShelfRepository = slotShelfRepository;
+        this.slotSectionRepository = slotSectionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<SlotSectionRepository.SlotPosition> floorRows = slotSectionRepository.findAllSlotPositions();
+        Map<String, Integer> floorDepth = new HashMap<>();
+        for (SlotSectionRepository.SlotPosition row : floorRows) {
+            floorDepth.merge(row.getSectionId(), row.getY() + 1, Math::max);
+        }
+
+        Map<String, SectionSlots> rebuilt = new HashMap<>();
+        for (SectionEntity section : sectionRepository.findAll()) {
+            rebuilt.put(section.getId(), SectionSlots.of(section, floorDepth.getOrDefault(section.getId(), 0)));
+        }
+
+        Map<String, SlotRef> refs = new HashMap<>();
+        for (SlotShelfRepository.SlotPosition row : slotShelfRepository.findAllSlotPositions()) {
+            SectionSlots slots = rebuilt.get(row.getSectionId());
+            if (slots != null) {
+                int position = slots.shelfPosition(row.getShelfId(), row.getX(), row.getY());
+                slots.put(position, row.getId(), !row.isOccupied() && row.getProductId() == null, refs);
+            }
+        }
+        for (SlotSectionRepository.SlotPosition row : floorRows) {
+            SectionSlots slots = rebuilt.get(row.getSectionId());
+            if (slots != null) {
+                int position = slots.floorPosition(row.getX(), row.getY());
+                slots.put(position, row.getId(), !row.isOccupied() && row.getProductId() == null, refs);
+            }
+        }
+
+        sections.clear();
+        sections.putAll(rebuilt);
+        slotRefs.clear();
+        slotRefs.putAll(refs);
+
+        log.info("Slot index built for {} sections ({} slots)", sections.size(), slotRefs.size());
+    }
+
+    /**
+     * Adds a freshly created section once its transaction commits.
+     */
+    public void registerSection(SectionEntity section) {
+        int floorDepth = section.getSlotSections() == null ? 0
+                : section.getSlotSections().stream().mapToInt(slot -> slot.getYPosition() + 1).max().orElse(0);
+        SectionSlots slots = SectionSlots.of(section, floorDepth);
+        Map<String, SlotRef> refs = new HashMap<>();
+
+        if (section.getShelves() != null) {
+            for (ShelfEntity shelf : section.getShelves()) {
+                if (shelf.getSlotShelves() == null) continue;
+                for (SlotShelf slot : shelf.getSlotShelves()) {
+                    int position = slots.shelfPosition(shelf.getId(), slot.getX(), slot.getY());
+                    slots.put(position, slot.getId(), slot.isAvailable() && slot.getProduct() == null, refs);
+                }
+            }
+        }
+        if (section.getSlotSections() != null) {
+            for (SlotSection slot : section.getSlotSections()) {
+                int position = slots.floorPosition(slot.getXPosition(), slot.getYPosition());
+                slots.put(position, slot.getId(), slot.isAvailable() && slot.getProduct() == null, refs);
+            }
+        }
+
+        TransactionHooks.afterCommit(() -> {
+            sections.put(section.getId(), slots);
+            slotRefs.putAll(refs);
+        });
+    }
+
+    /**
+     * Takes {@code count} free slots of the section in one pass, or none if it has fewer free.
+     * <p>
+     * The smallest run of free slots on a single shelf that holds them all is preferred. Failing
+     * that, the longest runs are used first so the lot is spread over as few places as possible.
+     * Runs never cross shelf boundaries; an open-floor section counts as one shelf. The slots go
+     * back to the index if the surrounding transaction rolls back.
+     */
+    public List<ClaimedSlot> claim(String sectionId, int count) {
+        SectionSlots slots = sections.get(sectionId);
+        if (slots == null || count <= 0) {
+            return List.of();
+        }
+
+        List<Integer> positions = new ArrayList<>(count);
+        List<ClaimedSlot> claimed;
+        synchronized (slots) {
+            if (slots.free.cardinality() < count) {
+                return List.of();
+            }
+
+            List<int[]> runs = slots.freeRuns();
+            int[] fit = null;
+            for (int[] run : runs) {
+                int length = run[1] - run[0];
+                if (length >= count && (fit == null || length < fit[1] - fit[0])) {
+                    fit = run;
+                }
+            }
+
+            if (fit != null) {
+                for (int position = fit[0]; position < fit[0] + count; position++) {
+                    positions.add(position);
+                }
+            } else {
+                runs.sort(Comparator.comparingInt((int[] run) -> run[0] - run[1]).thenComparingInt(run -> run[0]));
+                for (int[] run : runs) {
+                    for (int position = run[0]; position < run[1] && positions.size() < count; position++) {
+                        positions.add(position);
+                    }
+                    if (positions.size() == count) {
+                        break;
+                    }
+                }
+            }
+
+            positions.forEach(slots.free::clear);
+            claimed = positions.stream().map(slots::claimed).toList();
+        }
+
+        TransactionHooks.afterRollback(() -> positions.forEach(position -> markFree(slots, position)));
+        return claimed;
+    }
+
+    /**
+     * Records the row written for a claimed virtual position once the surrounding transaction
+     * commits, so a later release can find it.
+     */
+    public void bind(String sectionId, int position, String slotId) {
+        TransactionHooks.afterCommit(() -> {
+            SectionSlots slots = sections.get(sectionId);
+            if (slots == null) {
+                return;
+            }
+            synchronized (slots) {
+                slots.slotIds[position] = slotId;
+            }
+            slotRefs.put(slotId, new SlotRef(sectionId, position));
+        });
+    }
+
+    /**
+     * Returns slots to the free pool once the surrounding transaction commits.
+     */
+    public void release(Collection<String> slotIds) {
+        List<String> released = List.copyOf(slotIds);
+        TransactionHooks.afterCommit(() -> released.forEach(this::markReleased));
+    }
+
+    private void markReleased(String slotId) {
+        SlotRef ref = slotRefs.get(slotId);
+        if (ref == null) {
+            return;
+        }
+        SectionSlots slots = sections.get(ref.sectionId());
+        if (slots == null) {
+            return;
+        }
+        if (slots.virtual) {
+            slotRefs.remove(slotId);
+        }
+        markFree(slots, ref.position());
+    }
+
+    public int freeSlots(String sectionId) {
+        SectionSlots slots = sections.get(sectionId);
+        if (slots == null) {
+            return 0;
+        }
+        synchronized (slots) {
+            return slots.free.cardinality();
+        }
+    }
+
+    private void markFree(SectionSlots slots, int position) {
+        synchronized (slots) {
+            if (slots.virtual) {
+                slots.slotIds[position] = null;
+            }
+            slots.free.set(position);
+        }
+    }
+
+    /**
+     * A position handed out by {@link #claim}. {@code slotId} is null when no row exists for it
+     * yet; {@code shelfId} is null in open-floor sections.
+     */
+    public record ClaimedSlot(int position, String slotId, String shelfId, int x, int y) {
+        public boolean isMaterialized() {
+            return slotId != null;
+        }
+    }
+
+    private record SlotRef(String sectionId, int position) {
+    }
+
+    private static final class SectionSlots {
+        private final String sectionId;
+        private final boolean virtual;
+        private final String[] shelfIds;
+        private final Map<String, Integer> shelfOrder;
+        private final int slotsPerShelf;
+        private final int rows;
+        private final String[] slotIds;
+        private final BitSet free;
+
+        private SectionSlots(String sectionId, boolean virtual, List<String> shelfIds, int slotsPerShelf, int rows,
+                             int capacity) {
+            this.sectionId = sectionId;
+            this.virtual = virtual;
+            this.shelfIds = shelfIds.toArray(String[]::new);
+            this.shelfOrder = new HashMap<>();
+            for (int i = 0; i < this.shelfIds.length; i++) {
+                shelfOrder.put(this.shelfIds[i], i);
+            }
+            this.slotsPerShelf = slotsPerShelf;
+            this.rows = rows;
+            this.slotIds = new String[capacity];
+            this.free = new BitSet(capacity);
+            if (virtual) {
+                free.set(0, capacity);
+            }
+        }
+
+        // Open floors are six slots wide and at least y_slot deep, deeper if rows exist further back
+        static SectionSlots of(SectionEntity section, int floorDepth) {
+            List<ShelfEntity> shelves = section.getShelves();
+            if (section.getNumShelves() > 0 && shelves != null && !shelves.isEmpty()) {
+                List<String> shelfIds = shelves.stream().map(ShelfEntity::getId).sorted().toList();
+                int perShelf = shelves.getFirst().getHeight() * 6;
+                return new SectionSlots(section.getId(), section.isVirtualSlots(), shelfIds, perShelf, 0,
+                        perShelf * shelfIds.size());
+            }
+            int rows = Math.max(section.getY_slot(), floorDepth);
+            return new SectionSlots(section.getId(), section.isVirtualSlots(), List.of(), 0, rows, 6 * rows);
+        }
+
+        int shelfPosition(String shelfId, int x, int y) {
+            Integer shelf = shelfOrder.get(shelfId);
+            return shelf == null ? -1 : shelf * slotsPerShelf + x * 6 + y;
+        }
+
+        int floorPosition(int x, int y) {
+            return y < rows ? x * rows + y : -1;
+        }
+
+        ClaimedSlot claimed(int position) {
+            if (slotsPerShelf > 0) {
+                int offset = position % slotsPerShelf;
+                return new ClaimedSlot(position, slotIds[position], shelfIds[position / slotsPerShelf],
+                        offset / 6, offset % 6);
+            }
+            return new ClaimedSlot(position, slotIds[position], null, position / rows, position % rows);
+        }
+
+        // maximal [start, end) runs of free positions, split at shelf boundaries
+        List<int[]> freeRuns() {
+            int segment = slotsPerShelf > 0 ? slotsPerShelf : slotIds.length;
+            List<int[]> runs = new ArrayList<>();
+            int start = free.nextSetBit(0);
+            while (start >= 0) {
+                int end = free.nextClearBit(start);
+                while (start < end) {
+                    int boundary = Math.min(end, (start / segment + 1) * segment);
+                    runs.add(new int[]{start, boundary});
+                    start = boundary;
+                }
+                start = free.nextSetBit(end);
+            }
+            return runs;
+        }
+
+        void put(int position, String slotId, boolean isFree, Map<String, SlotRef> refs) {
+            if (position < 0 || position >= slotIds.length) {
+                log.warn("Slot {} lies outside the grid of section {}", slotId, sectionId);
+                return;
+            }
+            slotIds[position] = slotId;
+            free.set(position, isFree);
+            refs.put(slotId, new SlotRef(sectionId, position));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.config.LotStatus;
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.smartinventory.repository.ProductRepository;
+import com.ims.smartinventory.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Units in stock, grouped by their group fingerprint and kept in the orders the storage
+ * strategies pick from.
+ * <p>
+ * A unit enters its group when its lot is accepted and leaves once a dispatch holding it is
+ * accepted. Within a group, units are ordered by import date for FIFO and LIFO and by
+ * expiration date for FEFO, with ties broken by id. Picking walks the first units of the order
+ * and never sorts the whole group. RANDOM draws a reservoir sample over the group instead of
+ * shuffling it, and draws again for sampled units another dispatch claimed first.
+ * <p>
+ * A pending dispatch claims the units it picks. Claims are compare-and-set entries keyed by
+ * unit id, so concurrent export requests skip each other's units without taking a lock, and
+ * they mirror the {@code reserved_by_dispatch} column so a restart restores them. Units of
+ * dispatches requested before that column existed get it filled in from their dispatch item
+ * first.
+ */
+@Slf4j
+@Component
+public class StockQueues {
+
+    private final ProductRepository productRepository;
+
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final Map<String, String> claims = new ConcurrentHashMap<>();
+
+    public StockQueues(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        int backfilled = productRepository.reserveForPendingDispatches();
+        if (backfilled > 0) {
+            log.info("Reservations backfilled for {} units of pending dispatches", backfilled);
+        }
+
+        Map<String, Group> rebuilt = new HashMap<>();
+        Map<String, String> restored = new HashMap<>();
+        int units = 0;
+        for (BaseProductEntity product : productRepository.findInStock(LotStatus.ACCEPTED)) {
+            if (product.getGroupFingerprint() == null) continue;
+            rebuilt.computeIfAbsent(product.getGroupFingerprint(), fingerprint -> new Group())
+                    .add(Unit.of(product, product.getLot()));
+            if (product.getReservedByDispatch() != null) {
+                restored.put(product.getId(), product.getReservedByDispatch());
+            }
+            units++;
+        }
+
+        groups.clear();
+        groups.putAll(rebuilt);
+        claims.clear();
+        claims.putAll(restored);
+        log.info("Stock queues built for {} product groups ({} units, {} claimed)",
+                groups.size(), units, claims.size());
+    }
+
+    /**
+     * Adds the units of an accepted lot once the surrounding transaction commits.
+     */
+    public void add(LotEntity lot, Collection<BaseProductEntity> products) {
+        List<Unit> units = products.stream()
+                .filter(product -> product.getGroupFingerprint() != null)
+                .map(product -> Unit.of(product, lot))
+                .toList();
+
+        TransactionHooks.afterCommit(() -> units.forEach(unit ->
+                groups.computeIfAbsent(unit.fingerprint(), fingerprint -> new Group()).add(unit)));
+    }
+
+    /**
+     * Takes dispatched units out of their groups, together with their claims, once the
+     * surrounding transaction commits.
+     *
+     * @param fingerprints group fingerprint of each unit, by unit id
+     */
+    public void remove(Map<String, String> fingerprints) {
+        Map<String, String> removed = Map.copyOf(fingerprints);
+
+        TransactionHooks.afterCommit(() -> removed.forEach((id, fingerprint) -> {
+            Group group = groups.get(fingerprint);
+            if (group != null) {
+                group.remove(id);
+            }
+            // Only after the unit has left its group, see claim()
+            claims.remove(id);
+        }));
+    }
+
+    /**
+     * Claims the first {@code count} unclaimed units of the group, in the strategy's order, for
+     * the dispatch. Claims are dropped again if the surrounding transaction rolls back.
+     *
+     * @return ids of the claimed units, or an empty list when the group does not have
+     * {@code count} unclaimed units, in which case nothing stays claimed
+     */
+    public List<String> claim(String fingerprint, StorageStrategy strategy, int count, String dispatchId) {
+        Group group = groups.get(fingerprint);
+        if (group == null || count <= 0) {
+            return List.of();
+        }
+
+        Iterator<Unit> order = switch (strategy) {
+            case FIFO -> group.byImportDate.iterator();
+            case LIFO -> group.newestFirst();
+            case FEFO -> group.byExpiration.iterator();
+            case RANDOM -> resampling(group, count);
+        };
+
+        List<String> claimed = new ArrayList<>(count);
+        while (claimed.size() < count && order.hasNext()) {
+            String id = order.next().id();
+            if (claims.putIfAbsent(id, dispatchId) != null) {
+                continue;
+            }
+            // A unit dispatched while we walked has left its group before its claim was dropped
+            if (!group.units.containsKey(id)) {
+                claims.remove(id, dispatchId);
+                continue;
+            }
+            claimed.add(id);
+        }
+
+        if (claimed.size() < count) {
+            claimed.forEach(id -> claims.remove(id, dispatchId));
+            return List.of();
+        }
+        TransactionHooks.afterRollback(() -> claimed.forEach(id -> claims.remove(id, dispatchId)));
+        return claimed;
+    }
+
+    /**
+     * Returns the units claimed by a dispatch that will not go out, once the surrounding
+     * transaction commits.
+     */
+    public void release(String dispatchId, Collection<String> unitIds) {
+        List<String> ids = List.copyOf(unitIds);
+        TransactionHooks.afterCommit(() -> ids.forEach(id -> claims.remove(id, dispatchId)));
+    }
+
+    /**
+     * Id of the earliest imported unit left in the group other than the given ones, or null when
+     * there is none.
+     */
+    public String firstUnit(String fingerprint, Set<String> excluded) {
+        Group group = groups.get(fingerprint);
+        if (group == null) {
+            return null;
+        }
+        for (Unit unit : group.byImportDate) {
+            if (!excluded.contains(unit.id())) {
+                return unit.id();
+            }
+        }
+        return null;
+    }
+
+    // Samples drawn afresh once used up, so units another dispatch took in between are replaced instead of failing the claim
+    private Iterator<Unit> resampling(Group group, int count) {
+        return new Iterator<>() {
+            private Iterator<Unit> sample = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                if (!sample.hasNext()) {
+                    sample = sampleUnclaimed(group.units.values(), count).iterator();
+                }
+                return sample.hasNext();
+            }
+
+            @Override
+            public Unit next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return sample.next();
+            }
+        };
+    }
+
+    // Algorithm R over the unclaimed units: each ends up in the sample with the same probability
+    private List<Unit> sampleUnclaimed(Collection<Unit> units, int count) {
+        List<Unit> reservoir = new ArrayList<>(Math.min(count, units.size()));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int seen = 0;
+        for (Unit unit : units) {
+            if (claims.containsKey(unit.id())) {
+                continue;
+            }
+            if (seen < count) {
+                reservoir.add(unit);
+            } else {
+                int slot = random.nextInt(seen + 1);
+                if (slot < count) {
+                    reservoir.set(slot, unit);
+                }
+            }
+            seen++;
+        }
+        Collections.shuffle(reservoir, random);
+        return reservoir;
+    }
+
+    private record Unit(String fingerprint, String id, long importedAt, Long expiresAt) {
+        static Unit of(BaseProductEntity product, LotEntity lot) {
+            Date expiration = product.getExpirationDate();
+            return new Unit(product.getGroupFingerprint(), product.getId(),
+                    lot.getImportDate() != null ? lot.getImportDate().getTime() : 0L,
+                    expiration != null ? expiration.getTime() : null);
+        }
+    }
+
+    private static final class Group {
+        private static final Comparator<Unit> IMPORT_ORDER = Comparator
+                .comparingLong(Unit::importedAt)
+                .thenComparing(Unit::id);
+        private static final Comparator<Unit> EXPIRATION_ORDER = Comparator
+                .comparing(Unit::expiresAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Unit::id);
+
+        private final Map<String, Unit> units = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Unit> byImportDate = new ConcurrentSkipListSet<>(IMPORT_ORDER);
+        private final ConcurrentSkipListSet<Unit> byExpiration = new ConcurrentSkipListSet<>(EXPIRATION_ORDER);
+
+        void add(Unit unit) {
+            if (units.putIfAbsent(unit.id(), unit) != null) {
+                return;
+            }
+            byImportDate.add(unit);
+            byExpiration.add(unit);
+        }
+
+        void remove(String id) {
+            Unit unit = units.remove(id);
+            if (unit == null) {
+                return;
+            }
+            byImportDate.remove(unit);
+            byExpiration.remove(unit);
+        }
+
+        // Latest import date first, but units of one date still in id order, as a stable sort on the date alone leaves them
+        Iterator<Unit> newestFirst() {
+            return new Iterator<>() {
+                private Iterator<Unit> sameDate = Collections.emptyIterator();
+                private Unit earlier = byImportDate.lower(startOf(Long.MAX_VALUE));
+
+                @Override
+                public boolean hasNext() {
+                    while (!sameDate.hasNext() && earlier != null) {
+                        long importedAt = earlier.importedAt();
+                        sameDate = byImportDate.subSet(startOf(importedAt), startOf(importedAt + 1)).iterator();
+                        earlier = byImportDate.lower(startOf(importedAt));
+                    }
+                    return sameDate.hasNext();
+                }
+
+                @Override
+                public Unit next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return sameDate.next();
+                }
+            };
+        }
+
+        // Sorts before every unit imported at that instant
+        private static Unit startOf(long importedAt) {
+            return new Unit(null, "", importedAt, null);
+        }
+    }
+}
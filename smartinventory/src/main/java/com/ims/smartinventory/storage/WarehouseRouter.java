@@ -0,0 +1,76 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.smartinventory.dto.Request.ProductBatchRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which warehouse a new lot goes to.
+ * <p>
+ * A lot is kept within one warehouse, so only warehouses with sections matching the batch's
+ * storage conditions are candidates. {@link Policy#MOST_FREE} offers the one with the most free
+ * matching capacity first; {@link Policy#ROUND_ROBIN} rotates the first choice between batches
+ * to spread allocation over all sites. Callers walk the returned order until one warehouse can
+ * hold the whole lot.
+ */
+@Component
+public class WarehouseRouter {
+
+    public enum Policy {
+        MOST_FREE,
+        ROUND_ROBIN
+    }
+
+    private final SectionConditionIndex sectionConditionIndex;
+    private final SectionOccupancy sectionOccupancy;
+    private final Policy policy;
+
+    private final AtomicInteger turn = new AtomicInteger();
+
+    public WarehouseRouter(SectionConditionIndex sectionConditionIndex, SectionOccupancy sectionOccupancy,
+                           @Value("${inventory.warehouse.routing:MOST_FREE}") Policy policy) {
+        this.sectionConditionIndex = sectionConditionIndex;
+        this.sectionOccupancy = sectionOccupancy;
+        this.policy = policy;
+    }
+
+    /**
+     * Candidate warehouses in the order they should be tried. A pinned warehouse is the only
+     * candidate, if it has matching sections at all.
+     */
+    public List<Candidate> route(String pinnedWarehouseId,
+                                 List<ProductBatchRequestDto.StorageConditionDto> requiredConditions) {
+        Collection<String> warehouseIds = pinnedWarehouseId != null
+                ? List.of(pinnedWarehouseId)
+                : sectionConditionIndex.warehouseIds();
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (String warehouseId : warehouseIds) {
+            Map<String, SectionConditionIndex.Fit> fits = sectionConditionIndex.match(warehouseId, requiredConditions);
+            if (!fits.isEmpty()) {
+                int freeSlots = fits.keySet().stream().mapToInt(sectionOccupancy::freeSlots).sum();
+                candidates.add(new Candidate(warehouseId, fits, freeSlots));
+            }
+        }
+
+        if (policy == Policy.ROUND_ROBIN) {
+            candidates.sort(Comparator.comparing(Candidate::warehouseId));
+            if (!candidates.isEmpty()) {
+                Collections.rotate(candidates, -Math.floorMod(turn.getAndIncrement(), candidates.size()));
+            }
+        } else {
+            candidates.sort(Comparator.comparingInt(Candidate::freeSlots).reversed()
+                    .thenComparing(Candidate::warehouseId));
+        }
+        return candidates;
+    }
+
+    /**
+     * A warehouse with its sections matching the batch and their free slots in total.
+     */
+    public record Candidate(String warehouseId, Map<String, SectionConditionIndex.Fit> fits, int freeSlots) {
+    }
+}
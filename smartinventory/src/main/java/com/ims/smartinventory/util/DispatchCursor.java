@@ -0,0 +1,39 @@
+package com.ims.smartinventory.util;
+
+import com.ims.smartinventory.repository.DispatchRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in a listing of dispatches ordered newest first by creation time, then by id. The
+ * token handed to clients is the URL-safe Base64 of {@code <createdAt millis>:<id>}.
+ */
+public record DispatchCursor(Date createdAt, String id) {
+
+    public static DispatchCursor after(DispatchRepository.DispatchSummary dispatch) {
+        return new DispatchCursor(dispatch.getCreatedAt(), dispatch.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The cursor a token stands for, or null for a missing token, which means the first page.
+     */
+    public static DispatchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new DispatchCursor(new Date(Long.parseLong(raw.substring(0, separator))), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.DispatchStatus;
+import com.ims.common.config.LotStatus;
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.config.UserRole;
+import com.ims.common.entity.PriceEntity;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.WarehouseEntity;
+import com.ims.common.entity.management.DispatchEntity;
+import com.ims.common.entity.management.DispatchItemEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.management.LotItemEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.smartinventory.analytics.AnalyticsAggregator;
+import com.ims.smartinventory.dto.Response.AdvancedAnalyticsResponse;
+import com.ims.smartinventory.storage.ProductSupplierIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two suppliers store units in a section costing 10.00 a slot and one costing 4.29 a slot. Alice
+ * imported this month, Bob last month, on the very start of this month, and once with no items.
+ * Alice's units carry their supplier; Bob's were stored before units did and are backfilled from
+ * their lot when the supplier index is built, as at startup.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:advanced-analytics;MODE=MySQL;NON_KEYWORDS=VALUE,YEAR,MONTH,USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AdvancedAnalyticsServiceImpl.class, AnalyticsAggregator.class, ProductSupplierIndex.class})
+class AdvancedAnalyticsServiceImplTest {
+
+    // Sections, units per section, lots per supplier, the lot item pass and the dispatch items
+    private static final long STATEMENTS_PER_REPORT = 5;
+
+    @Autowired
+    private AdvancedAnalyticsServiceImpl advancedAnalyticsService;
+
+    @Autowired
+    private ProductSupplierIndex productSupplierIndex;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserEntity alice;
+    private UserEntity bob;
+    private SectionEntity cold;
+    private SectionEntity dry;
+
+    @BeforeEach
+    void setUp() {
+        WarehouseEntity warehouse = new WarehouseEntity();
+        warehouse.setId("warehouse-1");
+        warehouse.setName("main");
+        entityManager.persist(warehouse);
+
+        cold = section("cold", warehouse, 100.0, 10);
+        dry = section("dry", warehouse, 30.0, 7);
+        alice = user("alice");
+        bob = user("bob");
+
+        YearMonth current = YearMonth.now();
+        LotEntity thisMonth = lot(alice, midMonth(current));
+        unit(thisMonth, cold, true);
+        unit(thisMonth, cold, true);
+        unit(thisMonth, dry, true);
+        unit(thisMonth, null, true);
+        LotItemEntity withoutUnit = new LotItemEntity();
+        withoutUnit.setLot(thisMonth);
+        withoutUnit.setProductName("book");
+        withoutUnit.setQuantity(1);
+        entityManager.persist(withoutUnit);
+
+        LotEntity lastMonth = lot(bob, midMonth(current.minusMonths(1)));
+        unit(lastMonth, dry, true);
+        unit(lastMonth, dry, true);
+        unit(lastMonth, dry, true);
+        unit(lot(bob, monthStart(current)), cold, true);
+        unit(lot(bob, midMonth(current)), cold, false);
+
+        DispatchEntity dispatch = new DispatchEntity();
+        dispatch.setUser(bob);
+        dispatch.setStatus(DispatchStatus.ACCEPTED);
+        entityManager.persist(dispatch);
+        for (int i = 0; i < 2; i++) {
+            DispatchItemEntity item = new DispatchItemEntity();
+            item.setDispatch(dispatch);
+            item.setProductName("book");
+            item.setQuantity(1);
+            entityManager.persist(item);
+        }
+    }
+
+    @Test
+    void testSuppliersAreChargedTheSlotCostOfTheirUnits() {
+        // When
+        AdvancedAnalyticsResponse response = report();
+
+        // Then
+        List<AdvancedAnalyticsResponse.SupplierSpendData> suppliers = response.getSupplierSpending();
+        assertEquals(List.of("alice", "bob"), suppliers.stream().map(AdvancedAnalyticsResponse.SupplierSpendData::getSupplierUsername).toList());
+        assertEquals(new BigDecimal("24.29"), suppliers.get(0).getTotalSpent());
+        assertEquals(4, suppliers.get(0).getProductCount());
+        assertEquals(new BigDecimal("6.07"), suppliers.get(0).getAverageSpendPerProduct());
+        assertEquals(Set.of("cold", "dry"), new HashSet<>(suppliers.get(0).getTopSections()));
+        assertEquals(alice.getId(), suppliers.get(0).getSupplierId());
+        assertEquals(new BigDecimal("22.87"), suppliers.get(1).getTotalSpent());
+        assertEquals(3, suppliers.get(1).getActiveLots());
+
+        AdvancedAnalyticsResponse.SupplierSectionSpendData aliceCold = response.getSupplierSectionSpending().stream()
+                .filter(data -> data.getSupplierUsername().equals("alice") && data.getSectionName().equals("cold"))
+                .findFirst().orElseThrow();
+        assertEquals(new BigDecimal("20.00"), aliceCold.getTotalSpent());
+        assertEquals(20.0, aliceCold.getUtilizationPercentage(), 1e-9);
+        assertEquals(4, response.getSupplierSectionSpending().size());
+    }
+
+    @Test
+    void testMonthsCountOnlyLotsImportedStrictlyInsideThem() {
+        // When
+        AdvancedAnalyticsResponse response = report();
+
+        // Then
+        List<AdvancedAnalyticsResponse.MonthlyRevenueData> months = response.getMonthlyRevenue();
+        assertEquals(12, months.size());
+        AdvancedAnalyticsResponse.MonthlyRevenueData current = months.get(11);
+        assertEquals(new BigDecimal("24.29"), current.getTotalSupplierSpend());
+        assertEquals(5, current.getTotalProducts());
+        assertEquals(Map.of("cold", new BigDecimal("20.00"), "dry", new BigDecimal("4.29")), current.getSpendBySection());
+        assertEquals(0, new BigDecimal("130").compareTo(current.getTotalMaintenanceFees()));
+        assertEquals(new BigDecimal("12.87"), months.get(10).getTotalSupplierSpend());
+        assertEquals(3, months.get(10).getTotalProducts());
+
+        AdvancedAnalyticsResponse.SummaryMetrics summary = response.getSummaryMetrics();
+        assertEquals(new BigDecimal("88.7300"), summary.getRevenueGrowthRate());
+        assertEquals(2, summary.getTotalExportedProducts());
+        assertEquals("alice", summary.getTopSpendingSupplier());
+        assertEquals(months.subList(10, 12), advancedAnalyticsService.getMonthlyRevenueData(2));
+    }
+
+    @Test
+    void testSectionsAreChargedForEveryUnitTheyHold() {
+        // When
+        AdvancedAnalyticsResponse response = report();
+
+        // Then
+        List<AdvancedAnalyticsResponse.SectionProfitabilityData> sections = response.getSectionProfitability();
+        assertEquals(List.of("dry", "cold"), sections.stream().map(AdvancedAnalyticsResponse.SectionProfitabilityData::getSectionName).toList());
+        AdvancedAnalyticsResponse.SectionProfitabilityData coldData = sections.get(1);
+        assertEquals(4, coldData.getTotalProducts());
+        assertEquals(new BigDecimal("40.00"), coldData.getSupplierRevenue());
+        assertEquals(2, coldData.getActiveSuppliers());
+        assertEquals("Regular", coldData.getStorageCondition());
+        assertEquals("dry", response.getSummaryMetrics().getMostProfitableSection());
+        assertEquals(2, response.getWarehouseProfitability().getTotalActiveSuppliers());
+        assertEquals(2, response.getWarehouseProfitability().getTotalActiveSections());
+    }
+
+    @Test
+    void testReportTakesTheSameStatementsForAnyNumberOfLots() {
+        // Given
+        long fewLots = statements();
+        for (int i = 0; i < 50; i++) {
+            LotEntity lot = lot(i % 2 == 0 ? alice : bob, midMonth(YearMonth.now().minusMonths(i % 12)));
+            unit(lot, i % 3 == 0 ? cold : dry, true);
+        }
+
+        // When
+        long manyLots = statements();
+
+        // Then
+        assertEquals(STATEMENTS_PER_REPORT, fewLots);
+        assertEquals(STATEMENTS_PER_REPORT, manyLots);
+    }
+
+    private long statements() {
+        entityManager.flush();
+        productSupplierIndex.rebuild();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertNotNull(advancedAnalyticsService.getAdvancedAnalytics());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private AdvancedAnalyticsResponse report() {
+        entityManager.flush();
+        productSupplierIndex.rebuild();
+        entityManager.clear();
+        return advancedAnalyticsService.getAdvancedAnalytics();
+    }
+
+    private void unit(LotEntity lot, SectionEntity section, boolean withLotItem) {
+        BookProductEntity book = new BookProductEntity();
+        book.setName("book");
+        book.setLot(lot);
+        book.setSupplierId(lot.getUser() == alice ? alice.getId() : null);
+        book.setSection(section);
+        entityManager.persist(book);
+
+        if (withLotItem) {
+            LotItemEntity item = new LotItemEntity();
+            item.setLot(lot);
+            item.setProduct(book);
+            item.setProductName("book");
+            item.setQuantity(1);
+            entityManager.persist(item);
+        }
+    }
+
+    private LotEntity lot(UserEntity supplier, Date importDate) {
+        LotEntity lot = new LotEntity();
+        lot.setImportDate(importDate);
+        lot.setStatus(LotStatus.ACCEPTED);
+        lot.setStorageStrategy(StorageStrategy.FIFO);
+        lot.setUser(supplier);
+        return entityManager.persist(lot);
+    }
+
+    private SectionEntity section(String name, WarehouseEntity warehouse, double fee, int totalSlots) {
+        PriceEntity price = new PriceEntity();
+        price.setValue(fee);
+        price.setCurrency("VND");
+
+        SectionEntity section = new SectionEntity();
+        section.setName(name);
+        section.setWarehouse(warehouse);
+        section.setPrice(price);
+        section.setTotalSlots(totalSlots);
+        return entityManager.persist(section);
+    }
+
+    private UserEntity user(String username) {
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(UserRole.SUPPLIER);
+        return entityManager.persist(user);
+    }
+
+    private static Date midMonth(YearMonth month) {
+        return Date.from(month.atDay(15).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Date monthStart(YearMonth month) {
+        return Date.from(month.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
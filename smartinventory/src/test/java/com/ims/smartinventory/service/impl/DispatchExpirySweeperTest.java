@@ -0,0 +1,52 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.DispatchStatus;
+import com.ims.smartinventory.repository.DispatchRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchExpirySweeperTest {
+
+    @Mock
+    private DispatchRepository dispatchRepository;
+
+    @Mock
+    private DispatchServiceImpl dispatchService;
+
+    @Test
+    void testPendingDispatchesAreKeptUnlessExpiryIsEnabled() {
+        // Given
+        DispatchExpirySweeper sweeper = new DispatchExpirySweeper(dispatchRepository, dispatchService, false, 1440);
+
+        // When
+        sweeper.expire();
+
+        // Then
+        verifyNoInteractions(dispatchRepository, dispatchService);
+    }
+
+    @Test
+    void testOneFailingDispatchDoesNotHoldBackTheOthers() {
+        // Given
+        DispatchExpirySweeper sweeper = new DispatchExpirySweeper(dispatchRepository, dispatchService, true, 1440);
+        when(dispatchRepository.findIdsByStatusCreatedBefore(eq(DispatchStatus.PENDING), any()))
+                .thenReturn(List.of("first", "second", "third"));
+        when(dispatchService.expireDispatch("second")).thenThrow(new IllegalStateException("deadlock"));
+
+        // When
+        sweeper.expire();
+
+        // Then
+        verify(dispatchService).expireDispatch("first");
+        verify(dispatchService).expireDispatch("third");
+    }
+}
@@ -0,0 +1,247 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.DispatchStatus;
+import com.ims.common.config.LotStatus;
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.config.UserRole;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.WarehouseEntity;
+import com.ims.common.entity.management.DispatchEntity;
+import com.ims.common.entity.management.DispatchItemEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.entity.storage.SlotSection;
+import com.ims.smartinventory.dto.Response.DispatchDetailResponse;
+import com.ims.smartinventory.repository.ProductRepository;
+import com.ims.smartinventory.service.NotificationProducerService;
+import com.ims.smartinventory.storage.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Accepts dispatches whose units sit on floor slots, half of them in a section that keeps rows
+ * only for occupied slots.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dispatch-accept;MODE=MySQL;NON_KEYWORDS=VALUE,YEAR,MONTH,USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DispatchServiceImpl.class, DispatchValuation.class})
+class DispatchServiceImplAcceptTest {
+
+    private static final int UNITS = 5_000;
+
+    @MockitoBean
+    private NotificationProducerService notificationProducerService;
+
+    @MockitoBean
+    private SlotIndex slotIndex;
+
+    @MockitoBean
+    private SectionOccupancy sectionOccupancy;
+
+    @MockitoBean
+    private StockQueues stockQueues;
+
+    @MockitoBean
+    private GroupedStockView groupedStockView;
+
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private DispatchServiceImpl dispatchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserEntity supplier;
+    private UserEntity buyer;
+    private SectionEntity floor;
+    private SectionEntity virtualFloor;
+
+    @BeforeEach
+    void setUp() {
+        WarehouseEntity warehouse = new WarehouseEntity();
+        warehouse.setId("warehouse-1");
+        warehouse.setName("main");
+        entityManager.persist(warehouse);
+
+        supplier = user("supplier");
+        buyer = user("buyer");
+
+        floor = section("floor", warehouse, false);
+        virtualFloor = section("virtual-floor", warehouse, true);
+    }
+
+    @Test
+    void testAcceptDispatchesTheUnitsAndFreesTheirSlots() {
+        // Given
+        String dispatchId = reservedDispatch(UNITS);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        DispatchDetailResponse response = dispatchService.acceptDispatch(dispatchId);
+
+        // Then
+        assertEquals(DispatchStatus.ACCEPTED.name(), response.getStatus());
+        assertNotNull(response.getItems().getFirst().getProduct());
+        entityManager.clear();
+        assertEquals(UNITS, count("SELECT COUNT(p) FROM BaseProductEntity p WHERE p.dispatch.id = ?1 " +
+                "AND p.reservedByDispatch IS NULL AND p.slotSection IS NULL", dispatchId));
+        assertEquals(UNITS / 2, count("SELECT COUNT(s) FROM SlotSection s WHERE s.section = ?1 " +
+                "AND s.occupied = false AND s.product IS NULL", floor));
+        assertEquals(0, count("SELECT COUNT(s) FROM SlotSection s WHERE s.section = ?1", virtualFloor));
+        verify(sectionOccupancy).release(floor.getId(), UNITS / 2);
+        verify(sectionOccupancy).release(virtualFloor.getId(), UNITS / 2);
+        verify(slotIndex).release(anyCollection());
+        verify(stockQueues).remove(anyMap());
+    }
+
+    @Test
+    void testAcceptShipsUnitsReservedByTheStartupBackfill() {
+        // Given, dispatches requested before units were reserved
+        String pending = dispatch(20, DispatchStatus.PENDING, false);
+        dispatch(20, DispatchStatus.REJECTED, false);
+        entityManager.flush();
+
+        // When
+        int backfilled = productRepository.reserveForPendingDispatches();
+        entityManager.clear();
+        DispatchDetailResponse response = dispatchService.acceptDispatch(pending);
+
+        // Then
+        assertEquals(20, backfilled);
+        assertEquals(DispatchStatus.ACCEPTED.name(), response.getStatus());
+        entityManager.clear();
+        assertEquals(20, count("SELECT COUNT(p) FROM BaseProductEntity p WHERE p.dispatch.id = ?1 " +
+                "AND p.reservedByDispatch IS NULL AND p.slotSection IS NULL", pending));
+        verify(sectionOccupancy).release(floor.getId(), 10);
+        verify(sectionOccupancy).release(virtualFloor.getId(), 10);
+    }
+
+    @Test
+    void testAcceptTakesTheSameStatementsForAnyNumberOfUnits() {
+        // Given
+        String small = reservedDispatch(10);
+        String large = reservedDispatch(1_000);
+
+        // When
+        long smallStatements = statements(small);
+        long largeStatements = statements(large);
+
+        // Then
+        assertEquals(smallStatements, largeStatements);
+    }
+
+    private long statements(String dispatchId) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertNotNull(dispatchService.acceptDispatch(dispatchId));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private String reservedDispatch(int units) {
+        return dispatch(units, DispatchStatus.PENDING, true);
+    }
+
+    // Units of a lot of their own, so that no dispatch finds its lot price cached by another
+    private String dispatch(int units, DispatchStatus status, boolean reserved) {
+        LotEntity lot = new LotEntity();
+        lot.setImportDate(new Date());
+        lot.setStatus(LotStatus.ACCEPTED);
+        lot.setStorageStrategy(StorageStrategy.FIFO);
+        lot.setUser(supplier);
+        entityManager.persist(lot);
+
+        DispatchEntity dispatch = new DispatchEntity();
+        dispatch.setUser(buyer);
+        dispatch.setStatus(status);
+        entityManager.persist(dispatch);
+
+        List<BaseProductEntity> products = new ArrayList<>(units);
+        for (int i = 0; i < units; i++) {
+            BookProductEntity book = new BookProductEntity();
+            book.setName("book");
+            book.setGroupFingerprint("fingerprint");
+            book.setLot(lot);
+            book.setReservedByDispatch(reserved ? dispatch.getId() : null);
+            entityManager.persist(book);
+            onFloor(book, i % 2 == 0 ? floor : virtualFloor, i);
+            products.add(book);
+        }
+
+        DispatchItemEntity item = new DispatchItemEntity();
+        item.setDispatch(dispatch);
+        item.setProductName("book");
+        item.setProductId(products.getFirst().getId());
+        item.setQuantity(units);
+        item.setProducts(products);
+        entityManager.persist(item);
+        return dispatch.getId();
+    }
+
+    private void onFloor(BaseProductEntity product, SectionEntity section, int position) {
+        SlotSection slot = new SlotSection();
+        slot.setSection(section);
+        slot.setXPosition(position);
+        slot.setOccupied(true);
+        slot.setProduct(product);
+        entityManager.persist(slot);
+        product.setSlotSection(slot);
+        product.setSection(section);
+    }
+
+    private long count(String query, Object parameter) {
+        return entityManager.getEntityManager().createQuery(query, Long.class)
+                .setParameter(1, parameter)
+                .getSingleResult();
+    }
+
+    private SectionEntity section(String name, WarehouseEntity warehouse, boolean virtualSlots) {
+        SectionEntity section = new SectionEntity();
+        section.setName(name);
+        section.setWarehouse(warehouse);
+        section.setVirtualSlots(virtualSlots);
+        return entityManager.persist(section);
+    }
+
+    private UserEntity user(String username) {
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(UserRole.SUPPLIER);
+        return entityManager.persist(user);
+    }
+}
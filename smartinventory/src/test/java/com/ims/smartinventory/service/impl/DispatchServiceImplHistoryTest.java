@@ -0,0 +1,182 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.DispatchStatus;
+import com.ims.common.config.UserRole;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.management.DispatchEntity;
+import com.ims.common.entity.management.DispatchItemEntity;
+import com.ims.smartinventory.dto.Response.CursorPage;
+import com.ims.smartinventory.dto.Response.DispatchHistoryResponse;
+import com.ims.smartinventory.service.NotificationProducerService;
+import com.ims.smartinventory.storage.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks dispatch history page by page. Dispatches persisted in one go mostly share their creation
+ * time, so the cursor has to fall back on the id to keep its place.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dispatch-history;MODE=MySQL;NON_KEYWORDS=VALUE,YEAR,MONTH,USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DispatchServiceImpl.class, DispatchValuation.class})
+class DispatchServiceImplHistoryTest {
+
+    // The summaries and the grouped unit counts; the dispatches reference no lot, so none is priced
+    private static final long STATEMENTS_PER_PAGE = 2;
+
+    @MockitoBean
+    private NotificationProducerService notificationProducerService;
+
+    @MockitoBean
+    private SlotIndex slotIndex;
+
+    @MockitoBean
+    private SectionOccupancy sectionOccupancy;
+
+    @MockitoBean
+    private StockQueues stockQueues;
+
+    @MockitoBean
+    private GroupedStockView groupedStockView;
+
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private DispatchServiceImpl dispatchService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserEntity buyer;
+    private UserEntity otherBuyer;
+
+    @BeforeEach
+    void setUp() {
+        buyer = user("buyer");
+        otherBuyer = user("other-buyer");
+    }
+
+    @Test
+    void testPendingQueueVisitsEveryDispatchOnceNewestFirst() {
+        // Given
+        Set<String> pending = new HashSet<>();
+        for (int i = 0; i < 45; i++) {
+            pending.add(dispatch(buyer, DispatchStatus.PENDING, 2).getId());
+            dispatch(buyer, DispatchStatus.REJECTED, 1);
+        }
+
+        // When
+        List<DispatchHistoryResponse> visited = walk(cursor -> dispatchService.getPendingDispatches(cursor, 10));
+
+        // Then
+        assertEquals(pending.size(), visited.size());
+        assertEquals(pending, visited.stream().map(DispatchHistoryResponse::getId).collect(Collectors.toSet()));
+        for (int i = 1; i < visited.size(); i++) {
+            DispatchHistoryResponse previous = visited.get(i - 1);
+            DispatchHistoryResponse current = visited.get(i);
+            int byTime = previous.getCreatedAt().compareTo(current.getCreatedAt());
+            assertTrue(byTime > 0 || (byTime == 0 && previous.getId().compareTo(current.getId()) > 0));
+        }
+    }
+
+    @Test
+    void testBuyerHistoryCountsItemsAndQuantityInTheQuery() {
+        // Given
+        DispatchEntity accepted = dispatch(buyer, DispatchStatus.ACCEPTED, 3);
+        dispatch(otherBuyer, DispatchStatus.PENDING, 1);
+
+        // When
+        List<DispatchHistoryResponse> visited = walk(cursor -> dispatchService.getBuyerDispatches(buyer.getId(), cursor, 10));
+
+        // Then
+        assertEquals(1, visited.size());
+        DispatchHistoryResponse response = visited.getFirst();
+        assertEquals(accepted.getId(), response.getId());
+        assertEquals(3, response.getTotalItems());
+        assertEquals(1 + 2 + 3, response.getTotalQuantity());
+        assertNotNull(response.getCompletedAt());
+        assertEquals(0.0, response.getTotalPrice().getValue(), 1e-9);
+    }
+
+    @Test
+    void testPageTakesTheSameStatementsForAnyNumberOfItems() {
+        // Given
+        for (int i = 0; i < 30; i++) {
+            dispatch(buyer, DispatchStatus.ACCEPTED, 1 + i % 5);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        CursorPage<DispatchHistoryResponse> page = dispatchService.getCompletedDispatches(null, 20);
+
+        // Then
+        assertEquals(20, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        assertEquals(STATEMENTS_PER_PAGE, statistics.getPrepareStatementCount());
+    }
+
+    // Follows the cursors from a clean persistence context until the listing runs out
+    private List<DispatchHistoryResponse> walk(Function<String, CursorPage<DispatchHistoryResponse>> listing) {
+        entityManager.flush();
+        entityManager.clear();
+        List<DispatchHistoryResponse> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<DispatchHistoryResponse> page = listing.apply(cursor);
+            visited.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return visited;
+    }
+
+    // A dispatch with items of quantity 1 up to the item count
+    private DispatchEntity dispatch(UserEntity user, DispatchStatus status, int items) {
+        DispatchEntity dispatch = new DispatchEntity();
+        dispatch.setUser(user);
+        dispatch.setStatus(status);
+        entityManager.persist(dispatch);
+        for (int quantity = 1; quantity <= items; quantity++) {
+            DispatchItemEntity item = new DispatchItemEntity();
+            item.setDispatch(dispatch);
+            item.setProductName("book");
+            item.setQuantity(quantity);
+            entityManager.persist(item);
+        }
+        return dispatch;
+    }
+
+    private UserEntity user(String username) {
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(UserRole.SUPPLIER);
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,260 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.LotStatus;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.entity.storage.SlotSection;
+import com.ims.smartinventory.catalog.ProductCodecs;
+import com.ims.smartinventory.repository.*;
+import com.ims.smartinventory.service.NotificationProducerService;
+import com.ims.smartinventory.storage.GroupedStockView;
+import com.ims.smartinventory.storage.ProductSearchIndex;
+import com.ims.smartinventory.storage.ReservationLedger;
+import com.ims.smartinventory.storage.SectionLocks;
+import com.ims.smartinventory.storage.SectionOccupancy;
+import com.ims.smartinventory.storage.SlotIndex;
+import com.ims.smartinventory.storage.StockQueues;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LotServiceImplConcurrencyTest {
+
+    private static final int ACCEPTORS = 32;
+    private static final int SECTIONS = 4;
+    private static final int ROWS_PER_SECTION = 50;
+    private static final int PRODUCTS_PER_LOT = 30;
+
+    @Mock
+    private LotRepository lotRepository;
+
+    @Mock
+    private SlotSectionRepository slotSectionRepository;
+
+    @Mock
+    private SlotShelfRepository slotShelfRepository;
+
+    @Mock
+    private ProductCodecs productCodecs;
+
+    @Mock
+    private InventoryTransactionRepository inventoryTransactionRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private NotificationProducerService notificationProducerService;
+
+    @Mock
+    private SectionRepository sectionRepository;
+
+    @Mock
+    private SectionOccupancy sectionOccupancy;
+
+    @Mock
+    private ReservationLedger reservationLedger;
+
+    @Mock
+    private StockQueues stockQueues;
+
+    @Mock
+    private GroupedStockView groupedStockView;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    private LotServiceImpl lotService;
+    private SlotIndex slotIndex;
+
+    private final List<SectionEntity> sections = new ArrayList<>();
+    private final Map<String, SlotSection> slots = new ConcurrentHashMap<>();
+    private final Map<String, LotEntity> lots = new ConcurrentHashMap<>();
+    private final Map<String, List<BaseProductEntity>> productsByLot = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        slotIndex = new SlotIndex(sectionRepository, slotShelfRepository, slotSectionRepository);
+        lotService = new LotServiceImpl(lotRepository, slotSectionRepository, slotShelfRepository, productCodecs,
+                inventoryTransactionRepository, productRepository, notificationProducerService,
+                slotIndex, sectionOccupancy, reservationLedger, new SectionLocks(), stockQueues,
+                groupedStockView, productSearchIndex, 200);
+
+        when(lotRepository.findByIdForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(lots.get(invocation.<String>getArgument(0))));
+        when(productRepository.findByLotIdAndSlotShelfIsNullAndSlotSectionIsNull(anyString()))
+                .thenAnswer(invocation -> productsByLot.get(invocation.<String>getArgument(0)));
+        when(slotSectionRepository.findAllById(anyIterable()))
+                .thenAnswer(invocation -> {
+                    List<SlotSection> found = new ArrayList<>();
+                    invocation.<Iterable<String>>getArgument(0).forEach(id -> found.add(slots.get(id)));
+                    return found;
+                });
+        when(reservationLedger.settle(any(), anyList())).thenReturn(Map.of());
+    }
+
+    @Test
+    void testConcurrentAcceptorsNeverShareASlot() throws Exception {
+        // Given
+        prepare(false);
+
+        // When
+        acceptAllConcurrently();
+
+        // Then
+        assertEveryProductHasItsOwnSlot();
+    }
+
+    @Test
+    void testConcurrentAcceptorsNeverShareAVirtualPosition() throws Exception {
+        // Given
+        prepare(true);
+        when(slotSectionRepository.saveAll(anyIterable()))
+                .thenAnswer(invocation -> {
+                    for (SlotSection slot : invocation.<Iterable<SlotSection>>getArgument(0)) {
+                        if (slot.getId() == null) {
+                            slot.setId(UUID.randomUUID().toString());
+                        }
+                    }
+                    return List.of();
+                });
+
+        // When
+        acceptAllConcurrently();
+
+        // Then
+        assertEveryProductHasItsOwnSlot();
+        Set<String> positions = new HashSet<>();
+        for (List<BaseProductEntity> products : productsByLot.values()) {
+            for (BaseProductEntity product : products) {
+                SlotSection slot = product.getSlotSection();
+                assertTrue(positions.add(slot.getSection().getId() + ":" + slot.getXPosition() + ":" + slot.getYPosition()),
+                        "position of slot " + slot.getId() + " materialized twice");
+            }
+        }
+    }
+
+    private void prepare(boolean virtualSlots) {
+        for (int s = 0; s < SECTIONS; s++) {
+            sections.add(floorSection("section-" + s, virtualSlots));
+        }
+        sections.forEach(slotIndex::registerSection);
+
+        UserEntity supplier = new UserEntity();
+        supplier.setId("supplier-1");
+
+        for (int l = 0; l < ACCEPTORS; l++) {
+            LotEntity lot = new LotEntity();
+            lot.setId(UUID.randomUUID().toString());
+            lot.setStatus(LotStatus.PENDING);
+            lot.setUser(supplier);
+            lots.put(lot.getId(), lot);
+
+            List<BaseProductEntity> products = new ArrayList<>();
+            for (int p = 0; p < PRODUCTS_PER_LOT; p++) {
+                BookProductEntity product = new BookProductEntity();
+                product.setId(lot.getId() + "-" + p);
+                product.setSection(sections.get((l + p) % SECTIONS));
+                product.setOnShelf(false);
+                products.add(product);
+            }
+            productsByLot.put(lot.getId(), products);
+        }
+    }
+
+    private void acceptAllConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(ACCEPTORS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (String lotId : lots.keySet()) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return acceptInTransaction(lotId);
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+
+    private void assertEveryProductHasItsOwnSlot() {
+        Set<String> assignedSlots = new HashSet<>();
+        for (List<BaseProductEntity> products : productsByLot.values()) {
+            for (BaseProductEntity product : products) {
+                SlotSection slot = product.getSlotSection();
+                assertNotNull(slot, "product " + product.getId() + " got no slot");
+                assertTrue(assignedSlots.add(slot.getId()), "slot " + slot.getId() + " assigned twice");
+                assertSame(product, slot.getProduct());
+                assertSame(product.getSection(), slot.getSection());
+            }
+        }
+        assertEquals(ACCEPTORS * PRODUCTS_PER_LOT, assignedSlots.size());
+
+        int perSection = ACCEPTORS * PRODUCTS_PER_LOT / SECTIONS;
+        for (SectionEntity section : sections) {
+            assertEquals(6 * ROWS_PER_SECTION - perSection, slotIndex.freeSlots(section.getId()));
+        }
+    }
+
+    // Runs the acceptance with transaction synchronization active, completing it like a commit would
+    private boolean acceptInTransaction(String lotId) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            boolean accepted;
+            try {
+                accepted = lotService.acceptLot(lotId);
+            } catch (RuntimeException e) {
+                TransactionSynchronizationUtils.invokeAfterCompletion(
+                        TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+                throw e;
+            }
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+            return accepted;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private SectionEntity floorSection(String id, boolean virtualSlots) {
+        SectionEntity section = new SectionEntity();
+        section.setId(id);
+        section.setName(id);
+        section.setNumShelves(0);
+        section.setY_slot(ROWS_PER_SECTION);
+        section.setVirtualSlots(virtualSlots);
+
+        List<SlotSection> sectionSlots = new ArrayList<>();
+        for (int i = 0; i < 6 * ROWS_PER_SECTION && !virtualSlots; i++) {
+            SlotSection slot = new SlotSection();
+            slot.setId(id + "-slot-" + i);
+            slot.setSection(section);
+            slot.setXPosition(i % 6);
+            slot.setYPosition(i / 6);
+            sectionSlots.add(slot);
+            slots.put(slot.getId(), slot);
+        }
+        section.setSlotSections(sectionSlots);
+        return section;
+    }
+}
@@ -0,0 +1,179 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.LotStatus;
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.entity.PriceEntity;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.management.LotItemEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import com.ims.smartinventory.catalog.BookCodec;
+import com.ims.smartinventory.catalog.ProductCodecs;
+import com.ims.smartinventory.dto.Response.LotDto;
+import com.ims.smartinventory.dto.Response.LotItemDto;
+import com.ims.smartinventory.repository.*;
+import com.ims.smartinventory.service.NotificationProducerService;
+import com.ims.smartinventory.storage.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LotServiceImplGroupingTest {
+
+    private static final int ITEMS = 50_000;
+    private static final int PRODUCTS = 25_000;
+
+    @Mock
+    private LotRepository lotRepository;
+
+    @Mock
+    private SlotSectionRepository slotSectionRepository;
+
+    @Mock
+    private SlotShelfRepository slotShelfRepository;
+
+    @Mock
+    private ProductCodecs productCodecs;
+
+    @Mock
+    private InventoryTransactionRepository inventoryTransactionRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private NotificationProducerService notificationProducerService;
+
+    @Mock
+    private SlotIndex slotIndex;
+
+    @Mock
+    private SectionOccupancy sectionOccupancy;
+
+    @Mock
+    private ReservationLedger reservationLedger;
+
+    @Mock
+    private StockQueues stockQueues;
+
+    @Mock
+    private GroupedStockView groupedStockView;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    private LotServiceImpl lotService;
+    private LotEntity lot;
+
+    @BeforeEach
+    void setUp() {
+        lotService = new LotServiceImpl(lotRepository, slotSectionRepository, slotShelfRepository, productCodecs,
+                inventoryTransactionRepository, productRepository, notificationProducerService,
+                slotIndex, sectionOccupancy, reservationLedger, new SectionLocks(), stockQueues,
+                groupedStockView, productSearchIndex, 200);
+
+        UserEntity supplier = new UserEntity();
+        supplier.setId("supplier-1");
+        supplier.setUsername("supplier");
+
+        lot = new LotEntity();
+        lot.setId("lot-1");
+        lot.setImportDate(new Date());
+        lot.setStatus(LotStatus.PENDING);
+        lot.setStorageStrategy(StorageStrategy.FIFO);
+        lot.setUser(supplier);
+        lot.setItems(new ArrayList<>());
+        when(lotRepository.findById("lot-1")).thenReturn(Optional.of(lot));
+    }
+
+    @Test
+    void testLargeLotIsGroupedInLinearTime() {
+        // Given
+        PriceEntity price = price(10.0, "USD");
+        for (int i = 0; i < ITEMS; i++) {
+            lot.getItems().add(item("book-" + i % PRODUCTS, "fingerprint-" + i % PRODUCTS, price));
+        }
+
+        // When
+        LotDto dto = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> lotService.getLotDetails("lot-1"));
+
+        // Then
+        assertEquals(PRODUCTS, dto.getItems().size());
+        assertTrue(dto.getItems().stream().allMatch(item -> item.getQuantity() == ITEMS / PRODUCTS));
+        assertEquals("book-0", dto.getItems().getFirst().getProductName());
+        assertEquals("book-" + (PRODUCTS - 1), dto.getItems().getLast().getProductName());
+    }
+
+    @Test
+    void testItemsDifferingInPriceOrCurrencyStaySeparate() {
+        // Given
+        lot.getItems().add(item("book", "fingerprint", price(10.0, "USD")));
+        lot.getItems().add(item("book", "fingerprint", price(10.0, "USD")));
+        lot.getItems().add(item("book", "fingerprint", price(12.0, "USD")));
+        lot.getItems().add(item("book", "fingerprint", price(10.0, "EUR")));
+        lot.getItems().add(item("book", "other-fingerprint", price(10.0, "USD")));
+        lot.getItems().add(item("book", "fingerprint", null));
+
+        // When
+        LotDto dto = lotService.getLotDetails("lot-1");
+
+        // Then
+        assertEquals(List.of(2, 1, 1, 1, 1), dto.getItems().stream().map(LotItemDto::getQuantity).toList());
+    }
+
+    @Test
+    void testUnitsWithoutFingerprintAreGroupedByDetail() {
+        // Given
+        when(productCodecs.detail(any())).thenAnswer(invocation -> {
+            BookProductEntity book = invocation.getArgument(0);
+            return new BookCodec.Detail(book.getName(), book.getAuthor(), null, null, null, null);
+        });
+        PriceEntity price = price(10.0, "USD");
+        lot.getItems().add(item("book", null, price, "author-a"));
+        lot.getItems().add(item("book", null, price, "author-a"));
+        lot.getItems().add(item("book", null, price, "author-b"));
+
+        // When
+        LotDto dto = lotService.getLotDetails("lot-1");
+
+        // Then
+        assertEquals(List.of(2, 1), dto.getItems().stream().map(LotItemDto::getQuantity).toList());
+    }
+
+    private LotItemEntity item(String name, String fingerprint, PriceEntity price) {
+        return item(name, fingerprint, price, null);
+    }
+
+    private LotItemEntity item(String name, String fingerprint, PriceEntity price, String author) {
+        BookProductEntity product = new BookProductEntity();
+        product.setName(name);
+        product.setAuthor(author);
+        product.setGroupFingerprint(fingerprint);
+
+        LotItemEntity item = new LotItemEntity();
+        item.setProductName(name);
+        item.setProduct(product);
+        item.setPrice(price);
+        item.setQuantity(1);
+        item.setImportDate(lot.getImportDate());
+        item.setLot(lot);
+        return item;
+    }
+
+    private static PriceEntity price(double value, String currency) {
+        PriceEntity price = new PriceEntity();
+        price.setValue(value);
+        price.setCurrency(currency);
+        return price;
+    }
+}
@@ -0,0 +1,245 @@
+package com.ims.smartinventory.service.impl;
+
+import com.ims.common.config.DispatchStatus;
+import com.ims.common.config.LotStatus;
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.config.UserRole;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.WarehouseEntity;
+import com.ims.common.entity.management.DispatchEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import com.ims.common.entity.product.ElectronicsProductEntity;
+import com.ims.common.entity.product.FoodProductEntity;
+import com.ims.common.entity.product.PharmaceuticalProductEntity;
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.entity.storage.ShelfEntity;
+import com.ims.common.entity.storage.SlotSection;
+import com.ims.common.entity.storage.SlotShelf;
+import com.ims.smartinventory.catalog.*;
+import com.ims.smartinventory.dto.Response.ProductsByLotResponse;
+import com.ims.smartinventory.storage.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements the by-lot product listings issue. Every lot holds one unit of each kind
+ * the listing has to walk: on a shelf, on a floor slot, dispatched, and with element collections.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lot-view;MODE=MySQL;NON_KEYWORDS=VALUE,YEAR,MONTH,USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductServiceImpl.class, ProductCodecs.class, BookCodec.class, ClothingCodec.class, CosmeticCodec.class,
+        ElectronicsCodec.class, FoodCodec.class, PharmaceuticalCodec.class, RawMaterialCodec.class})
+class ProductServiceImplLotViewTest {
+
+    // The lot page, the units with their lot, location and dispatch, and one batch per element collection
+    private static final long STATEMENTS_PER_PAGE = 2 + 3;
+
+    @MockitoBean
+    private NotificationProducerServiceImpl notificationProducerService;
+
+    @MockitoBean
+    private SectionOccupancy sectionOccupancy;
+
+    @MockitoBean
+    private WarehouseRouter warehouseRouter;
+
+    @MockitoBean
+    private ReservationLedger reservationLedger;
+
+    @MockitoBean
+    private StockQueues stockQueues;
+
+    @MockitoBean
+    private GroupedStockView groupedStockView;
+
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+
+    @MockitoBean
+    private ProductSupplierIndex productSupplierIndex;
+
+    @Autowired
+    private ProductServiceImpl productService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserEntity supplier;
+    private UserEntity buyer;
+    private SectionEntity floor;
+    private ShelfEntity shelf;
+    private int lots;
+
+    @BeforeEach
+    void setUp() {
+        WarehouseEntity warehouse = new WarehouseEntity();
+        warehouse.setId("warehouse-1");
+        warehouse.setName("main");
+        entityManager.persist(warehouse);
+
+        supplier = user("supplier", UserRole.SUPPLIER);
+        buyer = user("buyer", UserRole.SUPPLIER);
+
+        floor = new SectionEntity();
+        floor.setName("floor");
+        floor.setWarehouse(warehouse);
+        entityManager.persist(floor);
+
+        SectionEntity racks = new SectionEntity();
+        racks.setName("racks");
+        racks.setWarehouse(warehouse);
+        entityManager.persist(racks);
+
+        shelf = new ShelfEntity();
+        shelf.setSection(racks);
+        entityManager.persist(shelf);
+    }
+
+    @Test
+    void testAdminListingTakesTheSameStatementsForAnyNumberOfLots() {
+        // Given
+        addLots(2);
+        long fewLots = statements(() -> productService.getAllProductsByLot(null, 50).getItems());
+        addLots(8);
+
+        // When
+        long manyLots = statements(() -> productService.getAllProductsByLot(null, 50).getItems());
+
+        // Then
+        assertEquals(STATEMENTS_PER_PAGE, fewLots);
+        assertEquals(STATEMENTS_PER_PAGE, manyLots);
+    }
+
+    @Test
+    void testSupplierListingTakesTheSameStatementsForAnyNumberOfLots() {
+        // Given
+        addLots(2);
+        long fewLots = statements(() -> productService.getProductsByLotForSupplier(supplier, null, 50).getItems());
+        addLots(8);
+
+        // When
+        long manyLots = statements(() -> productService.getProductsByLotForSupplier(supplier, null, 50).getItems());
+        long allLots = statements(() -> productService.getProductsByLotForSupplierOrTemporary(supplier));
+
+        // Then
+        assertEquals(fewLots, manyLots);
+        assertEquals(manyLots, allLots);
+        assertTrue(manyLots <= STATEMENTS_PER_PAGE);
+    }
+
+    // Renders the listing from a clean persistence context and returns the statements it took
+    private long statements(Supplier<List<ProductsByLotResponse>> listing) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProductsByLotResponse> responses = listing.get();
+
+        assertEquals(lots, responses.size());
+        for (ProductsByLotResponse response : responses) {
+            assertEquals("supplier", response.getImportedByUser());
+            for (ProductsByLotResponse.ProductInLot product : response.getProducts()) {
+                assertNotNull(product.getLocationPath());
+                assertNotNull(product.getDetails());
+                if ("EXPORTED".equals(product.getDispatchStatus())) {
+                    assertEquals("buyer", product.getBuyerUsername());
+                }
+            }
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addLots(int count) {
+        for (int i = 0; i < count; i++) {
+            LotEntity lot = new LotEntity();
+            lot.setImportDate(new Date(System.currentTimeMillis() - 1000L * lots));
+            lot.setStatus(LotStatus.ACCEPTED);
+            lot.setStorageStrategy(StorageStrategy.FIFO);
+            lot.setUser(supplier);
+            entityManager.persist(lot);
+
+            BookProductEntity book = new BookProductEntity();
+            book.setAuthor("author");
+            onShelf(place(book, "book", lot));
+
+            FoodProductEntity food = new FoodProductEntity();
+            food.setIngredients(new ArrayList<>(List.of("flour", "water")));
+            onFloor(place(food, "bread", lot));
+
+            ElectronicsProductEntity phone = new ElectronicsProductEntity();
+            phone.setSpecifications(new HashMap<>(Map.of("ram", "8GB")));
+            onFloor(place(phone, "phone", lot));
+
+            PharmaceuticalProductEntity aspirin = new PharmaceuticalProductEntity();
+            aspirin.setActiveIngredients(new HashMap<>(Map.of("acetylsalicylic acid", "500mg")));
+            BaseProductEntity dispatched = place(aspirin, "aspirin", lot);
+            DispatchEntity dispatch = new DispatchEntity();
+            dispatch.setUser(buyer);
+            dispatch.setStatus(DispatchStatus.PENDING);
+            entityManager.persist(dispatch);
+            dispatched.setDispatch(dispatch);
+            onFloor(dispatched);
+
+            lots++;
+        }
+    }
+
+    private BaseProductEntity place(BaseProductEntity product, String name, LotEntity lot) {
+        product.setName(name);
+        product.setLot(lot);
+        entityManager.persist(product);
+        return product;
+    }
+
+    private void onShelf(BaseProductEntity product) {
+        SlotShelf slot = new SlotShelf();
+        slot.setShelf(shelf);
+        slot.setProduct(product);
+        entityManager.persist(slot);
+        product.setSlotShelf(slot);
+        product.setSection(shelf.getSection());
+        product.setOnShelf(true);
+    }
+
+    private void onFloor(BaseProductEntity product) {
+        SlotSection slot = new SlotSection();
+        slot.setSection(floor);
+        slot.setProduct(product);
+        entityManager.persist(slot);
+        product.setSlotSection(slot);
+        product.setSection(floor);
+    }
+
+    private UserEntity user(String username, UserRole role) {
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,202 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.config.DispatchStatus;
+import com.ims.common.config.LotStatus;
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.config.UserRole;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.PriceEntity;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.management.DispatchEntity;
+import com.ims.common.entity.management.DispatchItemEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.management.LotItemEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dispatch-valuation;MODE=MySQL;NON_KEYWORDS=VALUE,YEAR,MONTH,USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DispatchValuation.class)
+class DispatchValuationTest {
+
+    @Autowired
+    private DispatchValuation dispatchValuation;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserEntity supplier;
+    private UserEntity buyer;
+
+    @BeforeEach
+    void setUp() {
+        supplier = user("supplier");
+        buyer = user("buyer");
+    }
+
+    @Test
+    void testUnitsArePricedByTheirLotUnlessTheirLotItemHasAPrice() {
+        // Given
+        LotEntity cheap = lot(price(2.0));
+        LotEntity dear = lot(price(5.0));
+        LotEntity unpriced = lot(null);
+        List<BaseProductEntity> units = new ArrayList<>();
+        units.addAll(units(cheap, 3, null));
+        units.addAll(units(dear, 1, null));
+        units.addAll(units(dear, 2, price(7.0)));
+        units.addAll(units(unpriced, 4, null));
+        DispatchEntity dispatch = dispatch();
+        DispatchItemEntity item = item(dispatch, units);
+        DispatchItemEntity nothingPriced = item(dispatch, units(unpriced, 1, null));
+
+        // When
+        DispatchValuation.Valuation valuation = dispatchValuation.value(flushed(dispatch));
+
+        // Then
+        assertEquals(3 * 2.0 + 5.0 + 2 * 7.0, valuation.item(item.getId()).subtotal(), 1e-9);
+        assertEquals(25.0 / 6, valuation.item(item.getId()).unitPrice().value(), 1e-9);
+        assertNull(valuation.item(nothingPriced.getId()).unitPrice());
+        assertEquals(25.0, valuation.total(), 1e-9);
+        assertEquals("USD", valuation.currency());
+    }
+
+    @Test
+    void testItemsReferencingOneUnitArePricedByQuantity() {
+        // Given
+        BaseProductEntity reference = units(lot(price(3.0)), 1, null).getFirst();
+        DispatchEntity dispatch = dispatch();
+        DispatchItemEntity item = new DispatchItemEntity();
+        item.setDispatch(dispatch);
+        item.setProductId(reference.getId());
+        item.setQuantity(4);
+        entityManager.persist(item);
+
+        // When
+        DispatchValuation.Valuation valuation = dispatchValuation.value(flushed(dispatch));
+
+        // Then
+        assertEquals(12.0, valuation.item(item.getId()).subtotal(), 1e-9);
+    }
+
+    @Test
+    void testHistoryPagePricesInAFixedNumberOfStatements() {
+        // Given
+        List<DispatchEntity> dispatches = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            DispatchEntity dispatch = dispatch();
+            item(dispatch, units(lot(price(1.0 + i)), 2, null));
+            dispatches.add(dispatch);
+        }
+        List<String> ids = dispatches.stream().map(DispatchEntity::getId).toList();
+
+        // When
+        long cold = statements(ids);
+        long warm = statements(ids);
+
+        // Then
+        assertEquals(2, cold);
+        assertEquals(1, warm);
+    }
+
+    // Values the dispatches from a clean persistence context and returns the statements it took
+    private long statements(List<String> dispatchIds) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<String, DispatchValuation.Valuation> valuations = dispatchValuation.value(dispatchIds);
+
+        assertEquals(dispatchIds.size(), valuations.size());
+        valuations.values().forEach(valuation -> assertTrue(valuation.total() > 0));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private String flushed(DispatchEntity dispatch) {
+        entityManager.flush();
+        entityManager.clear();
+        return dispatch.getId();
+    }
+
+    private DispatchEntity dispatch() {
+        DispatchEntity dispatch = new DispatchEntity();
+        dispatch.setUser(buyer);
+        dispatch.setStatus(DispatchStatus.ACCEPTED);
+        return entityManager.persist(dispatch);
+    }
+
+    private DispatchItemEntity item(DispatchEntity dispatch, List<BaseProductEntity> units) {
+        DispatchItemEntity item = new DispatchItemEntity();
+        item.setDispatch(dispatch);
+        item.setProductId(units.getFirst().getId());
+        item.setQuantity(units.size());
+        item.setProducts(new ArrayList<>(units));
+        return entityManager.persist(item);
+    }
+
+    private List<BaseProductEntity> units(LotEntity lot, int count, PriceEntity itemPrice) {
+        List<BaseProductEntity> units = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BookProductEntity book = new BookProductEntity();
+            book.setName("book");
+            book.setLot(lot);
+            entityManager.persist(book);
+
+            LotItemEntity lotItem = new LotItemEntity();
+            lotItem.setLot(lot);
+            lotItem.setProduct(book);
+            lotItem.setProductName("book");
+            lotItem.setQuantity(1);
+            lotItem.setPrice(itemPrice);
+            entityManager.persist(lotItem);
+            units.add(book);
+        }
+        return units;
+    }
+
+    private LotEntity lot(PriceEntity price) {
+        LotEntity lot = new LotEntity();
+        lot.setImportDate(new Date());
+        lot.setStatus(LotStatus.ACCEPTED);
+        lot.setStorageStrategy(StorageStrategy.FIFO);
+        lot.setUser(supplier);
+        lot.setPrice(price);
+        return entityManager.persist(lot);
+    }
+
+    private PriceEntity price(double value) {
+        PriceEntity price = new PriceEntity();
+        price.setValue(value);
+        price.setCurrency("USD");
+        return entityManager.persist(price);
+    }
+
+    private UserEntity user(String username) {
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(UserRole.SUPPLIER);
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,111 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import com.ims.smartinventory.catalog.*;
+import com.ims.smartinventory.dto.Request.ProductGroupResponseDto;
+import com.ims.smartinventory.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupedStockViewTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private StockQueues stockQueues;
+    private GroupedStockView groupedStockView;
+
+    @BeforeEach
+    void setUp() {
+        stockQueues = new StockQueues(productRepository);
+        ProductCodecs productCodecs = new ProductCodecs(List.of(new BookCodec(), new ClothingCodec(), new CosmeticCodec(),
+                new ElectronicsCodec(), new FoodCodec(), new PharmaceuticalCodec(), new RawMaterialCodec()));
+        groupedStockView = new GroupedStockView(productRepository, productCodecs, stockQueues);
+    }
+
+    @Test
+    void testDispatchedRepresentativeIsReplacedByTheNextUnitInStock() {
+        // Given, three units of one lot, taken in id order
+        LotEntity lot = new LotEntity();
+        lot.setImportDate(new Date());
+        List<BaseProductEntity> units = List.of(unit("unit-1"), unit("unit-2"), unit("unit-3"));
+        stockQueues.add(lot, units);
+        groupedStockView.add(units);
+        assertEquals("unit-1", groupedStockView.groups().getFirst().getProductId());
+
+        // When, the representative and the last unit are dispatched
+        Map<String, String> dispatched = Map.of("unit-1", "books", "unit-3", "books");
+        stockQueues.remove(dispatched);
+        groupedStockView.remove(dispatched);
+
+        // Then
+        ProductGroupResponseDto group = groupedStockView.groups().getFirst();
+        assertEquals("unit-2", group.getProductId());
+        assertEquals(1, group.getCount());
+    }
+
+    @Test
+    void testClaimedUnitsAreHeldBackUntilTheirDispatchIsReleased() {
+        // Given
+        groupedStockView.add(List.of(unit("unit-1"), unit("unit-2"), unit("unit-3")));
+
+        // When
+        groupedStockView.reserve(Map.of("books", 2));
+
+        // Then
+        assertEquals(1, groupedStockView.groups().getFirst().getCount());
+
+        // When
+        groupedStockView.release(Map.of("books", 2));
+
+        // Then
+        assertEquals(3, groupedStockView.groups().getFirst().getCount());
+    }
+
+    @Test
+    void testFullyClaimedGroupIsNotListedAndDispatchingItKeepsTheRestAvailable() {
+        // Given
+        LotEntity lot = new LotEntity();
+        lot.setImportDate(new Date());
+        List<BaseProductEntity> units = List.of(unit("unit-1"), unit("unit-2"), unit("unit-3"));
+        stockQueues.add(lot, units);
+        groupedStockView.add(units);
+
+        // When
+        groupedStockView.reserve(Map.of("books", 3));
+
+        // Then
+        assertTrue(groupedStockView.groups().isEmpty());
+
+        // When, two of the claimed units are dispatched and the third is released
+        Map<String, String> dispatched = Map.of("unit-1", "books", "unit-2", "books");
+        stockQueues.remove(dispatched);
+        groupedStockView.remove(dispatched);
+        groupedStockView.release(Map.of("books", 1));
+
+        // Then
+        ProductGroupResponseDto group = groupedStockView.groups().getFirst();
+        assertEquals("unit-3", group.getProductId());
+        assertEquals(1, group.getCount());
+    }
+
+    private BaseProductEntity unit(String id) {
+        BookProductEntity book = new BookProductEntity();
+        book.setId(id);
+        book.setName("book");
+        book.setGroupFingerprint("books");
+        return book;
+    }
+}
@@ -0,0 +1,90 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.config.LotStatus;
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.config.UserRole;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.UserEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-supplier;MODE=MySQL;NON_KEYWORDS=VALUE,YEAR,MONTH,USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductSupplierIndex.class)
+class ProductSupplierIndexTest {
+
+    @Autowired
+    private ProductSupplierIndex productSupplierIndex;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testRebuildAttributesEveryUnitToTheSupplierOfItsLot() {
+        // Given, more units than the table starts out with, most stored before the column existed
+        UserEntity alice = user("alice");
+        UserEntity bob = user("bob");
+        List<BaseProductEntity> aliceUnits = units(lot(alice), 1500, false);
+        List<BaseProductEntity> bobUnits = units(lot(bob), 20, true);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        int indexed = productSupplierIndex.rebuild();
+
+        // Then
+        assertEquals(1520, indexed);
+        aliceUnits.forEach(unit -> assertEquals(alice.getId(), productSupplierIndex.supplierOf(unit.getId())));
+        bobUnits.forEach(unit -> assertEquals(bob.getId(), productSupplierIndex.supplierOf(unit.getId())));
+        assertEquals(alice.getId(), entityManager.find(BookProductEntity.class, aliceUnits.getFirst().getId()).getSupplierId());
+        assertNull(productSupplierIndex.supplierOf("00000000-0000-7000-8000-000000000000"));
+        assertNull(productSupplierIndex.supplierOf("not-a-uuid"));
+    }
+
+    private List<BaseProductEntity> units(LotEntity lot, int count, boolean withSupplier) {
+        List<BaseProductEntity> units = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BookProductEntity book = new BookProductEntity();
+            book.setName("book");
+            book.setLot(lot);
+            if (withSupplier) {
+                book.setSupplierId(lot.getUser().getId());
+            }
+            units.add(entityManager.persist(book));
+        }
+        return units;
+    }
+
+    private LotEntity lot(UserEntity supplier) {
+        LotEntity lot = new LotEntity();
+        lot.setImportDate(new Date());
+        lot.setStatus(LotStatus.ACCEPTED);
+        lot.setStorageStrategy(StorageStrategy.FIFO);
+        lot.setUser(supplier);
+        return entityManager.persist(lot);
+    }
+
+    private UserEntity user(String username) {
+        UserEntity user = new UserEntity();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(UserRole.SUPPLIER);
+        return entityManager.persist(user);
+    }
+}
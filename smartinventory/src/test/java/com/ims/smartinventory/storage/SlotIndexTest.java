@@ -0,0 +1,85 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.entity.PriceEntity;
+import com.ims.common.entity.WarehouseEntity;
+import com.ims.common.entity.storage.SectionEntity;
+import com.ims.common.entity.storage.SlotSection;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slot-index;MODE=MySQL;NON_KEYWORDS=VALUE,YEAR,MONTH,USER",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SlotIndex.class)
+class SlotIndexTest {
+
+    @Autowired
+    private SlotIndex slotIndex;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testOpenFloorRowsBeyondTheDeclaredDepthCanBeAllocated() {
+        // Given, a floor declared one row deep that holds a second row
+        SectionEntity section = floor(1, 8);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        slotIndex.rebuild();
+        List<SlotIndex.ClaimedSlot> claimed = slotIndex.claim(section.getId(), 8);
+
+        // Then
+        assertEquals(8, claimed.size());
+        Set<String> slotIds = new HashSet<>();
+        claimed.forEach(slot -> slotIds.add(slot.slotId()));
+        assertEquals(8, slotIds.size());
+        assertFalse(slotIds.contains(null));
+        assertEquals(0, slotIndex.freeSlots(section.getId()));
+    }
+
+    private SectionEntity floor(int depth, int slots) {
+        WarehouseEntity warehouse = new WarehouseEntity();
+        warehouse.setId("warehouse-1");
+        warehouse.setName("main");
+        entityManager.persist(warehouse);
+
+        PriceEntity price = new PriceEntity();
+        price.setValue(10.0);
+        price.setCurrency("USD");
+
+        SectionEntity section = new SectionEntity();
+        section.setName("floor");
+        section.setWarehouse(warehouse);
+        section.setPrice(price);
+        section.setY_slot(depth);
+        section.setTotalSlots(6 * depth);
+        entityManager.persist(section);
+
+        List<SlotSection> rows = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            SlotSection slot = new SlotSection();
+            slot.setSection(section);
+            slot.setXPosition(i % 6);
+            slot.setYPosition(i / 6);
+            rows.add(entityManager.persist(slot));
+        }
+        section.setSlotSections(rows);
+        return section;
+    }
+}
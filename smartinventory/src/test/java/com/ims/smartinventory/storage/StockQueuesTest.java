@@ -0,0 +1,111 @@
+package com.ims.smartinventory.storage;
+
+import com.ims.common.config.StorageStrategy;
+import com.ims.common.entity.BaseProductEntity;
+import com.ims.common.entity.management.LotEntity;
+import com.ims.common.entity.product.BookProductEntity;
+import com.ims.smartinventory.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockQueuesTest {
+
+    private static final int DISPATCHES = 8;
+    private static final int UNITS_EACH = 4;
+    private static final int ROUNDS = 200;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private StockQueues stockQueues;
+
+    @BeforeEach
+    void setUp() {
+        stockQueues = new StockQueues(productRepository);
+        stockQueues.add(lot(1), List.of(unit("old-1"), unit("old-2")));
+        stockQueues.add(lot(2), List.of(unit("new-2"), unit("new-1"), unit("new-3")));
+    }
+
+    @Test
+    void testLifoTakesTheNewestLotFirstAndItsUnitsInIdOrder() {
+        // When
+        List<String> claimed = stockQueues.claim("books", StorageStrategy.LIFO, 4, "dispatch-1");
+
+        // Then
+        assertEquals(List.of("new-1", "new-2", "new-3", "old-1"), claimed);
+    }
+
+    @Test
+    void testFifoTakesTheOldestLotFirstAndItsUnitsInIdOrder() {
+        // When
+        List<String> claimed = stockQueues.claim("books", StorageStrategy.FIFO, 3, "dispatch-1");
+
+        // Then
+        assertEquals(List.of("old-1", "old-2", "new-1"), claimed);
+    }
+
+    @Test
+    void testConcurrentRandomClaimsShareTheGroupWithoutFailing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(DISPATCHES);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                // Given, exactly enough units for every dispatch
+                String fingerprint = "pens-" + round;
+                List<BaseProductEntity> units = new ArrayList<>();
+                for (int i = 0; i < DISPATCHES * UNITS_EACH; i++) {
+                    units.add(unit(fingerprint + "-" + i, fingerprint));
+                }
+                stockQueues.add(lot(3), units);
+
+                // When
+                CyclicBarrier start = new CyclicBarrier(DISPATCHES);
+                List<Future<List<String>>> claims = new ArrayList<>();
+                for (int i = 0; i < DISPATCHES; i++) {
+                    String dispatchId = "dispatch-" + round + "-" + i;
+                    claims.add(executor.submit(() -> {
+                        start.await();
+                        return stockQueues.claim(fingerprint, StorageStrategy.RANDOM, UNITS_EACH, dispatchId);
+                    }));
+                }
+
+                // Then
+                Set<String> claimed = new HashSet<>();
+                for (Future<List<String>> claim : claims) {
+                    List<String> ids = claim.get(10, TimeUnit.SECONDS);
+                    assertEquals(UNITS_EACH, ids.size(), "round " + round);
+                    claimed.addAll(ids);
+                }
+                assertEquals(DISPATCHES * UNITS_EACH, claimed.size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static LotEntity lot(int day) {
+        LotEntity lot = new LotEntity();
+        lot.setImportDate(new Date(day * 86_400_000L));
+        return lot;
+    }
+
+    private static BaseProductEntity unit(String id) {
+        return unit(id, "books");
+    }
+
+    private static BaseProductEntity unit(String id, String fingerprint) {
+        BookProductEntity book = new BookProductEntity();
+        book.setId(id);
+        book.setName("book");
+        book.setGroupFingerprint(fingerprint);
+        return book;
+    }
+}